@@ -1,62 +1,253 @@
 package edu.javacourse.studentorder;
 
+import edu.javacourse.studentorder.config.Config;
+import edu.javacourse.studentorder.dao.StudentOrderDao;
+import edu.javacourse.studentorder.dao.StudentOrderBatch;
 import edu.javacourse.studentorder.dao.StudentOrderDaoImpl;
+import edu.javacourse.studentorder.dao.StudentOrderListener;
 import edu.javacourse.studentorder.domain.*;
 import edu.javacourse.studentorder.domain.children.AnswerChildren;
 import edu.javacourse.studentorder.domain.register.AnswerCityRegister;
 import edu.javacourse.studentorder.domain.student.AnswerStudent;
 import edu.javacourse.studentorder.domain.wedding.AnswerWedding;
+import edu.javacourse.studentorder.exception.CityRegisterException;
 import edu.javacourse.studentorder.exception.DaoException;
 import edu.javacourse.studentorder.mail.MailSender;
+import edu.javacourse.studentorder.metrics.Counter;
+import edu.javacourse.studentorder.metrics.Histogram;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
+import edu.javacourse.studentorder.pipeline.ValidationPipeline;
 import edu.javacourse.studentorder.validator.ChildrenValidator;
 import edu.javacourse.studentorder.validator.CityRegisterValidator;
+import edu.javacourse.studentorder.validator.OrderCheckResult;
 import edu.javacourse.studentorder.validator.StudentValidator;
+import edu.javacourse.studentorder.validator.ValidationEngine;
 import edu.javacourse.studentorder.validator.WeddingValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 public class StudentOrderValidator {
 
+    private static final Logger logger = LoggerFactory.getLogger(StudentOrderValidator.class);
+
+    private static final MetricRegistry metrics = MetricRegistry.getDefault();
+    private static final Histogram orderTime = metrics.timer("validator.order");
+    private static final Counter ordersChecked = metrics.counter("validator.order.checked");
+    private static final Counter ordersFailed = metrics.counter("validator.order.failed");
+
     private CityRegisterValidator cityRegsterVal;
     private WeddingValidator weddingVal;
     private ChildrenValidator childrenVal;
     private StudentValidator studentVal;
     private MailSender mailSender;
+    private ValidationEngine engine;
+    private StudentOrderDao studentOrderDao;
+    private String owner;
 
     public StudentOrderValidator() {
-        this.cityRegsterVal = new CityRegisterValidator();
+        this(new StudentOrderDaoImpl(), new CityRegisterValidator(), new MailSender(),
+                new ValidationEngine(
+                        Config.getInt(Config.VALIDATOR_THREADS, 10),
+                        Config.getBoolean(Config.VALIDATOR_VIRTUAL_THREADS, false)));
+    }
+
+    public StudentOrderValidator(StudentOrderDao studentOrderDao, CityRegisterValidator cityRegsterVal,
+                                 MailSender mailSender, ValidationEngine engine) {
+        this.cityRegsterVal = cityRegsterVal;
         this.weddingVal = new WeddingValidator();
         this.childrenVal = new ChildrenValidator();
         this.studentVal = new StudentValidator();
-        this.mailSender = new MailSender();
+        this.mailSender = mailSender;
+        this.engine = engine;
+        this.studentOrderDao = studentOrderDao;
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
     }
 
     public static void main(String[] args) {
+        if (Config.getBoolean(Config.CONFIG_WATCH, false)) {
+            Config.startWatching();
+        }
         StudentOrderValidator studentOrderValidator = new StudentOrderValidator();
-        studentOrderValidator.checkAll();
+        String mode = Config.getProperty(Config.VALIDATOR_MODE, "all");
+        if ("claim".equals(mode)) {
+            studentOrderValidator.checkAllClaimed();
+        } else if ("pipeline".equals(mode)) {
+            studentOrderValidator.checkAllPipeline();
+        } else if ("listen".equals(mode)) {
+            studentOrderValidator.listen();
+        } else {
+            studentOrderValidator.checkAll();
+        }
     }
 
     public void checkAll () {
         try {
             List<StudentOrder> soList = readStudentOrders();
-            for (StudentOrder so : soList) {
-                System.out.println();
-                checkOneOrder(so);
-            }
+            List<OrderCheckResult<AnswerCityRegister>> results = engine.checkAll(soList, this::checkOneOrder);
+            long failed = results.stream().filter(r -> !isPassed(r)).count();
+            ordersChecked.add(results.size() - failed);
+            ordersFailed.add(failed);
+            logger.info("Checked {} orders, failed {}", results.size(), failed);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
     }
 
+    public void checkAllClaimed() {
+        int claimSize = Config.getInt(Config.VALIDATOR_CLAIM_SIZE, 100);
+        try {
+            Set<Long> failedInPass = new HashSet<>();
+            List<StudentOrder> soList;
+            while (!(soList = studentOrderDao.claimStudentOrders(owner, claimSize)).isEmpty()) {
+                // With a retry delay shorter than the pass, this pass's failures come back: stop instead of spinning
+                if (soList.stream().allMatch(so -> failedInPass.contains(so.getStudentOrderId()))) {
+                    break;
+                }
+                failedInPass.addAll(checkClaimed(soList));
+            }
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+        }
+    }
+
+    // One claim of validator.claimSize orders. True when the claim was full and something passed,
+    // so more orders are probably waiting; a batch of failures only comes back after the retry delay.
+    public boolean checkClaimedBatch() throws DaoException {
+        int claimSize = Config.getInt(Config.VALIDATOR_CLAIM_SIZE, 100);
+        List<StudentOrder> soList = studentOrderDao.claimStudentOrders(owner, claimSize);
+        if (soList.isEmpty()) {
+            return false;
+        }
+        List<Long> failed = checkClaimed(soList);
+        return soList.size() == claimSize && failed.size() < soList.size();
+    }
+
+    // Runs until the process is stopped: new orders are checked as their NOTIFY arrives. Catch-up runs
+    // one claim batch at a time on every (re)connect and every db.listen.catchUpInterval ms, so a backlog
+    // never holds back the notified orders
+    public void listen() {
+        StudentOrderListener listener = new StudentOrderListener(new StudentOrderListener.Handler() {
+            @Override
+            public void ordersCreated(List<Long> ids) throws Exception {
+                List<StudentOrder> soList = studentOrderDao.claimStudentOrders(owner, ids);
+                if (!soList.isEmpty()) {
+                    checkClaimed(soList);
+                }
+            }
+
+            @Override
+            public boolean catchUp() throws Exception {
+                return checkClaimedBatch();
+            }
+        });
+        listener.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(listener::close, "student-order-listener-shutdown"));
+        try {
+            listener.awaitTermination();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            listener.close();
+        }
+    }
+
+    // Returns the ids of the orders that could not be checked
+    private List<Long> checkClaimed(List<StudentOrder> soList) throws DaoException {
+        List<OrderCheckResult<AnswerCityRegister>> results = engine.checkAll(soList, this::checkOneOrder);
+        List<Long> checked = new ArrayList<>(results.size());
+        List<Long> failed = new ArrayList<>();
+        for (OrderCheckResult<AnswerCityRegister> r : results) {
+            (isPassed(r) ? checked : failed).add(r.getStudentOrder().getStudentOrderId());
+        }
+        ordersChecked.add(checked.size());
+        ordersFailed.add(failed.size());
+        studentOrderDao.markStudentOrders(checked, StudentOrderStatus.CHECKED, owner);
+        // Failed orders stay START but keep the lease for a while, so no pass retries them straight away
+        studentOrderDao.deferStudentOrders(failed, owner, Config.getInt(Config.DB_CLAIM_RETRY_DELAY, 60));
+        logger.info("Claimed {} orders, checked {}, deferred {}", soList.size(), checked.size(), failed.size());
+        return failed;
+    }
+
+    // An exception or an ERROR item from the register both mean the order has not been checked
+    private static boolean isPassed(OrderCheckResult<AnswerCityRegister> result) {
+        return result.isSuccess() && result.getAnswer() != null && !result.getAnswer().hasErrors();
+    }
+
+    public void checkAllPipeline() {
+        try {
+            ValidationPipeline pipeline = buildPipeline();
+            long count = pipeline.run(sink -> studentOrderDao.readStudentOrders(StudentOrderStatus.START, sink));
+            logger.info("Pipeline checked {} orders", count);
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+        }
+    }
+
+    // fetch -> city register -> wedding -> children -> student -> persist -> mail
+    public ValidationPipeline buildPipeline() {
+        ValidationPipeline pipeline = new ValidationPipeline(
+                Config.getInt(Config.VALIDATOR_PIPELINE_QUEUE_SIZE, 100));
+        pipeline.setReportInterval(
+                Config.getLong(Config.VALIDATOR_PIPELINE_REPORT_INTERVAL, 10000));
+        pipeline.addStage("cityRegister", stageWorkers("cityRegister", 10), ctx -> {
+            AnswerCityRegister answer = checkCityRegister(ctx.getStudentOrder());
+            ctx.setCityRegisterAnswer(answer);
+            if (answer.hasErrors()) {
+                throw new CityRegisterException(CityRegisterException.GENERAL_ERROR,
+                        "City register did not answer for order " + ctx.getStudentOrder().getStudentOrderId());
+            }
+        });
+        pipeline.addStage("wedding", stageWorkers("wedding", 1),
+                ctx -> ctx.setWeddingAnswer(checkWedding(ctx.getStudentOrder())));
+        pipeline.addStage("children", stageWorkers("children", 1),
+                ctx -> ctx.setChildrenAnswer(checkChildren(ctx.getStudentOrder())));
+        pipeline.addStage("student", stageWorkers("student", 1),
+                ctx -> ctx.setStudentAnswer(checkStudent(ctx.getStudentOrder())));
+        // Failed orders stay START so the next run picks them up again. The pipeline holds no lease,
+        // so orders leased by a claim or listen validator are left to that validator, mail included
+        pipeline.addStage("persist", stageWorkers("persist", 1), ctx -> {
+            List<Long> ids = Collections.singletonList(ctx.getStudentOrder().getStudentOrderId());
+            if (studentOrderDao.markStudentOrders(ids, StudentOrderStatus.CHECKED, null) == 0) {
+                throw new DaoException("Order " + ids.get(0) + " is leased by another validator, not marked");
+            }
+        });
+        pipeline.addStage("mail", stageWorkers("mail", 1), ctx -> sendMail(ctx.getStudentOrder()));
+        return pipeline;
+    }
+
+    private int stageWorkers(String stage, int defaultValue) {
+        return Config.getInt(Config.VALIDATOR_PIPELINE_WORKERS + stage, defaultValue);
+    }
+
     public List<StudentOrder> readStudentOrders() throws DaoException {
-        return new StudentOrderDaoImpl().getStudentOrders();
+        if ("columnar".equals(Config.getProperty(Config.VALIDATOR_BATCH_FORMAT, "objects"))) {
+            // Streams rows straight into column arrays, so the object graph of the whole batch never exists;
+            // db.limit caps it like the object path
+            int limit = Config.getInt(Config.DB_LIMIT, 1000);
+            StudentOrderBatch batch = new StudentOrderBatch();
+            studentOrderDao.readStudentOrders(StudentOrderStatus.START, limit, batch::add);
+            batch.compact();
+            return batch.asList();
+        }
+        return studentOrderDao.getStudentOrders();
     }
 
-    public void checkOneOrder(StudentOrder so) {
+    public AnswerCityRegister checkOneOrder(StudentOrder so) {
+        long start = metrics.startTimer();
         AnswerCityRegister cityAnswer = checkCityRegister(so);
 //        AnswerWedding wedAnswer = checkWedding(so);
 //        AnswerChildren childAnswer = checkChildren(so);
 //        AnswerStudent studentAnswer = checkStudent(so);
 //        sendMail(so);
+        orderTime.recordSince(start);
+        return cityAnswer;
     }
 
     public AnswerCityRegister checkCityRegister(StudentOrder so) { ;
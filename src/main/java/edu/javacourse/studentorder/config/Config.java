@@ -1,7 +1,19 @@
 package edu.javacourse.studentorder.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Config {
 
@@ -9,19 +21,262 @@ public class Config {
     public static final String DB_LOGIN = "db.login";
     public static final String DB_PASSWORD = "db.password";
     public static final String DB_LIMIT = "db.limit";
+    public static final String DB_CLAIM_LEASE = "db.claim.lease";
+    public static final String DB_CLAIM_RETRY_DELAY = "db.claim.retryDelay";
+    public static final String DB_SAVE_CHUNK_SIZE = "db.save.chunkSize";
+    public static final String DB_STREAM_PAGE_SIZE = "db.stream.pageSize";
+    public static final String DB_STREAM_FETCH_SIZE = "db.stream.fetchSize";
+    public static final String DB_FETCH_STRATEGY = "db.fetch.strategy";
+    public static final String DB_FETCH_CHILDREN_RATIO = "db.fetch.childrenRatio";
+    public static final String DB_INTERN = "db.intern";
+    public static final String DB_LISTEN_WINDOW = "db.listen.window";
+    public static final String DB_LISTEN_MAX_BATCH = "db.listen.maxBatch";
+    public static final String DB_LISTEN_CATCH_UP_INTERVAL = "db.listen.catchUpInterval";
+    public static final String DB_LISTEN_RECONNECT_DELAY = "db.listen.reconnectDelay";
+    public static final String DB_POOL_MIN = "db.pool.minSize";
+    public static final String DB_POOL_MAX = "db.pool.maxSize";
+    public static final String DB_POOL_IDLE_TIMEOUT = "db.pool.idleTimeout";
+    public static final String DB_POOL_BORROW_TIMEOUT = "db.pool.borrowTimeout";
+    public static final String DB_POOL_VALIDATION_TIMEOUT = "db.pool.validationTimeout";
+    public static final String DB_POOL_VALIDATION_INTERVAL = "db.pool.validationInterval";
+    public static final String DB_POOL_EVICTION_INTERVAL = "db.pool.evictionInterval";
+    // 0 or less returns every matching street
+    public static final String DICT_STREET_LIMIT = "dict.street.limit";
+    public static final String DICT_STREET_TRGM = "dict.street.trgm";
     public static final String CR_URL = "cr.url";
+    public static final String CR_BATCH_URL = "cr.batch.url";
+    public static final String CR_CONNECT_TIMEOUT = "cr.connectTimeout";
+    public static final String CR_READ_TIMEOUT = "cr.readTimeout";
+    public static final String CR_POOL_MAX_TOTAL = "cr.pool.maxTotal";
+    public static final String CR_POOL_MAX_PER_ROUTE = "cr.pool.maxPerRoute";
+    public static final String CR_CODEC = "cr.codec";
+    public static final String CR_CACHE_ENABLED = "cr.cache.enabled";
+    public static final String CR_CACHE_MAX_SIZE = "cr.cache.maxSize";
+    public static final String CR_CACHE_TTL = "cr.cache.ttl";
+    public static final String CR_CACHE_NEGATIVE = "cr.cache.negative";
+    public static final String CR_MODE = "cr.mode";
+    public static final String CR_FANOUT_THREADS = "cr.fanout.threads";
+    public static final String CR_FANOUT_DEADLINE = "cr.fanout.deadline";
+    public static final String CR_RESILIENCE_ENABLED = "cr.resilience.enabled";
+    public static final String CR_BREAKER_WINDOW_SIZE = "cr.breaker.windowSize";
+    public static final String CR_BREAKER_MIN_CALLS = "cr.breaker.minCalls";
+    public static final String CR_BREAKER_FAILURE_RATE = "cr.breaker.failureRate";
+    public static final String CR_BREAKER_SLOW_CALL_TIME = "cr.breaker.slowCallTime";
+    public static final String CR_BREAKER_SLOW_CALL_RATE = "cr.breaker.slowCallRate";
+    public static final String CR_BREAKER_OPEN_TIME = "cr.breaker.openTime";
+    public static final String CR_BREAKER_HALF_OPEN_CALLS = "cr.breaker.halfOpenCalls";
+    public static final String CR_BULKHEAD_MAX_CONCURRENT = "cr.bulkhead.maxConcurrent";
+    public static final String CR_BULKHEAD_MAX_WAIT = "cr.bulkhead.maxWait";
+    public static final String CR_RETRY_MAX_ATTEMPTS = "cr.retry.maxAttempts";
+    public static final String CR_RETRY_BASE_DELAY = "cr.retry.baseDelay";
+    public static final String CR_RETRY_MAX_DELAY = "cr.retry.maxDelay";
+    public static final String CR_RETRY_CODES = "cr.retry.codes";
+    public static final String VALIDATOR_THREADS = "validator.threads";
+    public static final String VALIDATOR_VIRTUAL_THREADS = "validator.virtualThreads";
+    public static final String VALIDATOR_MODE = "validator.mode";
+    public static final String VALIDATOR_CLAIM_SIZE = "validator.claimSize";
+    public static final String VALIDATOR_BATCH_FORMAT = "validator.batchFormat";
+    public static final String VALIDATOR_PIPELINE_QUEUE_SIZE = "validator.pipeline.queueSize";
+    public static final String VALIDATOR_PIPELINE_WORKERS = "validator.pipeline.workers.";
+    public static final String VALIDATOR_PIPELINE_REPORT_INTERVAL = "validator.pipeline.reportInterval";
+    public static final String METRICS_ENABLED = "metrics.enabled";
+    public static final String METRICS_JMX = "metrics.jmx";
+    public static final String METRICS_REPORT_INTERVAL = "metrics.report.interval";
+    public static final String METRICS_REPORT_CSV = "metrics.report.csv";
+    public static final String MAIL_TRANSPORT = "mail.transport";
+    public static final String MAIL_TO = "mail.to";
+    public static final String MAIL_QUEUE_SIZE = "mail.queueSize";
+    public static final String MAIL_BATCH_SIZE = "mail.batchSize";
+    public static final String MAIL_LINGER = "mail.linger";
+    public static final String MAIL_MAX_ATTEMPTS = "mail.maxAttempts";
+    public static final String MAIL_RETRY_DELAY = "mail.retryDelay";
+    public static final String MAIL_SPOOL = "mail.spool";
+    public static final String MAIL_SPOOL_INTERVAL = "mail.spool.interval";
+    public static final String CONFIG_WATCH = "config.watch";
+    public static final String CONFIG_WATCH_SETTLE = "config.watch.settle";
+
+    // Overrides the classpath config.properties with a file on disk
+    public static final String CONFIG_FILE_PROPERTY = "config.file";
 
-    private static Properties properties = new Properties();
+    private static final Logger logger = LoggerFactory.getLogger(Config.class);
 
-    public synchronized static String getProperty(String name) {
-        if(properties.isEmpty()) {
-            try (InputStream is = Config.class.getClassLoader().getResourceAsStream("config.properties")) {
-                properties.load(is);
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                throw new RuntimeException(ex);
+    // Keys read as numbers or flags; a reload with any of them malformed is rejected
+    private static final List<String> INT_KEYS = Arrays.asList(
+            DB_LIMIT, DB_CLAIM_LEASE, DB_CLAIM_RETRY_DELAY, DB_SAVE_CHUNK_SIZE, DB_STREAM_PAGE_SIZE,
+            DB_STREAM_FETCH_SIZE, DB_LISTEN_MAX_BATCH, DB_POOL_MIN, DB_POOL_MAX, DB_POOL_VALIDATION_TIMEOUT,
+            DICT_STREET_LIMIT, CR_CONNECT_TIMEOUT, CR_READ_TIMEOUT, CR_POOL_MAX_TOTAL, CR_POOL_MAX_PER_ROUTE,
+            CR_CACHE_MAX_SIZE, CR_FANOUT_THREADS, CR_BREAKER_WINDOW_SIZE, CR_BREAKER_MIN_CALLS,
+            CR_BREAKER_HALF_OPEN_CALLS, CR_BULKHEAD_MAX_CONCURRENT, CR_RETRY_MAX_ATTEMPTS, VALIDATOR_THREADS,
+            VALIDATOR_CLAIM_SIZE, VALIDATOR_PIPELINE_QUEUE_SIZE, MAIL_QUEUE_SIZE, MAIL_BATCH_SIZE,
+            MAIL_MAX_ATTEMPTS);
+    private static final List<String> LONG_KEYS = Arrays.asList(
+            DB_LISTEN_WINDOW, DB_LISTEN_CATCH_UP_INTERVAL, DB_LISTEN_RECONNECT_DELAY, DB_POOL_IDLE_TIMEOUT,
+            DB_POOL_BORROW_TIMEOUT, DB_POOL_VALIDATION_INTERVAL, DB_POOL_EVICTION_INTERVAL, CR_CACHE_TTL,
+            CR_FANOUT_DEADLINE, CR_BREAKER_SLOW_CALL_TIME, CR_BREAKER_OPEN_TIME, CR_BULKHEAD_MAX_WAIT,
+            CR_RETRY_BASE_DELAY, CR_RETRY_MAX_DELAY, VALIDATOR_PIPELINE_REPORT_INTERVAL, METRICS_REPORT_INTERVAL,
+            MAIL_LINGER, MAIL_RETRY_DELAY, MAIL_SPOOL_INTERVAL, CONFIG_WATCH_SETTLE);
+    private static final List<String> DOUBLE_KEYS = Arrays.asList(
+            DB_FETCH_CHILDREN_RATIO, CR_BREAKER_FAILURE_RATE, CR_BREAKER_SLOW_CALL_RATE);
+    private static final List<String> BOOLEAN_KEYS = Arrays.asList(
+            DICT_STREET_TRGM, CR_CACHE_ENABLED, CR_CACHE_NEGATIVE, CR_RESILIENCE_ENABLED,
+            VALIDATOR_VIRTUAL_THREADS, METRICS_ENABLED, METRICS_JMX, CONFIG_WATCH);
+
+    public interface Listener {
+        void configChanged(ConfigSnapshot previous, ConfigSnapshot current);
+    }
+
+    private static volatile ConfigSnapshot snapshot;
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static ConfigWatcher watcher;
+
+    public static ConfigSnapshot get() {
+        ConfigSnapshot result = snapshot;
+        if (result == null) {
+            synchronized (Config.class) {
+                result = snapshot;
+                if (result == null) {
+                    result = new ConfigSnapshot(load(), 1);
+                    snapshot = result;
+                }
             }
         }
-        return properties.getProperty(name);
+        return result;
+    }
+
+    public static String getProperty(String name) {
+        return get().getString(name);
+    }
+
+    public static String getProperty(String name, String defaultValue) {
+        return get().getString(name, defaultValue);
+    }
+
+    public static int getInt(String name, int defaultValue) {
+        return get().getInt(name, defaultValue);
+    }
+
+    public static long getLong(String name, long defaultValue) {
+        return get().getLong(name, defaultValue);
+    }
+
+    public static double getDouble(String name, double defaultValue) {
+        return get().getDouble(name, defaultValue);
+    }
+
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        return get().getBoolean(name, defaultValue);
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public static boolean reload() {
+        Properties properties;
+        try {
+            properties = load();
+        } catch (RuntimeException ex) {
+            logger.warn("Config reload failed, keeping previous values: {}", ex.getMessage());
+            return false;
+        }
+        return update(properties);
+    }
+
+    // Swaps the snapshot and notifies listeners; returns false when nothing has changed
+    // or the new values are invalid
+    static synchronized boolean update(Properties properties) {
+        ConfigSnapshot previous = get();
+        ConfigSnapshot current = new ConfigSnapshot(properties, previous.getVersion() + 1);
+        if (current.getValues().equals(previous.getValues())) {
+            return false;
+        }
+        try {
+            validate(current);
+        } catch (IllegalStateException ex) {
+            logger.warn("Config reload rejected, keeping previous values: {}", ex.getMessage());
+            return false;
+        }
+        snapshot = current;
+        logger.info("Config reloaded, version {}", current.getVersion());
+        for (Listener listener : listeners) {
+            try {
+                listener.configChanged(previous, current);
+            } catch (RuntimeException ex) {
+                logger.error(ex.getMessage(), ex);
+            }
+        }
+        return true;
+    }
+
+    // Parses every typed key up front, so a malformed value never replaces a working snapshot
+    static void validate(ConfigSnapshot config) {
+        INT_KEYS.forEach(name -> config.getInt(name, 0));
+        LONG_KEYS.forEach(name -> config.getLong(name, 0));
+        DOUBLE_KEYS.forEach(name -> config.getDouble(name, 0));
+        BOOLEAN_KEYS.forEach(name -> config.getBoolean(name, false));
+        for (String name : config.getValues().keySet()) {
+            if (name.startsWith(VALIDATOR_PIPELINE_WORKERS)) {
+                config.getInt(name, 0);
+            }
+        }
+    }
+
+    public static synchronized void startWatching() {
+        if (watcher != null) {
+            return;
+        }
+        Path file = locate();
+        if (file == null) {
+            logger.warn("config.properties is not a file on disk, hot reload is disabled");
+            return;
+        }
+        ConfigWatcher w = new ConfigWatcher(file, getLong(CONFIG_WATCH_SETTLE, 200), Config::reload);
+        try {
+            w.start();
+            watcher = w;
+        } catch (IOException ex) {
+            logger.warn("Cannot watch {}: {}", file, ex.getMessage());
+        }
+    }
+
+    public static synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    private static Path locate() {
+        String override = System.getProperty(CONFIG_FILE_PROPERTY);
+        if (override != null) {
+            return Paths.get(override);
+        }
+        URL url = Config.class.getClassLoader().getResource("config.properties");
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException ex) {
+            return null;
+        }
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        Path file = locate();
+        try (InputStream is = file != null
+                ? Files.newInputStream(file)
+                : Config.class.getClassLoader().getResourceAsStream("config.properties")) {
+            properties.load(is);
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+            throw new RuntimeException(ex);
+        }
+        return properties;
     }
 }
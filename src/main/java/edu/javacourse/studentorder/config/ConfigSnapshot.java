@@ -0,0 +1,108 @@
+package edu.javacourse.studentorder.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public final class ConfigSnapshot {
+
+    private final long version;
+    private final Map<String, String> values;
+
+    // Typed values are parsed on first use and kept for the lifetime of the snapshot
+    private final ConcurrentHashMap<String, Integer> ints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> longs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Double> doubles = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> booleans = new ConcurrentHashMap<>();
+
+    public ConfigSnapshot(Properties properties, long version) {
+        Map<String, String> map = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            map.put(name, properties.getProperty(name).trim());
+        }
+        this.values = Collections.unmodifiableMap(map);
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, String> getValues() {
+        return values;
+    }
+
+    public String getString(String name) {
+        return values.get(name);
+    }
+
+    public String getString(String name, String defaultValue) {
+        String value = values.get(name);
+        return value != null ? value : defaultValue;
+    }
+
+    public int getInt(String name, int defaultValue) {
+        Integer value = parse(ints, name, Integer::valueOf);
+        return value != null ? value : defaultValue;
+    }
+
+    public long getLong(String name, long defaultValue) {
+        Long value = parse(longs, name, Long::valueOf);
+        return value != null ? value : defaultValue;
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        Double value = parse(doubles, name, Double::valueOf);
+        return value != null ? value : defaultValue;
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        Boolean value = parse(booleans, name, ConfigSnapshot::parseBoolean);
+        return value != null ? value : defaultValue;
+    }
+
+    private <T> T parse(ConcurrentHashMap<String, T> cache, String name, Function<String, T> parser) {
+        T value = cache.get(name);
+        if (value != null) {
+            return value;
+        }
+        String raw = values.get(name);
+        if (raw == null || raw.isEmpty()) {
+            return null;
+        }
+        try {
+            value = parser.apply(raw);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("Invalid value of '" + name + "': " + raw, ex);
+        }
+        cache.putIfAbsent(name, value);
+        return value;
+    }
+
+    // Unlike Boolean.valueOf, a typo is an error rather than false
+    private static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+
+    public boolean isChanged(ConfigSnapshot other, String name) {
+        return other == null || !Objects.equals(values.get(name), other.values.get(name));
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot{" +
+                "version=" + version +
+                ", size=" + values.size() +
+                '}';
+    }
+}
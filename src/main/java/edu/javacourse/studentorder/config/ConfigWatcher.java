@@ -0,0 +1,92 @@
+package edu.javacourse.studentorder.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+public class ConfigWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigWatcher.class);
+
+    private final Path file;
+    private final Runnable onChange;
+    private final long settleTime;
+    private WatchService watchService;
+    private Thread thread;
+
+    // Editors write a file in several steps, so events are collected for settleTime ms before one reload
+    public ConfigWatcher(Path file, long settleTime, Runnable onChange) {
+        this.file = file.toAbsolutePath();
+        this.settleTime = settleTime;
+        this.onChange = onChange;
+    }
+
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::watch, "config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching {} for changes", file);
+    }
+
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ex) {
+                logger.debug("Error closing watch service: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = collect(key);
+                while (changed && (key = watchService.poll(settleTime, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key);
+                }
+                if (changed) {
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException ex) {
+                        logger.error(ex.getMessage(), ex);
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            logger.debug("Config watcher stopped");
+        }
+    }
+
+    private boolean collect(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (context instanceof Path && file.getFileName().equals(context))) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
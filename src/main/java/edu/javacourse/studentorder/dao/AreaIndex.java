@@ -0,0 +1,166 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.CountryArea;
+import edu.javacourse.studentorder.exception.DaoException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AreaIndex {
+
+    public static final int CODE_LENGTH = 12;
+    public static final int MAX_LEVEL = 4;
+
+    // Area code is 2/3/3/4 digits: region, district, settlement, subdivision
+    private static final int[] LEVEL_START = {0, 2, 5, 8};
+    private static final int[] LEVEL_END = {2, 5, 8, 12};
+
+    private static class Node {
+        private final CountryArea area;
+        private final Node parent;
+        private final List<Node> children = new ArrayList<>();
+
+        Node(CountryArea area, Node parent) {
+            this.area = area;
+            this.parent = parent;
+        }
+    }
+
+    private final Node root = new Node(null, null);
+    private final Map<String, Node> nodes = new HashMap<>();
+
+    public AreaIndex(Collection<CountryArea> areas) {
+        List<CountryArea> sorted = new ArrayList<>(areas);
+        sorted.sort(Comparator.comparing(CountryArea::getAreaId));
+        for (CountryArea area : sorted) {
+            String code = area.getAreaId();
+            if (level(code) == 0 || nodes.containsKey(code)) {
+                continue;
+            }
+            Node parent = findNode(parentCode(code));
+            Node node = new Node(area, parent);
+            parent.children.add(node);
+            nodes.put(code, node);
+        }
+    }
+
+    public static int level(String code) {
+        if (code == null || code.trim().isEmpty()) {
+            return 0;
+        }
+        if (code.length() != CODE_LENGTH) {
+            throw new IllegalArgumentException("Invalid area code: " + code);
+        }
+        for (int level = MAX_LEVEL; level > 0; level--) {
+            if (!isZero(code, LEVEL_START[level - 1], LEVEL_END[level - 1])) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
+    // Only areas above the last level can have children to look for
+    public static void checkParent(String areaId) throws DaoException {
+        try {
+            if (level(areaId) == MAX_LEVEL) {
+                throw new DaoException("Invalid parametr 'areaId': " + areaId);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new DaoException(ex.getMessage(), ex);
+        }
+    }
+
+    public static String parentCode(String code) {
+        int level = level(code);
+        if (level <= 1) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(code);
+        for (int i = LEVEL_START[level - 1]; i < LEVEL_END[level - 1]; i++) {
+            sb.setCharAt(i, '0');
+        }
+        return sb.toString();
+    }
+
+    private static boolean isZero(String code, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (code.charAt(i) != '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Missing intermediate levels are skipped: the area hangs off the nearest existing ancestor
+    private Node findNode(String code) {
+        while (code != null) {
+            Node node = nodes.get(code);
+            if (node != null) {
+                return node;
+            }
+            code = parentCode(code);
+        }
+        return root;
+    }
+
+    public CountryArea get(String code) {
+        Node node = nodes.get(code);
+        return node != null ? node.area : null;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public List<CountryArea> children(String code) {
+        Node node = level(code) == 0 ? root : nodes.get(code);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<CountryArea> result = new ArrayList<>(node.children.size());
+        for (Node child : node.children) {
+            result.add(child.area);
+        }
+        return result;
+    }
+
+    public List<CountryArea> ancestors(String code) {
+        Node node = level(code) == 0 ? null : nodes.get(code);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<CountryArea> result = new ArrayList<>(MAX_LEVEL);
+        for (Node n = node.parent; n != root; n = n.parent) {
+            result.add(n.area);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    public List<CountryArea> subtree(String code) {
+        Node node = level(code) == 0 ? root : nodes.get(code);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<CountryArea> result = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (int i = node.children.size() - 1; i >= 0; i--) {
+            stack.push(node.children.get(i));
+        }
+        while (!stack.isEmpty()) {
+            Node n = stack.pop();
+            result.add(n.area);
+            for (int i = n.children.size() - 1; i >= 0; i--) {
+                stack.push(n.children.get(i));
+            }
+        }
+        return result;
+    }
+}
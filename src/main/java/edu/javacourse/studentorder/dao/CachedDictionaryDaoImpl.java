@@ -0,0 +1,236 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.config.Config;
+import edu.javacourse.studentorder.domain.CountryArea;
+import edu.javacourse.studentorder.domain.PassportOffice;
+import edu.javacourse.studentorder.domain.RegisterOffice;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.domain.University;
+import edu.javacourse.studentorder.exception.DaoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class CachedDictionaryDaoImpl implements DictionaryDao {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedDictionaryDaoImpl.class);
+
+    private static final String ALL_STREETS = "select street_code, street_name " +
+            "from jc_street order by street_name";
+    private static final String ALL_PASSPORT = "select * " +
+            "from jc_passport_office order by p_office_id";
+    private static final String ALL_REGISTER = "select * " +
+            "from jc_register_office order by r_office_id";
+    private static final String ALL_AREAS = "select * " +
+            "from jc_country_struct order by area_id";
+    private static final String ALL_UNIVERSITIES = "select * " +
+            "from jc_university order by university_id";
+
+    private static class Snapshot {
+        private StreetSearchIndex streetIndex;
+        private Map<Long, Street> streetById;
+        private Map<String, List<PassportOffice>> passportByArea;
+        private Map<Long, PassportOffice> passportById;
+        private Map<String, List<RegisterOffice>> registerByArea;
+        private Map<Long, RegisterOffice> registerById;
+        private AreaIndex areaIndex;
+        private Map<Long, University> universityById;
+    }
+
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService refresher;
+
+    public CachedDictionaryDaoImpl() throws DaoException {
+        refresh();
+    }
+
+    public void startRefresh(long interval) {
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dictionary-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (DaoException ex) {
+                logger.warn("Dictionary refresh failed, keeping previous snapshot: {}", ex.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public void refresh() throws DaoException {
+        try (Connection con = ConnectionBuilder.getConnection()) {
+            Snapshot s = new Snapshot();
+            // Entities of a snapshot are shared by every caller, so they are the interner's read-only ones
+            DictionaryInterner interner = DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH);
+            loadStreets(con, s, interner);
+            loadPassportOffices(con, s, interner);
+            loadRegisterOffices(con, s, interner);
+            loadAreas(con, s, interner);
+            loadUniversities(con, s, interner);
+            snapshot = s;
+            logger.info("Dictionary loaded: streets={}, passport offices={}, register offices={}, areas={}",
+                    s.streetIndex.size(), s.passportById.size(), s.registerById.size(), s.areaIndex.size());
+        } catch (SQLException ex) {
+            logger.error(ex.getMessage(), ex);
+            throw new DaoException(ex);
+        }
+    }
+
+    private void loadStreets(Connection con, Snapshot s, DictionaryInterner interner) throws SQLException {
+        List<Street> streets = new ArrayList<>();
+        Map<Long, Street> byId = new HashMap<>();
+        try (PreparedStatement st = con.prepareStatement(ALL_STREETS);
+             ResultSet rs = st.executeQuery()) {
+            while (rs.next()) {
+                Street street = interner.street(rs.getLong("street_code"), rs.getString("street_name"));
+                streets.add(street);
+                byId.put(street.getStreetCode(), street);
+            }
+        }
+        s.streetIndex = new StreetSearchIndex(streets);
+        s.streetById = byId;
+    }
+
+    private void loadPassportOffices(Connection con, Snapshot s, DictionaryInterner interner)
+            throws SQLException {
+        Map<String, List<PassportOffice>> byArea = new HashMap<>();
+        Map<Long, PassportOffice> byId = new HashMap<>();
+        try (PreparedStatement st = con.prepareStatement(ALL_PASSPORT);
+             ResultSet rs = st.executeQuery()) {
+            while (rs.next()) {
+                PassportOffice po = interner.passportOffice(
+                        rs.getLong("p_office_id"),
+                        rs.getString("p_office_area_id"),
+                        rs.getString("p_office_name")
+                );
+                byArea.computeIfAbsent(po.getOfficeAreaId(), k -> new ArrayList<>()).add(po);
+                byId.put(po.getOfficeId(), po);
+            }
+        }
+        byArea.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        s.passportByArea = byArea;
+        s.passportById = byId;
+    }
+
+    private void loadRegisterOffices(Connection con, Snapshot s, DictionaryInterner interner)
+            throws SQLException {
+        Map<String, List<RegisterOffice>> byArea = new HashMap<>();
+        Map<Long, RegisterOffice> byId = new HashMap<>();
+        try (PreparedStatement st = con.prepareStatement(ALL_REGISTER);
+             ResultSet rs = st.executeQuery()) {
+            while (rs.next()) {
+                RegisterOffice ro = interner.registerOffice(
+                        rs.getLong("r_office_id"),
+                        rs.getString("r_office_area_id"),
+                        rs.getString("r_office_name")
+                );
+                byArea.computeIfAbsent(ro.getOfficeAreaId(), k -> new ArrayList<>()).add(ro);
+                byId.put(ro.getOfficeId(), ro);
+            }
+        }
+        byArea.replaceAll((k, v) -> Collections.unmodifiableList(v));
+        s.registerByArea = byArea;
+        s.registerById = byId;
+    }
+
+    private void loadAreas(Connection con, Snapshot s, DictionaryInterner interner) throws SQLException {
+        List<CountryArea> areas = new ArrayList<>();
+        try (PreparedStatement st = con.prepareStatement(ALL_AREAS);
+             ResultSet rs = st.executeQuery()) {
+            while (rs.next()) {
+                CountryArea area = interner.area(
+                        rs.getString("area_id"),
+                        rs.getString("area_name")
+                );
+                areas.add(area);
+            }
+        }
+        s.areaIndex = new AreaIndex(areas);
+    }
+
+    private void loadUniversities(Connection con, Snapshot s, DictionaryInterner interner)
+            throws SQLException {
+        Map<Long, University> byId = new HashMap<>();
+        try (PreparedStatement st = con.prepareStatement(ALL_UNIVERSITIES);
+             ResultSet rs = st.executeQuery()) {
+            while (rs.next()) {
+                University university = interner.university(
+                        rs.getLong("university_id"),
+                        rs.getString("university_name")
+                );
+                byId.put(university.getUniversityId(), university);
+            }
+        }
+        s.universityById = byId;
+    }
+
+    @Override
+    public List<Street> findStreets(String pattern) throws DaoException {
+        int limit = Config.getInt(Config.DICT_STREET_LIMIT, 100);
+        return findStreets(pattern, limit > 0 ? limit : Integer.MAX_VALUE);
+    }
+
+    public List<Street> findStreets(String pattern, int limit) {
+        return snapshot.streetIndex.search(pattern, limit);
+    }
+
+    @Override
+    public List<PassportOffice> findPassportOffices(String areaId) throws DaoException {
+        return snapshot.passportByArea.getOrDefault(areaId, Collections.emptyList());
+    }
+
+    @Override
+    public List<RegisterOffice> findRegisterOffices(String areaId) throws DaoException {
+        return snapshot.registerByArea.getOrDefault(areaId, Collections.emptyList());
+    }
+
+    @Override
+    public List<CountryArea> findAreas(String areaId) throws DaoException {
+        AreaIndex.checkParent(areaId);
+        return snapshot.areaIndex.children(areaId);
+    }
+
+    public AreaIndex getAreaIndex() {
+        return snapshot.areaIndex;
+    }
+
+    public Street getStreet(Long streetCode) {
+        return snapshot.streetById.get(streetCode);
+    }
+
+    public PassportOffice getPassportOffice(Long officeId) {
+        return snapshot.passportById.get(officeId);
+    }
+
+    public RegisterOffice getRegisterOffice(Long officeId) {
+        return snapshot.registerById.get(officeId);
+    }
+
+    public CountryArea getArea(String areaId) {
+        return snapshot.areaIndex.get(areaId);
+    }
+
+    public University getUniversity(Long universityId) {
+        return snapshot.universityById.get(universityId);
+    }
+}
@@ -0,0 +1,87 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Child;
+import edu.javacourse.studentorder.domain.RegisterOffice;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class ChildRowMapper {
+
+    private final int childId;
+    private final int orderId;
+    private final int surName;
+    private final int givenName;
+    private final int patronymic;
+    private final int dateOfBirth;
+    private final int certificateNumber;
+    private final int certificateDate;
+    private final int registerOfficeId;
+    private final int registerOfficeArea;
+    private final int registerOfficeName;
+    private final int postIndex;
+    private final int streetCode;
+    private final int building;
+    private final int extension;
+    private final int apartment;
+    private final DictionaryInterner interner;
+
+    // roPref is "" for the child select and "c_" when the child is joined to the order row
+    public ChildRowMapper(ResultSet rs, String roPref) throws SQLException {
+        this(new ResultSetColumns(rs), roPref);
+    }
+
+    public ChildRowMapper(ResultSetColumns columns, String roPref) throws SQLException {
+        this(columns, roPref, DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH));
+    }
+
+    public ChildRowMapper(ResultSetColumns columns, String roPref, DictionaryInterner interner) throws SQLException {
+        this.interner = interner;
+        childId = columns.get("student_child_id");
+        orderId = columns.get("student_order_id");
+        surName = columns.get("c_sur_name");
+        givenName = columns.get("c_given_name");
+        patronymic = columns.get("c_patronymic");
+        dateOfBirth = columns.get("c_date_of_birth");
+        certificateNumber = columns.get("c_certificate_number");
+        certificateDate = columns.get("c_certificate_date");
+        registerOfficeId = columns.get("c_register_office_id");
+        registerOfficeArea = columns.get(roPref + "r_office_area_id");
+        registerOfficeName = columns.get(roPref + "r_office_name");
+        postIndex = columns.get("c_post_index");
+        streetCode = columns.get("c_street_code");
+        building = columns.get("c_building");
+        extension = columns.get("c_extension");
+        apartment = columns.get("c_appartment");
+    }
+
+    // False for the empty side of a left join
+    public boolean hasChild(ResultSet rs) throws SQLException {
+        rs.getLong(childId);
+        return !rs.wasNull();
+    }
+
+    public long getOrderId(ResultSet rs) throws SQLException {
+        return rs.getLong(orderId);
+    }
+
+    public Child map(ResultSet rs) throws SQLException {
+        Child child = new Child(rs.getString(surName), rs.getString(givenName), rs.getString(patronymic),
+                rs.getDate(dateOfBirth).toLocalDate());
+
+        child.setCertificateNumber(rs.getString(certificateNumber));
+        child.setIssueDate(rs.getDate(certificateDate).toLocalDate());
+        RegisterOffice ro = interner.registerOffice(rs, registerOfficeId, registerOfficeArea, registerOfficeName);
+        child.setIssueDepartment(ro);
+
+        Address adr = new Address();
+        adr.setStreet(interner.street(rs.getLong(streetCode), ""));
+        adr.setPostCode(rs.getString(postIndex));
+        adr.setBuilding(rs.getString(building));
+        adr.setExtension(rs.getString(extension));
+        adr.setApartment(rs.getString(apartment));
+        child.setAddress(adr);
+        return child;
+    }
+}
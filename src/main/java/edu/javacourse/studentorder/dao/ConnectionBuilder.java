@@ -1,6 +1,9 @@
 package edu.javacourse.studentorder.dao;
 
 import edu.javacourse.studentorder.config.Config;
+import edu.javacourse.studentorder.config.ConfigSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -8,12 +11,61 @@ import java.sql.SQLException;
 
 public class ConnectionBuilder {
 
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionBuilder.class);
+
+    private static volatile ConnectionPool pool;
+
     public static Connection getConnection() throws SQLException {
-        Connection con = DriverManager.getConnection(
-                Config.getProperty(Config.DB_URL),
-                Config.getProperty(Config.DB_LOGIN),
-                Config.getProperty(Config.DB_PASSWORD)
+        return getPool().getConnection();
+    }
+
+    public static ConnectionPool getPool() {
+        ConnectionPool result = pool;
+        if (result == null) {
+            synchronized (ConnectionBuilder.class) {
+                result = pool;
+                if (result == null) {
+                    result = buildPool();
+                    pool = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    // One snapshot for all three values, so a reload never mixes old and new credentials
+    static Connection createConnection() throws SQLException {
+        ConfigSnapshot config = Config.get();
+        return DriverManager.getConnection(
+                config.getString(Config.DB_URL),
+                config.getString(Config.DB_LOGIN),
+                config.getString(Config.DB_PASSWORD)
+        );
+    }
+
+    private static ConnectionPool buildPool() {
+        ConnectionPool cp = new ConnectionPool(
+                ConnectionBuilder::createConnection,
+                Config.getInt(Config.DB_POOL_MIN, 1),
+                Config.getInt(Config.DB_POOL_MAX, 10),
+                Config.getLong(Config.DB_POOL_IDLE_TIMEOUT, 600000),
+                Config.getLong(Config.DB_POOL_BORROW_TIMEOUT, 30000),
+                Config.getInt(Config.DB_POOL_VALIDATION_TIMEOUT, 5),
+                Config.getLong(Config.DB_POOL_VALIDATION_INTERVAL, 500)
         );
-        return con;
+        // Warm up to minSize now instead of one eviction interval later; maintenance retries on failure
+        try {
+            cp.fillToMinimum();
+        } catch (SQLException ex) {
+            logger.warn("Connection pool prefill failed: {}", ex.getMessage());
+        }
+        cp.startMaintenance(Config.getLong(Config.DB_POOL_EVICTION_INTERVAL, 60000));
+        Config.addListener((previous, current) -> {
+            if (current.isChanged(previous, Config.DB_POOL_MIN) || current.isChanged(previous, Config.DB_POOL_MAX)) {
+                cp.resize(current.getInt(Config.DB_POOL_MIN, 1), current.getInt(Config.DB_POOL_MAX, 10));
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(cp::close, "connection-pool-shutdown"));
+        return cp;
     }
 }
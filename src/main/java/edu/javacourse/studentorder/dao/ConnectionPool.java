@@ -0,0 +1,375 @@
+package edu.javacourse.studentorder.dao;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    // Exposes reducePermits so the pool can shrink while connections are borrowed
+    private static class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    private static class PooledEntry {
+        private final Connection connection;
+        private volatile long lastUsed;
+
+        PooledEntry(Connection connection) {
+            this.connection = connection;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    private final ConnectionFactory factory;
+    private volatile int minSize;
+    private volatile int maxSize;
+    private final long idleTimeout;
+    private final long borrowTimeout;
+    private final int validationTimeout;
+    private final long validationInterval;
+
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final ResizableSemaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private ScheduledExecutorService maintenance;
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong validationFailCount = new AtomicLong();
+    private final AtomicLong waitTimeNanos = new AtomicLong();
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long idleTimeout, long borrowTimeout,
+                          int validationTimeout, long validationInterval) {
+        checkSize(minSize, maxSize);
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.borrowTimeout = borrowTimeout;
+        this.validationTimeout = validationTimeout;
+        this.validationInterval = validationInterval;
+        this.permits = new ResizableSemaphore(maxSize);
+    }
+
+    private static void checkSize(int minSize, int maxSize) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+    }
+
+    // Shrinking does not touch borrowed connections: they are closed on return while the pool is over size
+    public synchronized void resize(int minSize, int maxSize) {
+        checkSize(minSize, maxSize);
+        int delta = maxSize - this.maxSize;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reduce(-delta);
+        }
+        this.maxSize = maxSize;
+        this.minSize = minSize;
+        PooledEntry entry;
+        while (total.get() > maxSize && (entry = idle.pollLast()) != null) {
+            destroy(entry);
+        }
+        logger.info("Connection pool resized: min={}, max={}", minSize, maxSize);
+    }
+
+    public void startMaintenance(long evictionInterval) {
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(() -> {
+            try {
+                evictIdle();
+                fillToMinimum();
+            } catch (Exception ex) {
+                logger.warn("Pool maintenance failed: {}", ex.getMessage());
+            }
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timeout waiting for connection after " + borrowTimeout + " ms, "
+                        + "active=" + getActiveCount() + ", max=" + maxSize);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for connection", ex);
+        }
+        waitTimeNanos.addAndGet(System.nanoTime() - start);
+
+        try {
+            PooledEntry entry = takeIdle();
+            if (entry == null) {
+                entry = create();
+            }
+            borrowCount.incrementAndGet();
+            return wrap(entry);
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private PooledEntry takeIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - entry.lastUsed < validationInterval || isValid(entry)) {
+                return entry;
+            }
+            validationFailCount.incrementAndGet();
+            destroy(entry);
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.connection.isValid(validationTimeout);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private PooledEntry create() throws SQLException {
+        Connection con = factory.create();
+        total.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledEntry(con);
+    }
+
+    private void destroy(PooledEntry entry) {
+        total.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        try {
+            entry.connection.close();
+        } catch (SQLException ex) {
+            logger.debug("Error closing connection: {}", ex.getMessage());
+        }
+    }
+
+    private void release(PooledEntry entry) {
+        try {
+            if (closed.get() || entry.connection.isClosed() || total.get() > maxSize) {
+                destroy(entry);
+                return;
+            }
+            if (!entry.connection.getAutoCommit()) {
+                entry.connection.rollback();
+                entry.connection.setAutoCommit(true);
+            }
+            entry.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        } catch (SQLException ex) {
+            logger.debug("Connection reset failed, discarding: {}", ex.getMessage());
+            destroy(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledEntry> it = idle.descendingIterator();
+        while (it.hasNext() && total.get() > minSize) {
+            PooledEntry entry = it.next();
+            if (now - entry.lastUsed > idleTimeout && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+    }
+
+    // Creates under a permit like a borrower does, so it never pushes the pool past maxSize
+    void fillToMinimum() throws SQLException {
+        while (!closed.get() && total.get() < minSize && permits.tryAcquire()) {
+            try {
+                if (total.get() < minSize) {
+                    idle.offerLast(create());
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    private Connection wrap(PooledEntry entry) {
+        InvocationHandler handler = new InvocationHandler() {
+            private final AtomicBoolean returned = new AtomicBoolean();
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (returned.compareAndSet(false, true)) {
+                            release(entry);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned.get() || entry.connection.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled[" + entry.connection + "]";
+                    default:
+                        if (returned.get()) {
+                            throw new SQLException("Connection is closed");
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(entry.connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                        if (result instanceof Statement || result instanceof DatabaseMetaData) {
+                            return withConnection(result, method.getReturnType(), (Connection) proxy);
+                        }
+                        return result;
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    // Statements and metadata report the pooled connection, so closing "their" connection returns it to the pool
+    private static Object withConnection(Object target, Class<?> type, Connection connection) {
+        return Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getConnection":
+                            return connection;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(target, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                    }
+                });
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getValidationFailCount() {
+        return validationFailCount.get();
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "total=" + getTotalCount() +
+                ", active=" + getActiveCount() +
+                ", idle=" + getIdleCount() +
+                ", waiting=" + getWaitingCount() +
+                ", borrowed=" + getBorrowCount() +
+                ", created=" + getCreatedCount() +
+                ", destroyed=" + getDestroyedCount() +
+                ", timeouts=" + getTimeoutCount() +
+                '}';
+    }
+}
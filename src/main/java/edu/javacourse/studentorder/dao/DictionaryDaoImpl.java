@@ -6,6 +6,8 @@ import edu.javacourse.studentorder.domain.PassportOffice;
 import edu.javacourse.studentorder.domain.RegisterOffice;
 import edu.javacourse.studentorder.domain.Street;
 import edu.javacourse.studentorder.exception.DaoException;
+import edu.javacourse.studentorder.metrics.Histogram;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +22,10 @@ public class DictionaryDaoImpl implements DictionaryDao {
     private static final String GET_STREET = "select street_code, street_name " +
             "from jc_street where upper(street_name) like upper(?)";
 
+    private static final String GET_STREET_TRGM = "select street_code, street_name " +
+            "from jc_street where street_name ilike ? " +
+            "order by similarity(street_name, ?) desc, street_name limit ?";
+
     private static final String GET_PASSPORT = "select * " +
             "from jc_passport_office where p_office_area_id = ?";
 
@@ -28,15 +34,43 @@ public class DictionaryDaoImpl implements DictionaryDao {
     private static final String GET_AREA = "select * " +
             "from jc_country_struct where area_id like ? and area_id <> ?";
 
+    private static final MetricRegistry metrics = MetricRegistry.getDefault();
+    private static final Histogram streetsTime = metrics.timer("dao.dict.streets");
+    private static final Histogram passportTime = metrics.timer("dao.dict.passportOffices");
+    private static final Histogram registerTime = metrics.timer("dao.dict.registerOffices");
+    private static final Histogram areasTime = metrics.timer("dao.dict.areas");
+
+    private final AreaIndex areaIndex;
+
+    public DictionaryDaoImpl() {
+        this(null);
+    }
+
+    public DictionaryDaoImpl(AreaIndex areaIndex) {
+        this.areaIndex = areaIndex;
+    }
+
     private Connection getConnection() throws SQLException {
         return ConnectionBuilder.getConnection();
     }
 
     public List<Street> findStreets(String pattern) throws DaoException {
+        long start = metrics.startTimer();
+        boolean trgm = Config.getBoolean(Config.DICT_STREET_TRGM, false);
         List<Street> result = new LinkedList<>();
         try (Connection con = getConnection();
-             PreparedStatement st = con.prepareStatement(GET_STREET)) {
+             PreparedStatement st = con.prepareStatement(trgm ? GET_STREET_TRGM : GET_STREET)) {
             st.setString(1, "%" + pattern + "%");
+            if (trgm) {
+                st.setString(2, pattern);
+                // limit null is no limit
+                int limit = Config.getInt(Config.DICT_STREET_LIMIT, 100);
+                if (limit > 0) {
+                    st.setInt(3, limit);
+                } else {
+                    st.setNull(3, Types.INTEGER);
+                }
+            }
             ResultSet rs = st.executeQuery();
             while (rs.next()) {
                 Street str = new Street(
@@ -49,11 +83,13 @@ public class DictionaryDaoImpl implements DictionaryDao {
             logger.error(ex.getMessage(), ex);
             throw new DaoException(ex);
         }
+        streetsTime.recordSince(start);
         return result;
     }
 
     @Override
     public List<PassportOffice> findPassportOffices(String areaId) throws DaoException {
+        long start = metrics.startTimer();
         List<PassportOffice> result = new LinkedList<>();
         try (Connection con = getConnection();
              PreparedStatement st = con.prepareStatement(GET_PASSPORT)) {
@@ -71,11 +107,13 @@ public class DictionaryDaoImpl implements DictionaryDao {
             logger.error(ex.getMessage(), ex);
             throw new DaoException(ex);
         }
+        passportTime.recordSince(start);
         return result;
     }
 
     @Override
     public List<RegisterOffice> findRegisterOffices(String areaId) throws DaoException {
+        long start = metrics.startTimer();
         List<RegisterOffice> result = new LinkedList<>();
         try (Connection con = getConnection();
              PreparedStatement st = con.prepareStatement(GET_REGISTER)) {
@@ -93,11 +131,19 @@ public class DictionaryDaoImpl implements DictionaryDao {
             logger.error(ex.getMessage(), ex);
             throw new DaoException(ex);
         }
+        registerTime.recordSince(start);
         return result;
     }
 
     @Override
     public List<CountryArea> findAreas(String areaId) throws DaoException {
+        long start = metrics.startTimer();
+        if (areaIndex != null) {
+            AreaIndex.checkParent(areaId);
+            List<CountryArea> children = areaIndex.children(areaId);
+            areasTime.recordSince(start);
+            return children;
+        }
         List<CountryArea> result = new LinkedList<>();
         try (Connection con = getConnection();
              PreparedStatement st = con.prepareStatement(GET_AREA)) {
@@ -117,6 +163,7 @@ public class DictionaryDaoImpl implements DictionaryDao {
             logger.error(ex.getMessage(), ex);
             throw new DaoException(ex);
         }
+        areasTime.recordSince(start);
         return result;
     }
 
@@ -0,0 +1,268 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.CountryArea;
+import edu.javacourse.studentorder.domain.PassportOffice;
+import edu.javacourse.studentorder.domain.RegisterOffice;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.domain.University;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hands out one shared read-only instance per dictionary id, so a large fetch keeps a few hundred
+// offices and streets instead of a copy per row
+public class DictionaryInterner {
+
+    public enum Scope {
+        NONE, FETCH, GLOBAL;
+
+        public static Scope fromValue(String value) {
+            return Scope.valueOf(value.trim().toUpperCase());
+        }
+    }
+
+    // Far above the size of any dictionary table; protects the global maps from unexpected ids
+    private static final int MAX_ENTRIES = 100_000;
+
+    private static final DictionaryInterner NONE = new DictionaryInterner(Scope.NONE);
+    private static final DictionaryInterner GLOBAL = new DictionaryInterner(Scope.GLOBAL);
+
+    private final Scope scope;
+    private final Map<Long, RegisterOffice> registerOffices;
+    private final Map<Long, PassportOffice> passportOffices;
+    private final Map<Long, Street> streets;
+    private final Map<Long, University> universities;
+    private final Map<String, CountryArea> areas;
+
+    private DictionaryInterner(Scope scope) {
+        this.scope = scope;
+        this.registerOffices = newMap(scope);
+        this.passportOffices = newMap(scope);
+        this.streets = newMap(scope);
+        this.universities = newMap(scope);
+        this.areas = newMap(scope);
+    }
+
+    private static <K, V> Map<K, V> newMap(Scope scope) {
+        // A fetch-scoped interner lives on one thread for one result set
+        return scope == Scope.GLOBAL ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    public static DictionaryInterner forScope(Scope scope) {
+        switch (scope) {
+            case GLOBAL:
+                return GLOBAL;
+            case FETCH:
+                return new DictionaryInterner(Scope.FETCH);
+            default:
+                return NONE;
+        }
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public RegisterOffice registerOffice(long id, String areaId, String name) {
+        if (scope == Scope.NONE) {
+            return new RegisterOffice(id, areaId, name);
+        }
+        RegisterOffice ro = registerOffices.get(id);
+        if (ro == null || !Objects.equals(ro.getOfficeAreaId(), areaId) || !Objects.equals(ro.getOfficeName(), name)) {
+            ro = new FrozenRegisterOffice(id, areaId, name);
+            put(registerOffices, id, ro);
+        }
+        return ro;
+    }
+
+    // Rows of one fetch come from one snapshot, so a fetch-scoped hit skips reading the name columns;
+    // the global scope compares them to pick up renamed offices
+    public RegisterOffice registerOffice(ResultSet rs, int idColumn, int areaColumn, int nameColumn)
+            throws SQLException {
+        long id = rs.getLong(idColumn);
+        if (scope == Scope.FETCH) {
+            RegisterOffice ro = registerOffices.get(id);
+            if (ro != null) {
+                return ro;
+            }
+        }
+        return registerOffice(id, rs.getString(areaColumn), rs.getString(nameColumn));
+    }
+
+    public PassportOffice passportOffice(ResultSet rs, int idColumn, int areaColumn, int nameColumn)
+            throws SQLException {
+        long id = rs.getLong(idColumn);
+        if (scope == Scope.FETCH) {
+            PassportOffice po = passportOffices.get(id);
+            if (po != null) {
+                return po;
+            }
+        }
+        return passportOffice(id, rs.getString(areaColumn), rs.getString(nameColumn));
+    }
+
+    public PassportOffice passportOffice(long id, String areaId, String name) {
+        if (scope == Scope.NONE) {
+            return new PassportOffice(id, areaId, name);
+        }
+        PassportOffice po = passportOffices.get(id);
+        if (po == null || !Objects.equals(po.getOfficeAreaId(), areaId) || !Objects.equals(po.getOfficeName(), name)) {
+            po = new FrozenPassportOffice(id, areaId, name);
+            put(passportOffices, id, po);
+        }
+        return po;
+    }
+
+    public Street street(long code, String name) {
+        if (scope == Scope.NONE) {
+            return new Street(code, name);
+        }
+        Street street = streets.get(code);
+        if (street == null || !Objects.equals(street.getStreetName(), name)) {
+            street = new FrozenStreet(code, name);
+            put(streets, code, street);
+        }
+        return street;
+    }
+
+    public University university(long id, String name) {
+        if (scope == Scope.NONE) {
+            return new University(id, name);
+        }
+        University university = universities.get(id);
+        if (university == null || !Objects.equals(university.getUniversityName(), name)) {
+            university = new FrozenUniversity(id, name);
+            put(universities, id, university);
+        }
+        return university;
+    }
+
+    public CountryArea area(String areaId, String areaName) {
+        if (scope == Scope.NONE) {
+            return new CountryArea(areaId, areaName);
+        }
+        CountryArea area = areas.get(areaId);
+        if (area == null || !Objects.equals(area.getAreaName(), areaName)) {
+            area = new FrozenCountryArea(areaId, areaName);
+            put(areas, areaId, area);
+        }
+        return area;
+    }
+
+    private static <K, V> void put(Map<K, V> map, K id, V value) {
+        if (map.size() < MAX_ENTRIES) {
+            map.put(id, value);
+        }
+    }
+
+    public int size() {
+        return registerOffices.size() + passportOffices.size() + streets.size() + universities.size() +
+                areas.size();
+    }
+
+    public void clear() {
+        registerOffices.clear();
+        passportOffices.clear();
+        streets.clear();
+        universities.clear();
+        areas.clear();
+    }
+
+    private static UnsupportedOperationException shared() {
+        return new UnsupportedOperationException("Shared dictionary instance is read-only");
+    }
+
+    private static final class FrozenRegisterOffice extends RegisterOffice {
+        FrozenRegisterOffice(Long officeId, String officeAreaId, String officeName) {
+            super(officeId, officeAreaId, officeName);
+        }
+
+        @Override
+        public void setOfficeId(Long officeId) {
+            throw shared();
+        }
+
+        @Override
+        public void setOfficeAreaId(String officeAreaId) {
+            throw shared();
+        }
+
+        @Override
+        public void setOfficeName(String officeName) {
+            throw shared();
+        }
+    }
+
+    private static final class FrozenPassportOffice extends PassportOffice {
+        FrozenPassportOffice(Long officeId, String officeAreaId, String officeName) {
+            super(officeId, officeAreaId, officeName);
+        }
+
+        @Override
+        public void setOfficeId(Long officeId) {
+            throw shared();
+        }
+
+        @Override
+        public void setOfficeAreaId(String officeAreaId) {
+            throw shared();
+        }
+
+        @Override
+        public void setOfficeName(String officeName) {
+            throw shared();
+        }
+    }
+
+    private static final class FrozenStreet extends Street {
+        FrozenStreet(Long streetCode, String streetName) {
+            super(streetCode, streetName);
+        }
+
+        @Override
+        public void setStreetCode(Long streetCode) {
+            throw shared();
+        }
+
+        @Override
+        public void setStreetName(String streetName) {
+            throw shared();
+        }
+    }
+
+    private static final class FrozenUniversity extends University {
+        FrozenUniversity(Long universityId, String universityName) {
+            super(universityId, universityName);
+        }
+
+        @Override
+        public void setUniversityId(Long universityId) {
+            throw shared();
+        }
+
+        @Override
+        public void setUniversityName(String universityName) {
+            throw shared();
+        }
+    }
+
+    private static final class FrozenCountryArea extends CountryArea {
+        FrozenCountryArea(String areaId, String areaName) {
+            super(areaId, areaName);
+        }
+
+        @Override
+        public void setAreaId(String areaId) {
+            throw shared();
+        }
+
+        @Override
+        public void setAreaName(String areaName) {
+            throw shared();
+        }
+    }
+}
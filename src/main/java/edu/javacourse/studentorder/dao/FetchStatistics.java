@@ -0,0 +1,37 @@
+package edu.javacourse.studentorder.dao;
+
+public class FetchStatistics {
+
+    // Weight of the latest fetch in the moving average
+    private static final double WEIGHT = 0.2;
+
+    private final double threshold;
+    private double childrenPerOrder = -1;
+    private long fetches;
+
+    public FetchStatistics(double threshold) {
+        this.threshold = threshold;
+    }
+
+    public synchronized void record(long orders, long children) {
+        if (orders == 0) {
+            return;
+        }
+        double ratio = (double) children / orders;
+        childrenPerOrder = childrenPerOrder < 0 ? ratio : childrenPerOrder + WEIGHT * (ratio - childrenPerOrder);
+        fetches++;
+    }
+
+    // Until something is observed the join is used, as before the strategy became selectable
+    public synchronized FetchStrategy choose() {
+        return childrenPerOrder > threshold ? FetchStrategy.TWO_SELECT : FetchStrategy.ONE_SELECT;
+    }
+
+    public synchronized double getChildrenPerOrder() {
+        return childrenPerOrder;
+    }
+
+    public synchronized long getFetchCount() {
+        return fetches;
+    }
+}
@@ -0,0 +1,20 @@
+package edu.javacourse.studentorder.dao;
+
+public enum FetchStrategy {
+
+    // Orders joined with children in one query, order columns repeat for every child
+    ONE_SELECT,
+    // Orders first, then their children by an id array
+    TWO_SELECT,
+    // Chosen per call from the children-per-order ratio seen so far
+    ADAPTIVE;
+
+    public static FetchStrategy fromValue(String value) {
+        for (FetchStrategy fs : FetchStrategy.values()) {
+            if (fs.name().equalsIgnoreCase(value)) {
+                return fs;
+            }
+        }
+        throw new RuntimeException("Unknown value :" + value);
+    }
+}
@@ -0,0 +1,31 @@
+package edu.javacourse.studentorder.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class ResultSetColumns {
+
+    private final Map<String, Integer> columns;
+
+    public ResultSetColumns(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int count = meta.getColumnCount();
+        columns = new HashMap<>(count * 2);
+        // Same rule as the driver: a repeated label (so.* and soc.* both have student_order_id) means the first one
+        for (int i = 1; i <= count; i++) {
+            columns.putIfAbsent(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    public int get(String label) throws SQLException {
+        Integer index = columns.get(label);
+        if (index == null) {
+            throw new SQLException("Column not found: " + label);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,52 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.exception.DaoException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class SaveOrdersResult {
+
+    private final Long[] ids;
+    private final Map<Integer, DaoException> errors = new TreeMap<>();
+
+    public SaveOrdersResult(int size) {
+        this.ids = new Long[size];
+    }
+
+    void setId(int index, Long id) {
+        ids[index] = id;
+    }
+
+    void addError(int index, DaoException error) {
+        ids[index] = null;
+        errors.put(index, error);
+    }
+
+    public List<Long> getIds() {
+        return Collections.unmodifiableList(Arrays.asList(ids));
+    }
+
+    public Map<Integer, DaoException> getErrors() {
+        return Collections.unmodifiableMap(errors);
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public int getSavedCount() {
+        return ids.length - errors.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SaveOrdersResult{" +
+                "saved=" + getSavedCount() +
+                ", failed=" + errors.keySet() +
+                '}';
+    }
+}
@@ -0,0 +1,349 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Street;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class StreetSearchIndex {
+
+    private static final Locale RU = new Locale("ru");
+    private static final int GRAM = 3;
+    private static final Postings EMPTY = new Postings();
+
+    private static final int RANK_NAME_PREFIX = 0;
+    private static final int RANK_WORD_PREFIX = 1;
+    private static final int RANK_SUBSTRING = 2;
+    private static final int RANKS = 3;
+
+    private final Street[] streets;
+    private final String[] names;
+    // Postings for every 1-, 2- and 3-letter substring, split by the rank of the gram in the name;
+    // shorter queries look up their own gram
+    private final Map<String, Postings> grams;
+    // Street indexes in name order, so the names starting with a query are one range
+    private final int[] byName;
+    // Segment tree over byName holding the position of the lowest street index in every node's range
+    private final int[] minTree;
+
+    public StreetSearchIndex(List<Street> streets) {
+        int size = streets.size();
+        this.streets = new Street[size];
+        this.names = new String[size];
+        Integer[] order = new Integer[size];
+        String[] normalized = new String[size];
+        for (int i = 0; i < size; i++) {
+            normalized[i] = normalize(streets.get(i).getStreetName());
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> normalized[i].length())
+                .thenComparing(i -> normalized[i]));
+        for (int i = 0; i < size; i++) {
+            this.streets[i] = streets.get(order[i]);
+            this.names[i] = normalized[order[i]];
+        }
+
+        Map<String, IntList[]> postings = new HashMap<>();
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String name = names[i];
+            ranks.clear();
+            for (int p = 0; p < name.length(); p++) {
+                int rank = p == 0 ? RANK_NAME_PREFIX : name.charAt(p - 1) == ' ' ? RANK_WORD_PREFIX : RANK_SUBSTRING;
+                for (int n = 1; n <= GRAM && p + n <= name.length(); n++) {
+                    ranks.merge(name.substring(p, p + n), rank, Math::min);
+                }
+            }
+            for (Map.Entry<String, Integer> e : ranks.entrySet()) {
+                IntList[] lists = postings.computeIfAbsent(e.getKey(), k -> new IntList[RANKS]);
+                int rank = e.getValue();
+                if (lists[rank] == null) {
+                    lists[rank] = new IntList();
+                }
+                lists[rank].add(i);
+            }
+        }
+        this.grams = new HashMap<>(postings.size() * 2);
+        postings.forEach((k, v) -> grams.put(k, new Postings(v)));
+
+        Integer[] nameOrder = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            nameOrder[i] = i;
+        }
+        Arrays.sort(nameOrder, Comparator.comparing((Integer i) -> names[i]));
+        this.byName = new int[size];
+        for (int i = 0; i < size; i++) {
+            byName[i] = nameOrder[i];
+        }
+        this.minTree = new int[size * 2];
+        for (int i = 0; i < size; i++) {
+            minTree[size + i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            minTree[i] = lower(minTree[2 * i], minTree[2 * i + 1]);
+        }
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String lower = value.toLowerCase(RU);
+        StringBuilder sb = new StringBuilder(lower.length());
+        boolean space = true;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            // Cyrillic yo is searched as ie
+            if (c == '\u0451') {
+                c = '\u0435';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') {
+            sb.setLength(len - 1);
+        }
+        return sb.toString();
+    }
+
+    public int size() {
+        return streets.length;
+    }
+
+    // Same matches as like '%query%' on the normalized names, the best limit of them by rank
+    public List<Street> search(String query, int limit) {
+        String q = normalize(query);
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (q.isEmpty()) {
+            List<Street> result = new ArrayList<>(Math.min(limit, streets.length));
+            for (int i = 0; i < streets.length && result.size() < limit; i++) {
+                result.add(streets[i]);
+            }
+            return result;
+        }
+        // Index order is by name length and name, so a lower index wins a tie in rank
+        if (q.length() <= GRAM) {
+            return searchGram(q, limit);
+        }
+        int[] prefixed = prefixMatches(q, limit);
+        if (prefixed.length >= limit) {
+            // Enough name-prefix matches: nothing else can outrank them, no need to look further
+            return toStreets(prefixed);
+        }
+        PriorityQueue<long[]> top = new PriorityQueue<>(Comparator
+                .comparingLong((long[] e) -> e[0]).thenComparingLong(e -> e[1]).reversed());
+        searchTrigrams(q, top, limit);
+
+        Street[] result = new Street[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = streets[(int) top.poll()[1]];
+        }
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    private List<Street> toStreets(int[] indexes) {
+        List<Street> result = new ArrayList<>(indexes.length);
+        for (int idx : indexes) {
+            result.add(streets[idx]);
+        }
+        return result;
+    }
+
+    // The lowest limit street indexes of the names starting with q, taken from the min tree
+    // range by range, so the cost follows limit and not the number of such names
+    private int[] prefixMatches(String q, int limit) {
+        IntList found = new IntList();
+        int from = lowerBound(q);
+        int to = prefixEnd(q, from);
+        if (from == to) {
+            return found.toArray();
+        }
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(Comparator.comparingInt((int[] r) -> byName[r[0]]));
+        ranges.add(new int[]{minPosition(from, to), from, to});
+        while (found.size() < limit && !ranges.isEmpty()) {
+            int[] range = ranges.poll();
+            int pos = range[0];
+            found.add(byName[pos]);
+            if (range[1] < pos) {
+                ranges.add(new int[]{minPosition(range[1], pos), range[1], pos});
+            }
+            if (pos + 1 < range[2]) {
+                ranges.add(new int[]{minPosition(pos + 1, range[2]), pos + 1, range[2]});
+            }
+        }
+        return found.toArray();
+    }
+
+    // The postings of a query up to GRAM letters are exactly the names containing it, already in rank order
+    private List<Street> searchGram(String q, int limit) {
+        Postings postings = grams.getOrDefault(q, EMPTY);
+        List<Street> result = new ArrayList<>(Math.min(limit, postings.size()));
+        for (int rank = 0; rank < RANKS && result.size() < limit; rank++) {
+            int[] list = postings.byRank[rank];
+            for (int i = 0; i < list.length && result.size() < limit; i++) {
+                result.add(streets[list[i]]);
+            }
+        }
+        return result;
+    }
+
+    private void searchTrigrams(String q, PriorityQueue<long[]> top, int limit) {
+        int count = q.length() - GRAM + 1;
+        Postings[] lists = new Postings[count];
+        for (int p = 0; p < count; p++) {
+            lists[p] = grams.getOrDefault(q.substring(p, p + GRAM), EMPTY);
+            if (lists[p].size() == 0) {
+                return;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(Postings::size));
+        for (int[] list : lists[0].byRank) {
+            for (int idx : list) {
+                boolean all = true;
+                for (int l = 1; l < lists.length && all; l++) {
+                    all = lists[l].contains(idx);
+                }
+                if (all && names[idx].contains(q)) {
+                    offer(top, rank(names[idx], q), idx, limit);
+                }
+            }
+        }
+    }
+
+    private void offer(PriorityQueue<long[]> top, int rank, int idx, int limit) {
+        if (top.size() < limit) {
+            top.add(new long[]{rank, idx});
+            return;
+        }
+        long[] worst = top.peek();
+        if (rank < worst[0] || (rank == worst[0] && idx < worst[1])) {
+            top.poll();
+            top.add(new long[]{rank, idx});
+        }
+    }
+
+    private int rank(String name, String q) {
+        if (name.startsWith(q)) {
+            return RANK_NAME_PREFIX;
+        }
+        if (name.contains(" " + q)) {
+            return RANK_WORD_PREFIX;
+        }
+        return RANK_SUBSTRING;
+    }
+
+    // End of the byName range that starts at from and holds the names starting with q
+    private int prefixEnd(String q, int from) {
+        int lo = from;
+        int hi = byName.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (names[byName[mid]].startsWith(q)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Position in byName of the lowest street index within [from, to)
+    private int minPosition(int from, int to) {
+        int size = byName.length;
+        int best = from;
+        for (int l = from + size, r = to + size; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                best = lower(best, minTree[l++]);
+            }
+            if ((r & 1) == 1) {
+                best = lower(best, minTree[--r]);
+            }
+        }
+        return best;
+    }
+
+    private int lower(int pos1, int pos2) {
+        return byName[pos1] <= byName[pos2] ? pos1 : pos2;
+    }
+
+    private int lowerBound(String q) {
+        int lo = 0;
+        int hi = byName.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (names[byName[mid]].compareTo(q) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    // Street indexes of one gram, one list per rank, each in index order
+    private static class Postings {
+        private final int[][] byRank = new int[RANKS][];
+        private final int size;
+
+        Postings() {
+            Arrays.fill(byRank, new int[0]);
+            size = 0;
+        }
+
+        Postings(IntList[] lists) {
+            int total = 0;
+            for (int rank = 0; rank < RANKS; rank++) {
+                byRank[rank] = lists[rank] == null ? new int[0] : lists[rank].toArray();
+                total += byRank[rank].length;
+            }
+            size = total;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int idx) {
+            for (int[] list : byRank) {
+                if (Arrays.binarySearch(list, idx) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,879 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Child;
+import edu.javacourse.studentorder.domain.PassportOffice;
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.RegisterOffice;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.StudentOrderStatus;
+import edu.javacourse.studentorder.domain.University;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// Orders stored column by column: primitive arrays for ids and dates, int codes into a string dictionary
+// and into tables of shared dictionary entities. Readers get flyweight StudentOrder views that decode
+// the fields on each call, so a large batch holds a few dozen arrays instead of ~20 objects per order.
+// Filled by one thread; once published the batch can be read from any number of threads.
+public class StudentOrderBatch {
+
+    private static final int NO_VALUE = -1;
+    private static final int NO_ADDRESS = -2;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final long NANOS = 1_000_000_000L;
+
+    private static final StudentOrderStatus[] STATUSES = StudentOrderStatus.values();
+    private static final int DATE_CACHE_SIZE = 4096;
+
+    private final DictionaryInterner interner = DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH);
+    private final StringDictionary strings = new StringDictionary();
+    private final EntityTable<RegisterOffice> registerOffices = new EntityTable<>();
+    private final EntityTable<PassportOffice> passportOffices = new EntityTable<>();
+    private final EntityTable<Street> streets = new EntityTable<>();
+    private final EntityTable<University> universities = new EntityTable<>();
+
+    // Direct-mapped by epoch day, so scans over a batch do not allocate a LocalDate per read.
+    // LocalDate is immutable, a racy slot only costs a second decode.
+    private final LocalDate[] dates = new LocalDate[DATE_CACHE_SIZE];
+
+    // One entry per order
+    private int orderCount;
+    private long[] orderId;
+    private byte[] status;
+    private long[] orderDate;
+    private int[] certificate;
+    private int[] marriageOffice;
+    private int[] marriageDate;
+    // Persons of order i are personStart[i] until personStart[i + 1]: husband, wife, then the children
+    private int[] personStart;
+
+    // One entry per person
+    private int personCount;
+    private int[] surName;
+    private int[] givenName;
+    private int[] patronymic;
+    private int[] dayOfBirth;
+    private int[] postCode;
+    private int[] street;
+    private int[] building;
+    private int[] extension;
+    private int[] apartment;
+
+    // One entry per adult, husband of order i at 2 * i and wife at 2 * i + 1
+    private int[] passportSeria;
+    private int[] passportNumber;
+    private int[] passportDate;
+    private int[] passportOffice;
+    private int[] university;
+    private int[] studentId;
+
+    // One entry per child; children of order i start at personStart[i] - 2 * i
+    private int childCount;
+    private int[] certificateNumber;
+    private int[] childIssueDate;
+    private int[] childIssueOffice;
+
+    public StudentOrderBatch() {
+        this(64);
+    }
+
+    public StudentOrderBatch(int expectedOrders) {
+        int orders = Math.max(expectedOrders, 1);
+        orderId = new long[orders];
+        status = new byte[orders];
+        orderDate = new long[orders];
+        certificate = new int[orders];
+        marriageOffice = new int[orders];
+        marriageDate = new int[orders];
+        personStart = new int[orders + 1];
+        growPersons(orders * 3);
+        growAdults(orders * 2);
+        growChildren(orders);
+    }
+
+    public static StudentOrderBatch of(List<StudentOrder> orders) {
+        StudentOrderBatch batch = new StudentOrderBatch(orders.size());
+        for (StudentOrder so : orders) {
+            batch.add(so);
+        }
+        batch.compact();
+        return batch;
+    }
+
+    public int size() {
+        return orderCount;
+    }
+
+    public void add(StudentOrder so) {
+        Adult husband = Objects.requireNonNull(so.getHusband(), "husband");
+        Adult wife = Objects.requireNonNull(so.getWife(), "wife");
+        List<Child> children = so.getChildren() != null ? so.getChildren() : new ArrayList<>();
+
+        if (orderCount == orderId.length) {
+            growOrders(orderCount * 2);
+        }
+        int i = orderCount;
+        orderId[i] = so.getStudentOrderId();
+        status[i] = so.getStudentOrderStatus() != null ? (byte) so.getStudentOrderStatus().ordinal() : NO_VALUE;
+        orderDate[i] = encodeTime(so.getStudentOrderDate());
+        certificate[i] = strings.encode(so.getMarriageCertificateId());
+        marriageOffice[i] = registerOffices.encode(intern(so.getMarriageOffice()));
+        marriageDate[i] = encodeDate(so.getMarriageDate());
+
+        addAdult(husband, i * 2);
+        addAdult(wife, i * 2 + 1);
+        for (Child child : children) {
+            addChild(child);
+        }
+        orderCount++;
+        personStart[orderCount] = personCount;
+    }
+
+    // Drops the lookup maps used while filling and trims the arrays; adding more orders later still works
+    public void compact() {
+        strings.compact();
+        growOrders(orderCount);
+        growPersons(personCount);
+        growAdults(orderCount * 2);
+        growChildren(childCount);
+    }
+
+    public long getStudentOrderId(int index) {
+        checkIndex(index);
+        return orderId[index];
+    }
+
+    public StudentOrder get(int index) {
+        checkIndex(index);
+        return new OrderView(index);
+    }
+
+    public List<StudentOrder> asList() {
+        return new OrderList();
+    }
+
+    // Builds an ordinary object graph for one order, for callers that need to modify or keep it
+    public StudentOrder toStudentOrder(int index) {
+        checkIndex(index);
+        StudentOrder so = new StudentOrder();
+        so.setStudentOrderId(orderId[index]);
+        so.setStudentOrderStatus(status(index));
+        so.setStudentOrderDate(decodeTime(orderDate[index]));
+        so.setMarriageCertificateId(strings.decode(certificate[index]));
+        so.setMarriageOffice(registerOffices.decode(marriageOffice[index]));
+        so.setMarriageDate(decodeDate(marriageDate[index]));
+        so.setHusband(toAdult(index * 2));
+        so.setWife(toAdult(index * 2 + 1));
+        int childFrom = personStart[index] - 2 * index;
+        int childTo = personStart[index + 1] - 2 * (index + 1);
+        for (int c = childFrom; c < childTo; c++) {
+            so.addChild(toChild(c, childPerson(c, index)));
+        }
+        return so;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= orderCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + orderCount);
+        }
+    }
+
+    private void addAdult(Adult adult, int a) {
+        if (a == passportSeria.length) {
+            growAdults(a * 2);
+        }
+        addPerson(adult);
+        passportSeria[a] = strings.encode(adult.getPassportSeria());
+        passportNumber[a] = strings.encode(adult.getPassportNumber());
+        passportDate[a] = encodeDate(adult.getIssueDate());
+        passportOffice[a] = passportOffices.encode(intern(adult.getIssueDepartment()));
+        university[a] = universities.encode(intern(adult.getUniversity()));
+        studentId[a] = strings.encode(adult.getStudentId());
+    }
+
+    private void addChild(Child child) {
+        addPerson(child);
+        if (childCount == certificateNumber.length) {
+            growChildren(childCount * 2);
+        }
+        int c = childCount++;
+        certificateNumber[c] = strings.encode(child.getCertificateNumber());
+        childIssueDate[c] = encodeDate(child.getIssueDate());
+        childIssueOffice[c] = registerOffices.encode(intern(child.getIssueDepartment()));
+    }
+
+    private void addPerson(Person person) {
+        if (personCount == surName.length) {
+            growPersons(personCount * 2);
+        }
+        int p = personCount++;
+        surName[p] = strings.encode(person.getSurName());
+        givenName[p] = strings.encode(person.getGivenName());
+        patronymic[p] = strings.encode(person.getPatronymic());
+        dayOfBirth[p] = encodeDate(person.getDayOfBirth());
+        Address address = person.getAddress();
+        if (address == null) {
+            street[p] = NO_ADDRESS;
+            postCode[p] = building[p] = extension[p] = apartment[p] = NO_VALUE;
+        } else {
+            street[p] = streets.encode(intern(address.getStreet()));
+            postCode[p] = strings.encode(address.getPostCode());
+            building[p] = strings.encode(address.getBuilding());
+            extension[p] = strings.encode(address.getExtension());
+            apartment[p] = strings.encode(address.getApartment());
+        }
+    }
+
+    // Equal dictionary rows become one shared read-only instance, stored once in the entity tables
+    private RegisterOffice intern(RegisterOffice ro) {
+        if (ro == null || ro.getOfficeId() == null) {
+            return ro;
+        }
+        return interner.registerOffice(ro.getOfficeId(), ro.getOfficeAreaId(), ro.getOfficeName());
+    }
+
+    private PassportOffice intern(PassportOffice po) {
+        if (po == null || po.getOfficeId() == null) {
+            return po;
+        }
+        return interner.passportOffice(po.getOfficeId(), po.getOfficeAreaId(), po.getOfficeName());
+    }
+
+    private Street intern(Street s) {
+        if (s == null || s.getStreetCode() == null) {
+            return s;
+        }
+        return interner.street(s.getStreetCode(), s.getStreetName());
+    }
+
+    private University intern(University u) {
+        if (u == null || u.getUniversityId() == null) {
+            return u;
+        }
+        return interner.university(u.getUniversityId(), u.getUniversityName());
+    }
+
+    private void growOrders(int size) {
+        int capacity = Math.max(size, 1);
+        orderId = Arrays.copyOf(orderId, capacity);
+        status = Arrays.copyOf(status, capacity);
+        orderDate = Arrays.copyOf(orderDate, capacity);
+        certificate = Arrays.copyOf(certificate, capacity);
+        marriageOffice = Arrays.copyOf(marriageOffice, capacity);
+        marriageDate = Arrays.copyOf(marriageDate, capacity);
+        personStart = Arrays.copyOf(personStart, capacity + 1);
+    }
+
+    private void growPersons(int size) {
+        int capacity = Math.max(size, 1);
+        surName = copyOf(surName, capacity);
+        givenName = copyOf(givenName, capacity);
+        patronymic = copyOf(patronymic, capacity);
+        dayOfBirth = copyOf(dayOfBirth, capacity);
+        postCode = copyOf(postCode, capacity);
+        street = copyOf(street, capacity);
+        building = copyOf(building, capacity);
+        extension = copyOf(extension, capacity);
+        apartment = copyOf(apartment, capacity);
+    }
+
+    private void growAdults(int size) {
+        int capacity = Math.max(size, 2);
+        passportSeria = copyOf(passportSeria, capacity);
+        passportNumber = copyOf(passportNumber, capacity);
+        passportDate = copyOf(passportDate, capacity);
+        passportOffice = copyOf(passportOffice, capacity);
+        university = copyOf(university, capacity);
+        studentId = copyOf(studentId, capacity);
+    }
+
+    private void growChildren(int size) {
+        int capacity = Math.max(size, 1);
+        certificateNumber = copyOf(certificateNumber, capacity);
+        childIssueDate = copyOf(childIssueDate, capacity);
+        childIssueOffice = copyOf(childIssueOffice, capacity);
+    }
+
+    private static int[] copyOf(int[] array, int capacity) {
+        return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+    }
+
+    private static int encodeDate(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private LocalDate decodeDate(int day) {
+        if (day == NO_DATE) {
+            return null;
+        }
+        int slot = day & (DATE_CACHE_SIZE - 1);
+        LocalDate date = dates[slot];
+        if (date == null || date.toEpochDay() != day) {
+            date = LocalDate.ofEpochDay(day);
+            dates[slot] = date;
+        }
+        return date;
+    }
+
+    // Nanoseconds since the epoch cover 1677..2262, far beyond any order date
+    private static long encodeTime(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toEpochSecond(ZoneOffset.UTC) * NANOS + time.getNano();
+    }
+
+    private static LocalDateTime decodeTime(long time) {
+        if (time == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(time, NANOS), (int) Math.floorMod(time, NANOS), ZoneOffset.UTC);
+    }
+
+    private StudentOrderStatus status(int index) {
+        return status[index] == NO_VALUE ? null : STATUSES[status[index]];
+    }
+
+    private Adult toAdult(int a) {
+        int p = adultPerson(a);
+        Adult adult = new Adult(strings.decode(surName[p]), strings.decode(givenName[p]),
+                strings.decode(patronymic[p]), decodeDate(dayOfBirth[p]));
+        adult.setAddress(toAddress(p));
+        adult.setPassportSeria(strings.decode(passportSeria[a]));
+        adult.setPassportNumber(strings.decode(passportNumber[a]));
+        adult.setIssueDate(decodeDate(passportDate[a]));
+        adult.setIssueDepartment(passportOffices.decode(passportOffice[a]));
+        adult.setUniversity(universities.decode(university[a]));
+        adult.setStudentId(strings.decode(studentId[a]));
+        return adult;
+    }
+
+    private Child toChild(int c, int p) {
+        Child child = new Child(strings.decode(surName[p]), strings.decode(givenName[p]),
+                strings.decode(patronymic[p]), decodeDate(dayOfBirth[p]));
+        child.setAddress(toAddress(p));
+        child.setCertificateNumber(strings.decode(certificateNumber[c]));
+        child.setIssueDate(decodeDate(childIssueDate[c]));
+        child.setIssueDepartment(registerOffices.decode(childIssueOffice[c]));
+        return child;
+    }
+
+    private Address toAddress(int p) {
+        if (street[p] == NO_ADDRESS) {
+            return null;
+        }
+        return new Address(strings.decode(postCode[p]), streets.decode(street[p]),
+                strings.decode(building[p]), strings.decode(extension[p]), strings.decode(apartment[p]));
+    }
+
+    private int adultPerson(int a) {
+        return personStart[a / 2] + a % 2;
+    }
+
+    private int childPerson(int c, int order) {
+        return c + 2 * (order + 1);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Batch view is read-only, use toStudentOrder() for a copy");
+    }
+
+    private static final class StringDictionary {
+        private Map<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[256];
+        private int size;
+
+        int encode(String value) {
+            if (value == null) {
+                return NO_VALUE;
+            }
+            if (codes == null) {
+                codes = new HashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    codes.put(values[i], i);
+                }
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                code = size;
+                values[size++] = value;
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return code == NO_VALUE ? null : values[code];
+        }
+
+        void compact() {
+            codes = null;
+            values = Arrays.copyOf(values, Math.max(size, 1));
+        }
+    }
+
+    private static final class EntityTable<T> {
+        private final Map<T, Integer> codes = new IdentityHashMap<>();
+        private final List<T> values = new ArrayList<>();
+
+        int encode(T value) {
+            if (value == null) {
+                return NO_VALUE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        T decode(int code) {
+            return code == NO_VALUE ? null : values.get(code);
+        }
+    }
+
+    private final class OrderList extends AbstractList<StudentOrder> implements RandomAccess {
+        @Override
+        public StudentOrder get(int index) {
+            return StudentOrderBatch.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return orderCount;
+        }
+    }
+
+    private final class ChildList extends AbstractList<Child> implements RandomAccess {
+        private final int first;
+        private final int count;
+        private final int order;
+
+        ChildList(int first, int count, int order) {
+            this.first = first;
+            this.count = count;
+            this.order = order;
+        }
+
+        @Override
+        public Child get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + count);
+            }
+            return new ChildView(first + index, childPerson(first + index, order));
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    private final class OrderView extends StudentOrder {
+        private final int index;
+
+        OrderView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public long getStudentOrderId() {
+            return orderId[index];
+        }
+
+        @Override
+        public StudentOrderStatus getStudentOrderStatus() {
+            return status(index);
+        }
+
+        @Override
+        public LocalDateTime getStudentOrderDate() {
+            return decodeTime(orderDate[index]);
+        }
+
+        @Override
+        public Adult getHusband() {
+            return new AdultView(index * 2);
+        }
+
+        @Override
+        public Adult getWife() {
+            return new AdultView(index * 2 + 1);
+        }
+
+        @Override
+        public List<Child> getChildren() {
+            int from = personStart[index] - 2 * index;
+            int to = personStart[index + 1] - 2 * (index + 1);
+            if (from == to) {
+                return null;
+            }
+            return new ChildList(from, to - from, index);
+        }
+
+        @Override
+        public String getMarriageCertificateId() {
+            return strings.decode(certificate[index]);
+        }
+
+        @Override
+        public RegisterOffice getMarriageOffice() {
+            return registerOffices.decode(marriageOffice[index]);
+        }
+
+        @Override
+        public LocalDate getMarriageDate() {
+            return decodeDate(marriageDate[index]);
+        }
+
+        @Override
+        public void setStudentOrderId(long studentOrderId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStudentOrderStatus(StudentOrderStatus studentOrderStatus) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStudentOrderDate(LocalDateTime studentOrderDate) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setHusband(Adult husband) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setWife(Adult wife) {
+            throw readOnly();
+        }
+
+        @Override
+        public void addChild(Child child) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setMarriageCertificateId(String marriageCertificateId) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setMarriageOffice(RegisterOffice marriageOffice) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setMarriageDate(LocalDate marriageDate) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return toStudentOrder(index).toString();
+        }
+    }
+
+    private final class AdultView extends Adult {
+        private final int adult;
+        private final int person;
+
+        AdultView(int adult) {
+            this.adult = adult;
+            this.person = adultPerson(adult);
+        }
+
+        @Override
+        public String getSurName() {
+            return strings.decode(surName[person]);
+        }
+
+        @Override
+        public String getGivenName() {
+            return strings.decode(givenName[person]);
+        }
+
+        @Override
+        public String getPatronymic() {
+            return strings.decode(patronymic[person]);
+        }
+
+        @Override
+        public LocalDate getDayOfBirth() {
+            return decodeDate(dayOfBirth[person]);
+        }
+
+        @Override
+        public Address getAddress() {
+            return street[person] == NO_ADDRESS ? null : new AddressView(person);
+        }
+
+        @Override
+        public String getPassportSeria() {
+            return strings.decode(passportSeria[adult]);
+        }
+
+        @Override
+        public String getPassportNumber() {
+            return strings.decode(passportNumber[adult]);
+        }
+
+        @Override
+        public LocalDate getIssueDate() {
+            return decodeDate(passportDate[adult]);
+        }
+
+        @Override
+        public PassportOffice getIssueDepartment() {
+            return passportOffices.decode(passportOffice[adult]);
+        }
+
+        @Override
+        public University getUniversity() {
+            return universities.decode(university[adult]);
+        }
+
+        @Override
+        public String getStudentId() {
+            return strings.decode(studentId[adult]);
+        }
+
+        @Override
+        public void setSurName(String surName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setGivenName(String givenName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPatronymic(String patronymic) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDayOfBirth(LocalDate dayOfBirth) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAddress(Address address) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPassportSeria(String passportSeria) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPassportNumber(String passportNumber) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setIssueDate(LocalDate issueDate) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setIssueDepartment(PassportOffice issueDepartment) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setUniversity(University university) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStudentId(String studentId) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return toAdult(adult).toString();
+        }
+    }
+
+    private final class ChildView extends Child {
+        private final int child;
+        private final int person;
+
+        ChildView(int child, int person) {
+            super(null, null, null, null);
+            this.child = child;
+            this.person = person;
+        }
+
+        @Override
+        public String getSurName() {
+            return strings.decode(surName[person]);
+        }
+
+        @Override
+        public String getGivenName() {
+            return strings.decode(givenName[person]);
+        }
+
+        @Override
+        public String getPatronymic() {
+            return strings.decode(patronymic[person]);
+        }
+
+        @Override
+        public LocalDate getDayOfBirth() {
+            return decodeDate(dayOfBirth[person]);
+        }
+
+        @Override
+        public Address getAddress() {
+            return street[person] == NO_ADDRESS ? null : new AddressView(person);
+        }
+
+        @Override
+        public String getCertificateNumber() {
+            return strings.decode(certificateNumber[child]);
+        }
+
+        @Override
+        public LocalDate getIssueDate() {
+            return decodeDate(childIssueDate[child]);
+        }
+
+        @Override
+        public RegisterOffice getIssueDepartment() {
+            return registerOffices.decode(childIssueOffice[child]);
+        }
+
+        @Override
+        public void setSurName(String surName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setGivenName(String givenName) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setPatronymic(String patronymic) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setDayOfBirth(LocalDate dayOfBirth) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setAddress(Address address) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setCertificateNumber(String certificateNumber) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setIssueDate(LocalDate issueDate) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setIssueDepartment(RegisterOffice issueDepartment) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return toChild(child, person).toString();
+        }
+    }
+
+    private final class AddressView extends Address {
+        private final int person;
+
+        AddressView(int person) {
+            this.person = person;
+        }
+
+        @Override
+        public String getPostCode() {
+            return strings.decode(postCode[person]);
+        }
+
+        @Override
+        public Street getStreet() {
+            return streets.decode(street[person]);
+        }
+
+        @Override
+        public String getBuilding() {
+            return strings.decode(building[person]);
+        }
+
+        @Override
+        public String getExtension() {
+            return strings.decode(extension[person]);
+        }
+
+        @Override
+        public String getApartment() {
+            return strings.decode(apartment[person]);
+        }
+
+        @Override
+        public void setPostCode(String postCode) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setStreet(Street street) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setBuilding(String building) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setExtension(String extension) {
+            throw readOnly();
+        }
+
+        @Override
+        public void setApartment(String apartment) {
+            throw readOnly();
+        }
+
+        @Override
+        public String toString() {
+            return toAddress(person).toString();
+        }
+    }
+}
@@ -1,13 +1,30 @@
 package edu.javacourse.studentorder.dao;
 
 import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.StudentOrderStatus;
 import edu.javacourse.studentorder.exception.DaoException;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StudentOrderDao {
 
     Long saveStudentOrder(StudentOrder so) throws DaoException;
 
+    SaveOrdersResult saveStudentOrders(List<StudentOrder> orders) throws DaoException;
+
     List<StudentOrder> getStudentOrders() throws DaoException;
+
+    List<StudentOrder> claimStudentOrders(String owner, int limit) throws DaoException;
+
+    List<StudentOrder> claimStudentOrders(String owner, List<Long> ids) throws DaoException;
+
+    int markStudentOrders(List<Long> ids, StudentOrderStatus status, String owner) throws DaoException;
+
+    int deferStudentOrders(List<Long> ids, String owner, int delaySeconds) throws DaoException;
+
+    long readStudentOrders(StudentOrderStatus status, Consumer<StudentOrder> consumer) throws DaoException;
+
+    // At most limit orders, the first ones by id; 0 or less reads all of them
+    long readStudentOrders(StudentOrderStatus status, int limit, Consumer<StudentOrder> consumer) throws DaoException;
 }
@@ -3,17 +3,21 @@ package edu.javacourse.studentorder.dao;
 import edu.javacourse.studentorder.config.Config;
 import edu.javacourse.studentorder.domain.*;
 import edu.javacourse.studentorder.exception.DaoException;
+import edu.javacourse.studentorder.metrics.Counter;
+import edu.javacourse.studentorder.metrics.Histogram;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
 import org.postgresql.core.SqlCommand;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class StudentOrderDaoImpl implements StudentOrderDao {
@@ -45,26 +49,104 @@ public class StudentOrderDaoImpl implements StudentOrderDao {
                     "inner join jc_register_office ro on ro.r_office_id = so.register_office_id " +
                     "inner join jc_passport_office po_h on po_h.p_office_id = so.h_passport_office_id " +
                     "inner join jc_passport_office po_w on po_w.p_office_id = so.w_passport_office_id " +
-                    "where student_order_status = ? order by student_order_date limit ?";
+                    "where student_order_status = ? order by so.student_order_id limit ?";
+
+    private static final String SELECT_ORDERS_BY_ID =
+            "select so.*, ro.r_office_area_id, ro.r_office_name, " +
+                    "po_h.p_office_area_id as h_p_office_area_id, po_h.p_office_name as h_p_office_name, " +
+                    "po_w.p_office_area_id as w_p_office_area_id, po_w.p_office_name as w_p_office_name " +
+                    "from jc_student_order so " +
+                    "inner join jc_register_office ro on ro.r_office_id = so.register_office_id " +
+                    "inner join jc_passport_office po_h on po_h.p_office_id = so.h_passport_office_id " +
+                    "inner join jc_passport_office po_w on po_w.p_office_id = so.w_passport_office_id " +
+                    "where so.student_order_id = any(?) order by so.student_order_id";
+
+    private static final String CLAIM_ORDERS =
+            "update jc_student_order set lease_owner = ?, " +
+                    "lease_expires = now() + ? * interval '1 second' " +
+                    "where student_order_id in (" +
+                    "select student_order_id from jc_student_order " +
+                    "where student_order_status = ? and (lease_expires is null or lease_expires < now()) " +
+                    "order by student_order_id limit ? for update skip locked) " +
+                    "returning student_order_id";
+
+    private static final String CLAIM_ORDERS_BY_ID =
+            "update jc_student_order set lease_owner = ?, " +
+                    "lease_expires = now() + ? * interval '1 second' " +
+                    "where student_order_id in (" +
+                    "select student_order_id from jc_student_order " +
+                    "where student_order_id = any(?) and student_order_status = ? " +
+                    "and (lease_expires is null or lease_expires < now()) " +
+                    "for update skip locked) " +
+                    "returning student_order_id";
+
+    private static final String MARK_ORDERS =
+            "update jc_student_order set student_order_status = ?, lease_owner = null, lease_expires = null " +
+                    "where student_order_id = any(?)";
+
+    private static final String MARK_OWN_ORDERS = MARK_ORDERS + " and lease_owner = ?";
+
+    private static final String MARK_FREE_ORDERS = MARK_ORDERS +
+            " and (lease_expires is null or lease_expires < now())";
+
+    private static final String DEFER_ORDERS =
+            "update jc_student_order set lease_expires = now() + ? * interval '1 second' " +
+                    "where student_order_id = any(?) and lease_owner = ?";
 
     private static final String SELECT_CHILD =
             "select soc.*, ro.r_office_area_id, ro.r_office_name " +
                     "from jc_student_child soc " +
                     "inner join jc_register_office ro on ro.r_office_id = soc.c_register_office_id " +
-                    "where soc.student_order_id in ";
+                    "where soc.student_order_id = any(?)";
 
     private static final String SELECT_ORDERS_FULL =
             "select so.*, ro.r_office_area_id, ro.r_office_name, " +
                     "po_h.p_office_area_id as h_p_office_area_id, po_h.p_office_name as h_p_office_name, " +
                     "po_w.p_office_area_id as w_p_office_area_id, po_w.p_office_name as w_p_office_name, " +
-                    "soc.*, ro_c.r_office_area_id, ro_c.r_office_name " +
-                    "from jc_student_order so " +
+                    "soc.*, ro_c.r_office_area_id as c_r_office_area_id, ro_c.r_office_name as c_r_office_name " +
+                    "from (select * from jc_student_order " +
+                    "where student_order_status = ? " +
+                    "order by student_order_id limit ?) so " +
                     "inner join jc_register_office ro on ro.r_office_id = so.register_office_id " +
                     "inner join jc_passport_office po_h on po_h.p_office_id = so.h_passport_office_id " +
                     "inner join jc_passport_office po_w on po_w.p_office_id = so.w_passport_office_id " +
-                    "inner join jc_student_child soc on soc.student_order_id = so.student_order_id " +
-                    "inner join jc_register_office ro_c on ro_c.r_office_id = soc.c_register_office_id " +
-                    "where student_order_status = ? order by so.student_order_id limit ?";
+                    "left join jc_student_child soc on soc.student_order_id = so.student_order_id " +
+                    "left join jc_register_office ro_c on ro_c.r_office_id = soc.c_register_office_id " +
+                    "order by so.student_order_id, soc.student_child_id";
+
+    private static final String SELECT_ORDERS_PAGE =
+            "select so.*, ro.r_office_area_id, ro.r_office_name, " +
+                    "po_h.p_office_area_id as h_p_office_area_id, po_h.p_office_name as h_p_office_name, " +
+                    "po_w.p_office_area_id as w_p_office_area_id, po_w.p_office_name as w_p_office_name, " +
+                    "soc.*, ro_c.r_office_area_id as c_r_office_area_id, ro_c.r_office_name as c_r_office_name " +
+                    "from (select * from jc_student_order " +
+                    "where student_order_status = ? and student_order_id > ? " +
+                    "order by student_order_id limit ?) so " +
+                    "inner join jc_register_office ro on ro.r_office_id = so.register_office_id " +
+                    "inner join jc_passport_office po_h on po_h.p_office_id = so.h_passport_office_id " +
+                    "inner join jc_passport_office po_w on po_w.p_office_id = so.w_passport_office_id " +
+                    "left join jc_student_child soc on soc.student_order_id = so.student_order_id " +
+                    "left join jc_register_office ro_c on ro_c.r_office_id = soc.c_register_office_id " +
+                    "order by so.student_order_id, soc.student_child_id";
+
+    private static final MetricRegistry metrics = MetricRegistry.getDefault();
+    private static final Histogram fetchTime = metrics.timer("dao.order.fetch");
+    private static final Histogram fetchOrders = metrics.histogram("dao.order.fetch.orders");
+    private static final Histogram pageQueryTime = metrics.timer("dao.order.page.query");
+    private static final Histogram claimTime = metrics.timer("dao.order.claim");
+    private static final Histogram saveTime = metrics.timer("dao.order.save");
+    private static final Counter savedOrders = metrics.counter("dao.order.saved");
+    private static final Counter saveErrors = metrics.counter("dao.order.save.errors");
+
+    // Shared by all instances so the adaptive choice learns across callers
+    private static final FetchStatistics fetchStatistics = new FetchStatistics(
+            Config.getDouble(Config.DB_FETCH_CHILDREN_RATIO, 2.0));
+
+    private final FetchStrategy fetchStrategy =
+            FetchStrategy.fromValue(Config.getProperty(Config.DB_FETCH_STRATEGY, "one_select"));
+
+    private final DictionaryInterner.Scope internScope =
+            DictionaryInterner.Scope.fromValue(Config.getProperty(Config.DB_INTERN, "fetch"));
 
     private Connection getConnection() throws SQLException {
         return ConnectionBuilder.getConnection();
@@ -72,22 +154,14 @@ public class StudentOrderDaoImpl implements StudentOrderDao {
 
     @Override
     public Long saveStudentOrder(StudentOrder so) throws DaoException {
+        long start = metrics.startTimer();
         Long result = -1L;
         logger.debug("SO: {}", so);
         try (Connection con = getConnection();
              PreparedStatement st = con.prepareStatement(INSERT_ORDER, new String[]{"student_order_id"})) {
             con.setAutoCommit(false);
             try {
-                // Header
-                st.setInt(1, StudentOrderStatus.START.ordinal());
-                st.setTimestamp(2, java.sql.Timestamp.valueOf(LocalDateTime.now()));
-                // Husband and wife
-                setParamsForAdult(st, 3, so.getHusband());
-                setParamsForAdult(st, 18, so.getWife());
-                // Marriage
-                st.setString(33, so.getMarriageCertificateId());
-                st.setLong(34, so.getMarriageOffice().getOfficeId());
-                st.setDate(35, java.sql.Date.valueOf(so.getMarriageDate()));
+                setParamsForOrder(st, so);
                 st.executeUpdate();
                 ResultSet gkRs = st.getGeneratedKeys();
                 if (gkRs.next()) {
@@ -100,20 +174,132 @@ public class StudentOrderDaoImpl implements StudentOrderDao {
                 throw ex;
             }
         } catch (SQLException ex) {
+            saveErrors.inc();
             logger.error(ex.getMessage(), ex);
             throw new DaoException(ex);
         }
+        savedOrders.inc();
+        saveTime.recordSince(start);
         return result;
     }
 
-    private void saveChildren(Connection con, StudentOrder so, Long soId) throws SQLException {
-        try (PreparedStatement st = con.prepareStatement(INSERT_CHILD)) {
-            for (Child child : so.getChildren()) {
-                st.setLong(1, soId);
-                setParamsForChild(st, child);
+    @Override
+    public SaveOrdersResult saveStudentOrders(List<StudentOrder> orders) throws DaoException {
+        long start = metrics.startTimer();
+        SaveOrdersResult result = new SaveOrdersResult(orders.size());
+        int chunkSize = Config.getInt(Config.DB_SAVE_CHUNK_SIZE, 100);
+        if (chunkSize < 1) {
+            throw new DaoException("Invalid " + Config.DB_SAVE_CHUNK_SIZE + ": " + chunkSize);
+        }
+        try (Connection con = getConnection()) {
+            con.setAutoCommit(false);
+            for (int from = 0; from < orders.size(); from += chunkSize) {
+                List<StudentOrder> chunk = orders.subList(from, Math.min(from + chunkSize, orders.size()));
+                try {
+                    saveChunk(con, chunk, from, result);
+                    con.commit();
+                } catch (SQLException | RuntimeException ex) {
+                    con.rollback();
+                    logger.warn("Batch insert of chunk at {} failed, saving orders one by one: {}",
+                            from, ex.getMessage());
+                    saveChunkOneByOne(con, chunk, from, result);
+                    con.commit();
+                }
+            }
+        } catch (SQLException ex) {
+            logger.error(ex.getMessage(), ex);
+            throw new DaoException(ex);
+        }
+        savedOrders.add(result.getSavedCount());
+        saveErrors.add(result.getErrors().size());
+        saveTime.recordSince(start);
+        return result;
+    }
+
+    private void saveChunk(Connection con, List<StudentOrder> chunk, int offset, SaveOrdersResult result)
+            throws SQLException {
+        List<Long> ids = new ArrayList<>(chunk.size());
+        try (PreparedStatement st = con.prepareStatement(INSERT_ORDER, new String[]{"student_order_id"})) {
+            for (StudentOrder so : chunk) {
+                setParamsForOrder(st, so);
                 st.addBatch();
             }
             st.executeBatch();
+            try (ResultSet gkRs = st.getGeneratedKeys()) {
+                while (gkRs.next()) {
+                    ids.add(gkRs.getLong(1));
+                }
+            }
+        }
+        if (ids.size() != chunk.size()) {
+            throw new SQLException("Expected " + chunk.size() + " generated keys, got " + ids.size());
+        }
+        try (PreparedStatement st = con.prepareStatement(INSERT_CHILD)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                addChildren(st, chunk.get(i), ids.get(i));
+            }
+            st.executeBatch();
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            result.setId(offset + i, ids.get(i));
+        }
+    }
+
+    private void saveChunkOneByOne(Connection con, List<StudentOrder> chunk, int offset, SaveOrdersResult result)
+            throws SQLException {
+        try (PreparedStatement st = con.prepareStatement(INSERT_ORDER, new String[]{"student_order_id"})) {
+            for (int i = 0; i < chunk.size(); i++) {
+                StudentOrder so = chunk.get(i);
+                Savepoint sp = con.setSavepoint();
+                try {
+                    setParamsForOrder(st, so);
+                    st.executeUpdate();
+                    Long id = -1L;
+                    try (ResultSet gkRs = st.getGeneratedKeys()) {
+                        if (gkRs.next()) {
+                            id = gkRs.getLong(1);
+                        }
+                    }
+                    saveChildren(con, so, id);
+                    con.releaseSavepoint(sp);
+                    result.setId(offset + i, id);
+                } catch (SQLException | RuntimeException ex) {
+                    con.rollback(sp);
+                    logger.error("Order at {} was not saved: {}", offset + i, ex.getMessage());
+                    result.addError(offset + i, new DaoException(ex));
+                }
+            }
+        }
+    }
+
+    private void setParamsForOrder(PreparedStatement st, StudentOrder so) throws SQLException {
+        // Header
+        st.setInt(1, StudentOrderStatus.START.ordinal());
+        st.setTimestamp(2, java.sql.Timestamp.valueOf(LocalDateTime.now()));
+        // Husband and wife
+        setParamsForAdult(st, 3, so.getHusband());
+        setParamsForAdult(st, 18, so.getWife());
+        // Marriage
+        st.setString(33, so.getMarriageCertificateId());
+        st.setLong(34, so.getMarriageOffice().getOfficeId());
+        st.setDate(35, java.sql.Date.valueOf(so.getMarriageDate()));
+    }
+
+    private void saveChildren(Connection con, StudentOrder so, Long soId) throws SQLException {
+        try (PreparedStatement st = con.prepareStatement(INSERT_CHILD)) {
+            addChildren(st, so, soId);
+            st.executeBatch();
+        }
+    }
+
+    private void addChildren(PreparedStatement st, StudentOrder so, Long soId) throws SQLException {
+        if (so.getChildren() == null) {
+            return;
+        }
+        for (Child child : so.getChildren()) {
+            st.setLong(1, soId);
+            setParamsForChild(st, child);
+            st.addBatch();
         }
     }
 
@@ -154,34 +340,28 @@ public class StudentOrderDaoImpl implements StudentOrderDao {
 
     @Override
     public List<StudentOrder> getStudentOrders() throws DaoException {
-        return getStudentOrdersOneSelect();
-//        return getStudentOrdersTwoSelect();
+        FetchStrategy strategy = fetchStrategy == FetchStrategy.ADAPTIVE ? fetchStatistics.choose() : fetchStrategy;
+        logger.debug("Fetch strategy: {}", strategy);
+        long start = metrics.startTimer();
+        List<StudentOrder> result = strategy == FetchStrategy.TWO_SELECT ?
+                getStudentOrdersTwoSelect() : getStudentOrdersOneSelect();
+        fetchTime.recordSince(start);
+        fetchOrders.record(result.size());
+        return result;
     }
 
-    private List<StudentOrder> getStudentOrdersOneSelect() throws DaoException {
-        List<StudentOrder> result = new LinkedList<>();
+    public static FetchStatistics getFetchStatistics() {
+        return fetchStatistics;
+    }
+
+    List<StudentOrder> getStudentOrdersOneSelect() throws DaoException {
+        List<StudentOrder> result;
         try (Connection con = getConnection();
              PreparedStatement st = con.prepareStatement(SELECT_ORDERS_FULL)) {
-            Map<Long, StudentOrder> maps = new HashMap<>();
             st.setInt(1, StudentOrderStatus.START.ordinal());
-            int limit = Integer.parseInt(Config.getProperty(Config.DB_LIMIT));
-            st.setInt(2, limit);
+            st.setInt(2, Config.getInt(Config.DB_LIMIT, 1000));
             ResultSet rs = st.executeQuery();
-            int counter = 0;
-            while (rs.next()) {
-                Long soId = rs.getLong("student_order_id");
-                if (!maps.containsKey(soId)) {
-                    StudentOrder so = getFullStudentOrder(rs);
-                    result.add(so);
-                    maps.put(soId, so);
-                }
-                StudentOrder so = maps.get(soId);
-                so.addChild(fillChild(rs));
-                counter++;
-            }
-            if (counter >= limit) {
-                result.remove(result.size() - 1);
-            }
+            result = mapJoinedOrders(rs);
             rs.close();
         } catch (SQLException ex) {
             logger.error(ex.getMessage(), ex);
@@ -191,122 +371,249 @@ public class StudentOrderDaoImpl implements StudentOrderDao {
         return result;
     }
 
-    private List<StudentOrder> getStudentOrdersTwoSelect() throws DaoException {
+    // Rows of SELECT_ORDERS_FULL, one per child or one with null child columns for a childless order.
+    // The limit counts orders in the subquery, so every order arrives with all of its children
+    List<StudentOrder> mapJoinedOrders(ResultSet rs) throws SQLException {
         List<StudentOrder> result = new LinkedList<>();
-        try (Connection con = getConnection();
-             PreparedStatement st = con.prepareStatement(SELECT_ORDERS)) {
-            st.setInt(1, StudentOrderStatus.START.ordinal());
-            st.setInt(2, Integer.parseInt(Config.getProperty(Config.DB_LIMIT)));
-            ResultSet rs = st.executeQuery();
-            while (rs.next()) {
-                StudentOrder so = getFullStudentOrder(rs);
+        Map<Long, StudentOrder> maps = new HashMap<>();
+        ResultSetColumns columns = new ResultSetColumns(rs);
+        DictionaryInterner interner = DictionaryInterner.forScope(internScope);
+        StudentOrderRowMapper orderMapper = new StudentOrderRowMapper(columns, interner);
+        ChildRowMapper childMapper = new ChildRowMapper(columns, "c_", interner);
+        int children = 0;
+        while (rs.next()) {
+            Long soId = orderMapper.getOrderId(rs);
+            if (!maps.containsKey(soId)) {
+                StudentOrder so = orderMapper.map(rs);
                 result.add(so);
+                maps.put(soId, so);
+            }
+            if (childMapper.hasChild(rs)) {
+                maps.get(soId).addChild(childMapper.map(rs));
+                children++;
+            }
+        }
+        fetchStatistics.record(result.size(), children);
+        return result;
+    }
+
+    @Override
+    public long readStudentOrders(StudentOrderStatus status, Consumer<StudentOrder> consumer) throws DaoException {
+        return readStudentOrders(status, 0, consumer);
+    }
+
+    @Override
+    public long readStudentOrders(StudentOrderStatus status, int limit, Consumer<StudentOrder> consumer)
+            throws DaoException {
+        int pageSize = Config.getInt(Config.DB_STREAM_PAGE_SIZE, 500);
+        int fetchSize = Config.getInt(Config.DB_STREAM_FETCH_SIZE, 200);
+        long total = 0;
+        long lastId = 0;
+        try (Connection con = getConnection();
+             PreparedStatement st = con.prepareStatement(SELECT_ORDERS_PAGE)) {
+            con.setAutoCommit(false);
+            st.setFetchSize(fetchSize);
+            StudentOrderRowMapper orderMapper = null;
+            ChildRowMapper childMapper = null;
+            while (true) {
+                int page = limit > 0 ? (int) Math.min(pageSize, limit - total) : pageSize;
+                st.setInt(1, status.ordinal());
+                st.setLong(2, lastId);
+                st.setInt(3, page);
+                int count = 0;
+                StudentOrder current = null;
+                long start = metrics.startTimer();
+                try (ResultSet rs = st.executeQuery()) {
+                    pageQueryTime.recordSince(start);
+                    // Every page has the same columns, so the indexes are resolved once
+                    if (orderMapper == null) {
+                        ResultSetColumns columns = new ResultSetColumns(rs);
+                        DictionaryInterner interner = DictionaryInterner.forScope(internScope);
+                        orderMapper = new StudentOrderRowMapper(columns, interner);
+                        childMapper = new ChildRowMapper(columns, "c_", interner);
+                    }
+                    while (rs.next()) {
+                        long soId = orderMapper.getOrderId(rs);
+                        if (current == null || current.getStudentOrderId() != soId) {
+                            if (current != null) {
+                                consumer.accept(current);
+                            }
+                            current = orderMapper.map(rs);
+                            count++;
+                        }
+                        if (childMapper.hasChild(rs)) {
+                            current.addChild(childMapper.map(rs));
+                        }
+                    }
+                }
+                con.commit();
+                if (current != null) {
+                    consumer.accept(current);
+                    lastId = current.getStudentOrderId();
+                }
+                total += count;
+                if (count < page || (limit > 0 && total >= limit)) {
+                    break;
+                }
             }
-            findChildren(con, result);
-            rs.close();
         } catch (SQLException ex) {
             logger.error(ex.getMessage(), ex);
             throw new DaoException(ex);
         }
+        return total;
+    }
 
-        return result;
+    @Override
+    public List<StudentOrder> claimStudentOrders(String owner, int limit) throws DaoException {
+        return claim(owner, CLAIM_ORDERS, limit, (con, st) -> {
+            st.setInt(3, StudentOrderStatus.START.ordinal());
+            st.setInt(4, limit);
+        });
     }
 
-    private StudentOrder getFullStudentOrder(ResultSet rs) throws SQLException {
-        StudentOrder so = new StudentOrder();
-        fillStudentOrder(rs, so);
-        fillMariage(rs, so);
-        so.setHusband(fillAdult(rs, "h_"));
-        so.setWife(fillAdult(rs, "w_"));
-        return so;
+    // Orders already checked or leased by someone else are skipped, so a stale id is harmless
+    @Override
+    public List<StudentOrder> claimStudentOrders(String owner, List<Long> ids) throws DaoException {
+        if (ids.isEmpty()) {
+            return new LinkedList<>();
+        }
+        return claim(owner, CLAIM_ORDERS_BY_ID, ids.size(), (con, st) -> {
+            st.setArray(3, con.createArrayOf("bigint", ids.toArray()));
+            st.setInt(4, StudentOrderStatus.START.ordinal());
+        });
     }
 
-    private void fillStudentOrder(ResultSet rs, StudentOrder so) throws SQLException {
-        so.setStudentOrderId(rs.getLong("student_order_id"));
-        so.setStudentOrderDate(rs.getTimestamp("student_order_date").toLocalDateTime());
-        so.setStudentOrderStatus(StudentOrderStatus.fromValue(rs.getInt("student_order_status")));
+    private interface ClaimParameters {
+        void set(Connection con, PreparedStatement st) throws SQLException;
     }
 
-    private void fillMariage(ResultSet rs, StudentOrder so) throws SQLException {
-        so.setMarriageCertificateId(rs.getString("certificate_id"));
-        so.setMarriageDate(rs.getDate("marriage_date").toLocalDate());
+    private List<StudentOrder> claim(String owner, String sql, int limit, ClaimParameters parameters)
+            throws DaoException {
+        long start = metrics.startTimer();
+        List<StudentOrder> result = new LinkedList<>();
+        try (Connection con = getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                List<Long> ids = new ArrayList<>(limit);
+                try (PreparedStatement st = con.prepareStatement(sql)) {
+                    st.setString(1, owner);
+                    st.setInt(2, Config.getInt(Config.DB_CLAIM_LEASE, 300));
+                    parameters.set(con, st);
+                    try (ResultSet rs = st.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                        }
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    DictionaryInterner interner = DictionaryInterner.forScope(internScope);
+                    try (PreparedStatement st = con.prepareStatement(SELECT_ORDERS_BY_ID)) {
+                        st.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+                        try (ResultSet rs = st.executeQuery()) {
+                            StudentOrderRowMapper mapper =
+                                    new StudentOrderRowMapper(new ResultSetColumns(rs), interner);
+                            while (rs.next()) {
+                                result.add(mapper.map(rs));
+                            }
+                        }
+                    }
+                    findChildren(con, result, interner);
+                }
+                con.commit();
+            } catch (SQLException ex) {
+                con.rollback();
+                throw ex;
+            }
+        } catch (SQLException ex) {
+            logger.error(ex.getMessage(), ex);
+            throw new DaoException(ex);
+        }
+        claimTime.recordSince(start);
+        return result;
+    }
 
-        Long roId = rs.getLong("register_office_id");
-        String areaId = rs.getString("r_office_area_id");
-        String name = rs.getString("r_office_name");
-        RegisterOffice ro = new RegisterOffice(roId, areaId, name);
-        so.setMarriageOffice(ro);
+    // Without an owner only orders nobody holds a lease on are marked
+    @Override
+    public int markStudentOrders(List<Long> ids, StudentOrderStatus status, String owner) throws DaoException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try (Connection con = getConnection();
+             PreparedStatement st = con.prepareStatement(owner != null ? MARK_OWN_ORDERS : MARK_FREE_ORDERS)) {
+            st.setInt(1, status.ordinal());
+            st.setArray(2, con.createArrayOf("bigint", ids.toArray()));
+            if (owner != null) {
+                st.setString(3, owner);
+            }
+            return st.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error(ex.getMessage(), ex);
+            throw new DaoException(ex);
+        }
     }
 
-    private Adult fillAdult(ResultSet rs, String pref) throws SQLException {
-        Adult adult = new Adult();
-        adult.setSurName(rs.getString(pref + "sur_name"));
-        adult.setGivenName(rs.getString(pref + "given_name"));
-        adult.setPatronymic(rs.getString(pref + "patronymic"));
-        adult.setDayOfBirth(rs.getDate(pref + "date_of_birth").toLocalDate());
-        adult.setPassportSeria(rs.getString(pref + "passport_seria"));
-        adult.setPassportNumber(rs.getString(pref + "passport_number"));
-        adult.setIssueDate(rs.getDate(pref + "passport_date").toLocalDate());
-        Long poId = rs.getLong(pref + "passport_office_id");
-        String poArea = rs.getString(pref + "p_office_area_id");
-        String poName = rs.getString(pref + "p_office_name");
-        PassportOffice po = new PassportOffice(poId, poArea, poName);
-        adult.setIssueDepartment(po);
-        Address adr = new Address();
-        Street street = new Street(rs.getLong(pref + "street_code"), "");
-        adr.setStreet(street);
-        adr.setPostCode(rs.getString(pref + "post_index"));
-        adr.setBuilding(rs.getString(pref + "building"));
-        adr.setExtension(rs.getString(pref + "extension"));
-        adr.setApartment(rs.getString(pref + "appartment"));
-        adult.setAddress(adr);
-        University uni = new University(rs.getLong(pref + "university_id"), "");
-        adult.setUniversity(uni);
-        adult.setStudentId(rs.getString(pref + "student_number"));
-        return adult;
+    // Keeps the lease, so claim passes skip the orders until the delay is over
+    @Override
+    public int deferStudentOrders(List<Long> ids, String owner, int delaySeconds) throws DaoException {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try (Connection con = getConnection();
+             PreparedStatement st = con.prepareStatement(DEFER_ORDERS)) {
+            st.setInt(1, delaySeconds);
+            st.setArray(2, con.createArrayOf("bigint", ids.toArray()));
+            st.setString(3, owner);
+            return st.executeUpdate();
+        } catch (SQLException ex) {
+            logger.error(ex.getMessage(), ex);
+            throw new DaoException(ex);
+        }
     }
 
-    private void findChildren(Connection con, List<StudentOrder> result) throws SQLException {
-        String cl = "(" + result.stream().map(so -> String.valueOf(so.getStudentOrderId()))
-                .collect(Collectors.joining(",")) + ")";
+    List<StudentOrder> getStudentOrdersTwoSelect() throws DaoException {
+        List<StudentOrder> result = new LinkedList<>();
+        try (Connection con = getConnection();
+             PreparedStatement st = con.prepareStatement(SELECT_ORDERS)) {
+            st.setInt(1, StudentOrderStatus.START.ordinal());
+            st.setInt(2, Config.getInt(Config.DB_LIMIT, 1000));
+            ResultSet rs = st.executeQuery();
+            DictionaryInterner interner = DictionaryInterner.forScope(internScope);
+            StudentOrderRowMapper mapper = new StudentOrderRowMapper(new ResultSetColumns(rs), interner);
+            while (rs.next()) {
+                StudentOrder so = mapper.map(rs);
+                result.add(so);
+            }
+            int children = findChildren(con, result, interner);
+            fetchStatistics.record(result.size(), children);
+            rs.close();
+        } catch (SQLException ex) {
+            logger.error(ex.getMessage(), ex);
+            throw new DaoException(ex);
+        }
+
+        return result;
+    }
 
+    // One SQL text for any number of orders, so the driver can keep it prepared on the connection
+    private int findChildren(Connection con, List<StudentOrder> result, DictionaryInterner interner)
+            throws SQLException {
+        if (result.isEmpty()) {
+            return 0;
+        }
         Map<Long, StudentOrder> maps = result.stream().collect(Collectors
                 .toMap(so -> so.getStudentOrderId(), so -> so));
-        try (PreparedStatement st = con.prepareStatement(SELECT_CHILD + cl)) {
+        int count = 0;
+        try (PreparedStatement st = con.prepareStatement(SELECT_CHILD)) {
+            st.setArray(1, con.createArrayOf("bigint", maps.keySet().toArray()));
             ResultSet rs = st.executeQuery();
+            ChildRowMapper mapper = new ChildRowMapper(new ResultSetColumns(rs), "", interner);
             while (rs.next()) {
-                Child ch = fillChild(rs);
-                StudentOrder so = maps.get(rs.getLong("student_order_id"));
+                Child ch = mapper.map(rs);
+                StudentOrder so = maps.get(mapper.getOrderId(rs));
                 so.addChild(ch);
+                count++;
             }
         }
+        return count;
     }
-
-    private Child fillChild(ResultSet rs) throws SQLException {
-        String surName = rs.getString("c_sur_name");
-        String givenName = rs.getString("c_given_name");
-        String patronymic = rs.getString("c_patronymic");
-        LocalDate dateOfBirth = rs.getDate("c_date_of_birth").toLocalDate();
-
-        Child child = new Child(surName, givenName, patronymic, dateOfBirth);
-
-        child.setCertificateNumber(rs.getString("c_certificate_number"));
-        child.setIssueDate(rs.getDate("c_certificate_date").toLocalDate());
-
-        Long roId = rs.getLong("c_register_office_id");
-        String roArea = rs.getString("r_office_area_id");
-        String roName = rs.getString("r_office_name");
-        RegisterOffice ro = new RegisterOffice(roId, roArea, roName);
-        child.setIssueDepartment(ro);
-
-        Address adr = new Address();
-        Street street = new Street(rs.getLong("c_street_code"), "");
-        adr.setStreet(street);
-        adr.setPostCode(rs.getString("c_post_index"));
-        adr.setBuilding(rs.getString("c_building"));
-        adr.setExtension(rs.getString("c_extension"));
-        adr.setApartment(rs.getString("c_appartment"));
-        child.setAddress(adr);
-        return child;
-    }
-}
+}
\ No newline at end of file
@@ -0,0 +1,223 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.config.Config;
+import edu.javacourse.studentorder.metrics.Counter;
+import edu.javacourse.studentorder.metrics.Histogram;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Waits for the NOTIFY sent by trg_student_order_notify on a dedicated connection and hands new order ids
+// to the handler in small batches. Notifications are lost while disconnected, so every (re)connect and
+// every catchUpInterval the handler is asked to poll for whatever is still waiting. A catch-up handles one
+// batch; while it reports more work the next one runs right after the pending notifications.
+public class StudentOrderListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentOrderListener.class);
+
+    public static final String CHANNEL = "student_order";
+
+    private static final MetricRegistry metrics = MetricRegistry.getDefault();
+    private static final Counter notified = metrics.counter("dao.order.listen.notified");
+    private static final Counter reconnects = metrics.counter("dao.order.listen.reconnects");
+    private static final Histogram batchSize = metrics.histogram("dao.order.listen.batch");
+
+    public interface Handler {
+        void ordersCreated(List<Long> ids) throws Exception;
+
+        // Returns true when more orders may be waiting
+        boolean catchUp() throws Exception;
+    }
+
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    private final Handler handler;
+    private final ConnectionFactory connectionFactory;
+    private final long window;
+    private final int maxBatch;
+    private final long catchUpInterval;
+    private final long reconnectDelay;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public StudentOrderListener(Handler handler) {
+        this(handler, ConnectionBuilder::createConnection,
+                Config.getLong(Config.DB_LISTEN_WINDOW, 200),
+                Config.getInt(Config.DB_LISTEN_MAX_BATCH, 100),
+                Config.getLong(Config.DB_LISTEN_CATCH_UP_INTERVAL, 60000),
+                Config.getLong(Config.DB_LISTEN_RECONNECT_DELAY, 5000));
+    }
+
+    public StudentOrderListener(Handler handler, ConnectionFactory connectionFactory,
+                                long window, int maxBatch, long catchUpInterval, long reconnectDelay) {
+        if (window < 0 || maxBatch < 1) {
+            throw new IllegalArgumentException("Invalid listener batching: window=" + window +
+                    ", maxBatch=" + maxBatch);
+        }
+        this.handler = handler;
+        this.connectionFactory = connectionFactory;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.catchUpInterval = catchUpInterval;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "student-order-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        closeConnection();
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t != null) {
+            t.join();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                listen();
+            } catch (SQLException ex) {
+                if (!running) {
+                    break;
+                }
+                reconnects.inc();
+                logger.error("Listener connection lost, reconnecting in {} ms: {}", reconnectDelay, ex.getMessage());
+                closeConnection();
+                pause(reconnectDelay);
+            }
+        }
+        closeConnection();
+        logger.info("Student order listener stopped");
+    }
+
+    private void listen() throws SQLException {
+        Connection con = connectionFactory.create();
+        connection = con;
+        try (Statement st = con.createStatement()) {
+            st.execute("LISTEN " + CHANNEL);
+        }
+        PGConnection pg = con.unwrap(PGConnection.class);
+        logger.info("Listening on channel {}", CHANNEL);
+
+        // LISTEN is active before the poll, so an order saved in between is found by one or the other
+        long nextCatchUp = nextCatchUp(catchUp());
+        while (running) {
+            long wait = Math.max(1, nextCatchUp - System.currentTimeMillis());
+            Set<Long> ids = new LinkedHashSet<>();
+            collect(pg.getNotifications((int) Math.min(wait, Integer.MAX_VALUE)), ids);
+            if (!ids.isEmpty()) {
+                // A bulk save sends one notification per order; wait a little for the rest of them
+                long windowEnd = System.currentTimeMillis() + window;
+                long left;
+                while (ids.size() < maxBatch && (left = windowEnd - System.currentTimeMillis()) > 0) {
+                    collect(pg.getNotifications((int) left), ids);
+                }
+                dispatch(new ArrayList<>(ids));
+            }
+            if (System.currentTimeMillis() >= nextCatchUp) {
+                // Also a liveness check: a dead socket is only noticed when the connection is used
+                if (!con.isValid(5)) {
+                    throw new SQLException("Listener connection is no longer valid");
+                }
+                nextCatchUp = nextCatchUp(catchUp());
+            }
+        }
+    }
+
+    private void collect(PGNotification[] notifications, Set<Long> ids) {
+        if (notifications == null) {
+            return;
+        }
+        for (PGNotification n : notifications) {
+            if (!CHANNEL.equals(n.getName())) {
+                continue;
+            }
+            try {
+                ids.add(Long.parseLong(n.getParameter().trim()));
+                notified.inc();
+            } catch (NumberFormatException ex) {
+                logger.warn("Ignoring notification with payload '{}'", n.getParameter());
+            }
+        }
+    }
+
+    private void dispatch(List<Long> ids) {
+        // Ids beyond maxBatch arrive when the window is cut short; hand them over in slices
+        for (int from = 0; from < ids.size(); from += maxBatch) {
+            List<Long> slice = ids.subList(from, Math.min(ids.size(), from + maxBatch));
+            batchSize.record(slice.size());
+            try {
+                handler.ordersCreated(slice);
+            } catch (Exception ex) {
+                // Unprocessed orders stay in START and are found by the next catch-up
+                logger.error(ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private boolean catchUp() {
+        try {
+            return handler.catchUp();
+        } catch (Exception ex) {
+            logger.error(ex.getMessage(), ex);
+            return false;
+        }
+    }
+
+    private long nextCatchUp(boolean more) {
+        return System.currentTimeMillis() + (more ? 0 : catchUpInterval);
+    }
+
+    private void closeConnection() {
+        Connection con = connection;
+        connection = null;
+        if (con != null) {
+            try {
+                con.close();
+            } catch (SQLException ex) {
+                logger.debug("Error closing listener connection: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
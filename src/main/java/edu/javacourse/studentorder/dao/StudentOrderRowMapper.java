@@ -0,0 +1,131 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.PassportOffice;
+import edu.javacourse.studentorder.domain.RegisterOffice;
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.StudentOrderStatus;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class StudentOrderRowMapper {
+
+    private static class AdultLayout {
+        private final int surName;
+        private final int givenName;
+        private final int patronymic;
+        private final int dateOfBirth;
+        private final int passportSeria;
+        private final int passportNumber;
+        private final int passportDate;
+        private final int passportOfficeId;
+        private final int passportOfficeArea;
+        private final int passportOfficeName;
+        private final int postIndex;
+        private final int streetCode;
+        private final int building;
+        private final int extension;
+        private final int apartment;
+        private final int universityId;
+        private final int studentNumber;
+
+        AdultLayout(ResultSetColumns columns, String pref) throws SQLException {
+            surName = columns.get(pref + "sur_name");
+            givenName = columns.get(pref + "given_name");
+            patronymic = columns.get(pref + "patronymic");
+            dateOfBirth = columns.get(pref + "date_of_birth");
+            passportSeria = columns.get(pref + "passport_seria");
+            passportNumber = columns.get(pref + "passport_number");
+            passportDate = columns.get(pref + "passport_date");
+            passportOfficeId = columns.get(pref + "passport_office_id");
+            passportOfficeArea = columns.get(pref + "p_office_area_id");
+            passportOfficeName = columns.get(pref + "p_office_name");
+            postIndex = columns.get(pref + "post_index");
+            streetCode = columns.get(pref + "street_code");
+            building = columns.get(pref + "building");
+            extension = columns.get(pref + "extension");
+            apartment = columns.get(pref + "appartment");
+            universityId = columns.get(pref + "university_id");
+            studentNumber = columns.get(pref + "student_number");
+        }
+
+        Adult map(ResultSet rs, DictionaryInterner interner) throws SQLException {
+            Adult adult = new Adult();
+            adult.setSurName(rs.getString(surName));
+            adult.setGivenName(rs.getString(givenName));
+            adult.setPatronymic(rs.getString(patronymic));
+            adult.setDayOfBirth(rs.getDate(dateOfBirth).toLocalDate());
+            adult.setPassportSeria(rs.getString(passportSeria));
+            adult.setPassportNumber(rs.getString(passportNumber));
+            adult.setIssueDate(rs.getDate(passportDate).toLocalDate());
+            PassportOffice po = interner.passportOffice(rs, passportOfficeId, passportOfficeArea, passportOfficeName);
+            adult.setIssueDepartment(po);
+            Address adr = new Address();
+            adr.setStreet(interner.street(rs.getLong(streetCode), ""));
+            adr.setPostCode(rs.getString(postIndex));
+            adr.setBuilding(rs.getString(building));
+            adr.setExtension(rs.getString(extension));
+            adr.setApartment(rs.getString(apartment));
+            adult.setAddress(adr);
+            adult.setUniversity(interner.university(rs.getLong(universityId), ""));
+            adult.setStudentId(rs.getString(studentNumber));
+            return adult;
+        }
+    }
+
+    private final int orderId;
+    private final int orderStatus;
+    private final int orderDate;
+    private final int certificateId;
+    private final int registerOfficeId;
+    private final int registerOfficeArea;
+    private final int registerOfficeName;
+    private final int marriageDate;
+    private final AdultLayout husband;
+    private final AdultLayout wife;
+    private final DictionaryInterner interner;
+
+    public StudentOrderRowMapper(ResultSet rs) throws SQLException {
+        this(new ResultSetColumns(rs));
+    }
+
+    public StudentOrderRowMapper(ResultSetColumns columns) throws SQLException {
+        this(columns, DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH));
+    }
+
+    public StudentOrderRowMapper(ResultSetColumns columns, DictionaryInterner interner) throws SQLException {
+        this.interner = interner;
+        orderId = columns.get("student_order_id");
+        orderStatus = columns.get("student_order_status");
+        orderDate = columns.get("student_order_date");
+        certificateId = columns.get("certificate_id");
+        registerOfficeId = columns.get("register_office_id");
+        registerOfficeArea = columns.get("r_office_area_id");
+        registerOfficeName = columns.get("r_office_name");
+        marriageDate = columns.get("marriage_date");
+        husband = new AdultLayout(columns, "h_");
+        wife = new AdultLayout(columns, "w_");
+    }
+
+    public long getOrderId(ResultSet rs) throws SQLException {
+        return rs.getLong(orderId);
+    }
+
+    public StudentOrder map(ResultSet rs) throws SQLException {
+        StudentOrder so = new StudentOrder();
+        so.setStudentOrderId(rs.getLong(orderId));
+        so.setStudentOrderDate(rs.getTimestamp(orderDate).toLocalDateTime());
+        so.setStudentOrderStatus(StudentOrderStatus.fromValue(rs.getInt(orderStatus)));
+
+        so.setMarriageCertificateId(rs.getString(certificateId));
+        so.setMarriageDate(rs.getDate(marriageDate).toLocalDate());
+        RegisterOffice ro = interner.registerOffice(rs, registerOfficeId, registerOfficeArea, registerOfficeName);
+        so.setMarriageOffice(ro);
+
+        so.setHusband(husband.map(rs, interner));
+        so.setWife(wife.map(rs, interner));
+        return so;
+    }
+}
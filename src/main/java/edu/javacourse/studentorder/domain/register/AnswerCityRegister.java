@@ -17,4 +17,17 @@ public class AnswerCityRegister {
     public List<AnswerCityRegisterItem> getItems() {
         return items;
     }
+
+    // ERROR means the register gave no answer for the person, so the order is not checked yet
+    public boolean hasErrors() {
+        if (items == null) {
+            return false;
+        }
+        for (AnswerCityRegisterItem item : items) {
+            if (item.getStatus() == AnswerCityRegisterItem.CityStatus.ERROR) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
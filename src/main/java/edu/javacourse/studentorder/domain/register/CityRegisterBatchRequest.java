@@ -0,0 +1,36 @@
+package edu.javacourse.studentorder.domain.register;
+
+import edu.javacourse.studentorder.domain.Person;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CityRegisterBatchRequest {
+
+    private List<CityRegisterRequest> persons;
+
+    public CityRegisterBatchRequest() {
+    }
+
+    public CityRegisterBatchRequest(List<? extends Person> persons) {
+        this.persons = new ArrayList<>(persons.size());
+        for (Person person : persons) {
+            this.persons.add(new CityRegisterRequest(person));
+        }
+    }
+
+    public List<CityRegisterRequest> getPersons() {
+        return persons;
+    }
+
+    public void setPersons(List<CityRegisterRequest> persons) {
+        this.persons = persons;
+    }
+
+    @Override
+    public String toString() {
+        return "CityRegisterBatchRequest{" +
+                "persons=" + persons +
+                '}';
+    }
+}
@@ -0,0 +1,23 @@
+package edu.javacourse.studentorder.domain.register;
+
+import java.util.List;
+
+public class CityRegisterBatchResponse {
+
+    private List<CityRegisterResponse> responses;
+
+    public List<CityRegisterResponse> getResponses() {
+        return responses;
+    }
+
+    public void setResponses(List<CityRegisterResponse> responses) {
+        this.responses = responses;
+    }
+
+    @Override
+    public String toString() {
+        return "CityRegisterBatchResponse{" +
+                "responses=" + responses +
+                '}';
+    }
+}
@@ -6,6 +6,7 @@ import edu.javacourse.studentorder.util.LocalDateAdapter;
 
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import java.time.LocalDate;
+import java.util.Objects;
 
 public class CityRegisterRequest {
 
@@ -98,6 +99,26 @@ public class CityRegisterRequest {
         this.apartment = apartment;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CityRegisterRequest that = (CityRegisterRequest) o;
+        return Objects.equals(surName, that.surName) &&
+                Objects.equals(givenName, that.givenName) &&
+                Objects.equals(patronymic, that.patronymic) &&
+                Objects.equals(dateOfBirth, that.dateOfBirth) &&
+                Objects.equals(streetCode, that.streetCode) &&
+                Objects.equals(building, that.building) &&
+                Objects.equals(extension, that.extension) &&
+                Objects.equals(apartment, that.apartment);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(surName, givenName, patronymic, dateOfBirth, streetCode, building, extension, apartment);
+    }
+
     @Override
     public String toString() {
         return "CityRegisterRequest{" +
@@ -2,6 +2,13 @@ package edu.javacourse.studentorder.exception;
 
 public class CityRegisterException extends Exception {
 
+    // HTTP answers other than 200 use the status code itself, e.g. "503"
+    public static final String GENERAL_ERROR = "1";
+    public static final String TRANSPORT_ERROR = "IO";
+    public static final String CIRCUIT_OPEN = "CIRCUIT_OPEN";
+    public static final String BULKHEAD_FULL = "BULKHEAD_FULL";
+    public static final String INTERRUPTED = "INTERRUPTED";
+
     private String code;
 
     public CityRegisterException() {
@@ -0,0 +1,19 @@
+package edu.javacourse.studentorder.exception;
+
+public class MailException extends Exception {
+
+    public MailException() {
+    }
+
+    public MailException(String message) {
+        super(message);
+    }
+
+    public MailException(Throwable cause) {
+        super(cause);
+    }
+
+    public MailException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package edu.javacourse.studentorder.mail;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Stand-in until a real mail server is configured
+public class LoggingMailTransport implements MailTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoggingMailTransport.class);
+
+    @Override
+    public void send(MailMessage message) {
+        logger.info("Mail to {}: {}", message.getRecipient(), message.getSubject());
+    }
+}
@@ -0,0 +1,59 @@
+package edu.javacourse.studentorder.mail;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+public class MailMessage {
+
+    private final String recipient;
+    private final String subject;
+    private final String body;
+    // Messages merged into this one, empty for a single message
+    private final List<MailMessage> parts;
+    // Set when the message is also on disk; the file goes away once the message is sent
+    private volatile Path spoolFile;
+
+    public MailMessage(String recipient, String subject, String body) {
+        this(recipient, subject, body, Collections.emptyList());
+    }
+
+    MailMessage(String recipient, String subject, String body, List<MailMessage> parts) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.parts = parts;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    List<MailMessage> getParts() {
+        return parts.isEmpty() ? Collections.singletonList(this) : parts;
+    }
+
+    Path getSpoolFile() {
+        return spoolFile;
+    }
+
+    void setSpoolFile(Path spoolFile) {
+        this.spoolFile = spoolFile;
+    }
+
+    @Override
+    public String toString() {
+        return "MailMessage{" +
+                "recipient='" + recipient + '\'' +
+                ", subject='" + subject + '\'' +
+                '}';
+    }
+}
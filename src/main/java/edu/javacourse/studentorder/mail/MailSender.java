@@ -1,10 +1,349 @@
 package edu.javacourse.studentorder.mail;
 
+import edu.javacourse.studentorder.config.Config;
 import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.exception.MailException;
+import edu.javacourse.studentorder.metrics.Counter;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MailSender {
 
-   public void sendMail(StudentOrder studentOrder) {
-       System.out.println("Mail is sended");
+    private static final Logger logger = LoggerFactory.getLogger(MailSender.class);
+
+    private static final String SPOOL_SUFFIX = ".mail";
+    private static final long CLOSE_TIMEOUT = 5000;
+
+    private static final MetricRegistry metrics = MetricRegistry.getDefault();
+    private static final Counter queued = metrics.counter("mail.queued");
+    private static final Counter sent = metrics.counter("mail.sent");
+    private static final Counter coalesced = metrics.counter("mail.coalesced");
+    private static final Counter retried = metrics.counter("mail.retried");
+    private static final Counter spooled = metrics.counter("mail.spooled");
+
+    private final MailTransport transport;
+    private final String recipient;
+    private final BlockingQueue<MailMessage> queue;
+    private final int batchSize;
+    private final long linger;
+    private final int maxAttempts;
+    private final long retryDelay;
+    private final Path spoolDir;
+    private final long spoolInterval;
+
+    private final Set<Path> queuedFiles = ConcurrentHashMap.newKeySet();
+    private final AtomicLong spoolSequence = new AtomicLong();
+    private volatile boolean running;
+    private Thread worker;
+    private long lastReplay;
+
+    public MailSender() {
+        this(buildTransport(Config.getProperty(Config.MAIL_TRANSPORT, LoggingMailTransport.class.getName())),
+                Config.getProperty(Config.MAIL_TO, "office@localhost"),
+                Config.getInt(Config.MAIL_QUEUE_SIZE, 1000),
+                Config.getInt(Config.MAIL_BATCH_SIZE, 50),
+                Config.getLong(Config.MAIL_LINGER, 500),
+                Config.getInt(Config.MAIL_MAX_ATTEMPTS, 5),
+                Config.getLong(Config.MAIL_RETRY_DELAY, 1000),
+                Paths.get(Config.getProperty(Config.MAIL_SPOOL, "mail-spool")),
+                Config.getLong(Config.MAIL_SPOOL_INTERVAL, 30000));
+        start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "mail-sender-shutdown"));
+    }
+
+    public MailSender(MailTransport transport, String recipient, int queueSize, int batchSize, long linger,
+                      int maxAttempts, long retryDelay, Path spoolDir, long spoolInterval) {
+        this.transport = transport;
+        this.recipient = recipient;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.spoolDir = spoolDir;
+        this.spoolInterval = spoolInterval;
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException ex) {
+            logger.error("Mail spool {} is not available, messages will not be spooled: {}",
+                    spoolDir, ex.getMessage(), ex);
+        }
+    }
+
+    private static MailTransport buildTransport(String className) {
+        try {
+            return (MailTransport) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            throw new IllegalArgumentException("Invalid mail transport: " + className, ex);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::work, "mail-sender");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Stops the worker; whatever is still queued goes to the spool for the next start
+    public void close() {
+        Thread w;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            w = worker;
+        }
+        try {
+            w.join(CLOSE_TIMEOUT);
+            if (w.isAlive()) {
+                w.interrupt();
+                w.join(CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        MailMessage message;
+        while ((message = queue.poll()) != null) {
+            spool(message);
+        }
+    }
+
+    public void sendMail(StudentOrder so) {
+        send(new MailMessage(recipient, "Student order " + so.getStudentOrderId(),
+                "Student order " + so.getStudentOrderId() + " is checked"));
+    }
+
+    // Never waits for the queue or the transport, but the caller writes the spool file itself: the message
+    // is on disk before it is queued and the file is removed once it is delivered. The file is not synced,
+    // so it survives a crash or kill of the process, not a crash of the machine. A full queue leaves the
+    // message in the spool for replay
+    public void send(MailMessage message) {
+        Path file = writeSpoolFile(message, true);
+        if (file != null) {
+            message.setSpoolFile(file);
+        }
+        if (queue.offer(message)) {
+            queued.inc();
+        } else {
+            logger.warn("Mail queue is full, spooling {}", message);
+            spool(message);
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void work() {
+        List<MailMessage> batch = new ArrayList<>(batchSize);
+        try {
+            replaySpool();
+            while (running || !queue.isEmpty()) {
+                MailMessage first = queue.poll(Math.max(linger, 100), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (System.currentTimeMillis() - lastReplay >= spoolInterval) {
+                        replaySpool();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long lingerEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(linger);
+                while (batch.size() < batchSize) {
+                    MailMessage next = queue.poll(Math.max(lingerEnd - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                deliver(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            // Interrupted while the batch was still being collected
+            Thread.currentThread().interrupt();
+            batch.forEach(this::spool);
+        }
+    }
+
+    private void deliver(List<MailMessage> batch) throws InterruptedException {
+        List<MailMessage> merged = coalesce(batch);
+        for (int i = 0; i < merged.size(); i++) {
+            MailMessage message = merged.get(i);
+            try {
+                sendWithRetry(message);
+            } catch (InterruptedException ex) {
+                // Spool only what is not sent yet; the batch is cleared so work() does not spool it again
+                for (int j = i; j < merged.size(); j++) {
+                    merged.get(j).getParts().forEach(this::spool);
+                }
+                batch.clear();
+                throw ex;
+            }
+        }
+    }
+
+    // One message per recipient for the whole batch
+    List<MailMessage> coalesce(List<MailMessage> batch) {
+        Map<String, List<MailMessage>> byRecipient = new LinkedHashMap<>();
+        for (MailMessage message : batch) {
+            byRecipient.computeIfAbsent(message.getRecipient(), k -> new ArrayList<>()).add(message);
+        }
+        List<MailMessage> result = new ArrayList<>(byRecipient.size());
+        for (Map.Entry<String, List<MailMessage>> e : byRecipient.entrySet()) {
+            List<MailMessage> parts = e.getValue();
+            if (parts.size() == 1) {
+                result.add(parts.get(0));
+                continue;
+            }
+            StringBuilder body = new StringBuilder();
+            for (MailMessage part : parts) {
+                if (body.length() > 0) {
+                    body.append(System.lineSeparator());
+                }
+                body.append(part.getBody());
+            }
+            coalesced.add(parts.size() - 1);
+            result.add(new MailMessage(e.getKey(), parts.size() + " notifications", body.toString(), parts));
+        }
+        return result;
+    }
+
+    private void sendWithRetry(MailMessage message) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transport.send(message);
+                sent.inc();
+                for (MailMessage part : message.getParts()) {
+                    removeSpoolFile(part);
+                }
+                return;
+            } catch (MailException | RuntimeException ex) {
+                if (attempt >= maxAttempts) {
+                    logger.error("Mail to {} failed after {} attempts, spooling: {}",
+                            message.getRecipient(), attempt, ex.getMessage());
+                    message.getParts().forEach(this::spool);
+                    return;
+                }
+                long cap = Math.min(retryDelay << Math.min(attempt - 1, 20), TimeUnit.MINUTES.toMillis(5));
+                long delay = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+                logger.warn("Mail to {} failed, attempt {} of {}, retry in {} ms: {}",
+                        message.getRecipient(), attempt, maxAttempts, delay, ex.getMessage());
+                retried.inc();
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    private void spool(MailMessage message) {
+        if (message.getSpoolFile() != null) {
+            // Already on disk, just let the next replay pick it up again
+            queuedFiles.remove(message.getSpoolFile());
+            spooled.inc();
+            return;
+        }
+        if (writeSpoolFile(message, false) != null) {
+            spooled.inc();
+        }
+    }
+
+    // A queued file is marked before it appears in the directory, so a replay pass cannot queue it twice
+    private Path writeSpoolFile(MailMessage message, boolean inQueue) {
+        String name = System.currentTimeMillis() + "-" + spoolSequence.incrementAndGet() + SPOOL_SUFFIX;
+        Path file = spoolDir.resolve(name);
+        if (inQueue) {
+            queuedFiles.add(file);
+        }
+        try {
+            Path tmp = spoolDir.resolve(name + ".tmp");
+            Properties p = new Properties();
+            p.setProperty("recipient", message.getRecipient());
+            p.setProperty("subject", message.getSubject());
+            p.setProperty("body", message.getBody());
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                p.store(w, null);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            return file;
+        } catch (IOException ex) {
+            queuedFiles.remove(file);
+            logger.error("Mail to {} is not spooled: {}", message.getRecipient(), ex.getMessage(), ex);
+            return null;
+        }
+    }
+
+    private void removeSpoolFile(MailMessage message) {
+        Path file = message.getSpoolFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            logger.warn("Spool file {} is not removed: {}", file, ex.getMessage());
+        }
+        queuedFiles.remove(file);
+    }
+
+    // Puts spooled messages back on the queue while there is room; the rest wait for the next pass
+    void replaySpool() {
+        lastReplay = System.currentTimeMillis();
+        if (!Files.isDirectory(spoolDir)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(spoolDir, "*" + SPOOL_SUFFIX)) {
+            ds.forEach(files::add);
+        } catch (IOException ex) {
+            logger.warn("Mail spool is not readable: {}", ex.getMessage());
+            return;
+        }
+        files.sort(null);
+        for (Path file : files) {
+            if (queuedFiles.contains(file)) {
+                continue;
+            }
+            Properties p = new Properties();
+            try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                p.load(r);
+            } catch (IOException ex) {
+                logger.warn("Spool file {} is not readable: {}", file, ex.getMessage());
+                continue;
+            }
+            MailMessage message = new MailMessage(p.getProperty("recipient"), p.getProperty("subject"),
+                    p.getProperty("body"));
+            message.setSpoolFile(file);
+            if (!queue.offer(message)) {
+                break;
+            }
+            queuedFiles.add(file);
+        }
     }
 }
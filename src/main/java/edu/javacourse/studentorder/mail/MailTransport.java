@@ -0,0 +1,8 @@
+package edu.javacourse.studentorder.mail;
+
+import edu.javacourse.studentorder.exception.MailException;
+
+public interface MailTransport {
+
+    void send(MailMessage message) throws MailException;
+}
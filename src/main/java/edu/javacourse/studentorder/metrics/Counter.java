@@ -0,0 +1,30 @@
+package edu.javacourse.studentorder.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter implements CounterMBean {
+
+    private final boolean enabled;
+    private final LongAdder count = new LongAdder();
+
+    public Counter(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void inc() {
+        if (enabled) {
+            count.increment();
+        }
+    }
+
+    public void add(long n) {
+        if (enabled) {
+            count.add(n);
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,23 @@
+package edu.javacourse.studentorder.metrics;
+
+import java.util.function.DoubleSupplier;
+
+// Reads the value from its source on demand, so there is nothing to record on the hot path
+public class Gauge implements GaugeMBean {
+
+    private volatile DoubleSupplier source;
+
+    public Gauge(DoubleSupplier source) {
+        this.source = source;
+    }
+
+    // A component built again (e.g. a new checker) takes the name over from the old one
+    void setSource(DoubleSupplier source) {
+        this.source = source;
+    }
+
+    @Override
+    public double getValue() {
+        return source.getAsDouble();
+    }
+}
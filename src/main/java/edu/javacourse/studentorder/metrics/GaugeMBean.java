@@ -0,0 +1,6 @@
+package edu.javacourse.studentorder.metrics;
+
+public interface GaugeMBean {
+
+    double getValue();
+}
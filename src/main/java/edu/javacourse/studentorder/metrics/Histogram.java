@@ -0,0 +1,127 @@
+package edu.javacourse.studentorder.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram implements HistogramMBean {
+
+    // Log-linear buckets: 16 per power of two, so a percentile is off by at most 1/16 of its value
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final boolean enabled;
+    private final boolean time;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    // time histograms take nanoseconds and report milliseconds
+    public Histogram(boolean enabled, boolean time) {
+        this.enabled = enabled;
+        this.time = time;
+    }
+
+    static int bucket(long value) {
+        if (value < 2 * SUB_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - SUB_BITS)) & (SUB_COUNT - 1);
+        return (msb - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    // Highest value that falls into the bucket
+    static long bucketLimit(int bucket) {
+        if (bucket < 2 * SUB_COUNT) {
+            return bucket;
+        }
+        int msb = bucket / SUB_COUNT + SUB_BITS - 1;
+        long sub = bucket % SUB_COUNT;
+        long lower = (SUB_COUNT + sub) << (msb - SUB_BITS);
+        return lower + (1L << (msb - SUB_BITS)) - 1;
+    }
+
+    public void record(long value) {
+        if (!enabled) {
+            return;
+        }
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    // start is a value of MetricRegistry.startTimer
+    public void recordSince(long start) {
+        if (enabled) {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public long getValueAtPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketLimit(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private double scale(double value) {
+        return time ? value / NANOS_PER_MILLI : value;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : scale((double) sum.sum() / n);
+    }
+
+    @Override
+    public double getMax() {
+        return scale(max.get());
+    }
+
+    @Override
+    public double get50thPercentile() {
+        return scale(getValueAtPercentile(50));
+    }
+
+    @Override
+    public double get90thPercentile() {
+        return scale(getValueAtPercentile(90));
+    }
+
+    @Override
+    public double get99thPercentile() {
+        return scale(getValueAtPercentile(99));
+    }
+
+    @Override
+    public double get999thPercentile() {
+        return scale(getValueAtPercentile(99.9));
+    }
+}
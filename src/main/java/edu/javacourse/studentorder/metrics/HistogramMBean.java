@@ -0,0 +1,19 @@
+package edu.javacourse.studentorder.metrics;
+
+// Times are in milliseconds, plain value histograms report raw values
+public interface HistogramMBean {
+
+    long getCount();
+
+    double getMean();
+
+    double getMax();
+
+    double get50thPercentile();
+
+    double get90thPercentile();
+
+    double get99thPercentile();
+
+    double get999thPercentile();
+}
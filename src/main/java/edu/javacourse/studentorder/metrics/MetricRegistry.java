@@ -0,0 +1,107 @@
+package edu.javacourse.studentorder.metrics;
+
+import edu.javacourse.studentorder.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+public class MetricRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricRegistry.class);
+
+    public static final String JMX_DOMAIN = "edu.javacourse.studentorder";
+
+    private static class DefaultHolder {
+        private static final MetricRegistry REGISTRY = buildDefault();
+    }
+
+    private final boolean enabled;
+    private final boolean jmx;
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    public MetricRegistry(boolean enabled, boolean jmx) {
+        this.enabled = enabled;
+        this.jmx = enabled && jmx;
+    }
+
+    public static MetricRegistry getDefault() {
+        return DefaultHolder.REGISTRY;
+    }
+
+    private static MetricRegistry buildDefault() {
+        MetricRegistry registry = new MetricRegistry(
+                Config.getBoolean(Config.METRICS_ENABLED, false),
+                Config.getBoolean(Config.METRICS_JMX, true));
+        long interval = Config.getLong(Config.METRICS_REPORT_INTERVAL, 0);
+        if (registry.isEnabled() && interval > 0) {
+            MetricsReporter reporter = new MetricsReporter(registry,
+                    Config.getProperty(Config.METRICS_REPORT_CSV, ""));
+            reporter.start(interval);
+            Runtime.getRuntime().addShutdownHook(new Thread(reporter::stop, "metrics-report-shutdown"));
+        }
+        return registry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Disabled registry skips the clock call too
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> register("Counter", n, new Counter(enabled)));
+    }
+
+    public Histogram timer(String name) {
+        return histograms.computeIfAbsent(name, n -> register("Timer", n, new Histogram(enabled, true)));
+    }
+
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> register("Histogram", n, new Histogram(enabled, false)));
+    }
+
+    public Gauge gauge(String name, DoubleSupplier source) {
+        Gauge gauge = gauges.computeIfAbsent(name, n -> register("Gauge", n, new Gauge(source)));
+        gauge.setSource(source);
+        return gauge;
+    }
+
+    public Map<String, Counter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    public Map<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    public Map<String, Gauge> getGauges() {
+        return new TreeMap<>(gauges);
+    }
+
+    private <T> T register(String type, String name, T metric) {
+        if (jmx) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(metric, objectName);
+                }
+            } catch (Exception ex) {
+                logger.warn("Metric {} is not exported to JMX: {}", name, ex.getMessage());
+            }
+        }
+        return metric;
+    }
+}
@@ -0,0 +1,101 @@
+package edu.javacourse.studentorder.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsReporter.class);
+
+    static final String CSV_HEADER = "time,name,count,mean,p50,p90,p99,p999,max";
+
+    private final MetricRegistry registry;
+    // Empty or null means log only
+    private final Path csvFile;
+    private ScheduledExecutorService scheduler;
+
+    public MetricsReporter(MetricRegistry registry, String csvFile) {
+        this.registry = registry;
+        this.csvFile = csvFile == null || csvFile.isEmpty() ? null : Paths.get(csvFile);
+    }
+
+    public void start(long interval) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-report");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::report, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        report();
+    }
+
+    public void report() {
+        try {
+            String time = LocalDateTime.now().toString();
+            StringBuilder csv = new StringBuilder();
+            for (Map.Entry<String, Counter> e : registry.getCounters().entrySet()) {
+                long count = e.getValue().getCount();
+                logger.info("{}: count={}", e.getKey(), count);
+                csv.append(time).append(',').append(e.getKey()).append(',').append(count)
+                        .append(",,,,,,").append(System.lineSeparator());
+            }
+            for (Map.Entry<String, Gauge> e : registry.getGauges().entrySet()) {
+                String value = format(e.getValue().getValue());
+                logger.info("{}: value={}", e.getKey(), value);
+                csv.append(time).append(',').append(e.getKey()).append(',').append(value)
+                        .append(",,,,,,").append(System.lineSeparator());
+            }
+            for (Map.Entry<String, Histogram> e : registry.getHistograms().entrySet()) {
+                Histogram h = e.getValue();
+                logger.info("{}: count={}, mean={}, p50={}, p90={}, p99={}, p999={}, max={}", e.getKey(),
+                        h.getCount(), format(h.getMean()), format(h.get50thPercentile()),
+                        format(h.get90thPercentile()), format(h.get99thPercentile()),
+                        format(h.get999thPercentile()), format(h.getMax()));
+                csv.append(String.join(",", time, e.getKey(), String.valueOf(h.getCount()),
+                        format(h.getMean()), format(h.get50thPercentile()), format(h.get90thPercentile()),
+                        format(h.get99thPercentile()), format(h.get999thPercentile()), format(h.getMax())))
+                        .append(System.lineSeparator());
+            }
+            if (csvFile != null) {
+                writeCsv(csv.toString());
+            }
+        } catch (Exception ex) {
+            logger.warn("Metrics report failed: {}", ex.getMessage());
+        }
+    }
+
+    private void writeCsv(String rows) throws IOException {
+        boolean exists = Files.exists(csvFile);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            if (!exists) {
+                out.println(CSV_HEADER);
+            }
+            out.print(rows);
+        }
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
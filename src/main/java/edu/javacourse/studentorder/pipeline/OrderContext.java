@@ -0,0 +1,98 @@
+package edu.javacourse.studentorder.pipeline;
+
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.children.AnswerChildren;
+import edu.javacourse.studentorder.domain.register.AnswerCityRegister;
+import edu.javacourse.studentorder.domain.student.AnswerStudent;
+import edu.javacourse.studentorder.domain.wedding.AnswerWedding;
+
+// Travels through the stages; each stage fills its own answer, so no field is written by two threads
+public class OrderContext {
+
+    private final StudentOrder studentOrder;
+    private final long createdAt;
+    private AnswerCityRegister cityRegisterAnswer;
+    private AnswerWedding weddingAnswer;
+    private AnswerChildren childrenAnswer;
+    private AnswerStudent studentAnswer;
+    private String failedStage;
+    private Throwable error;
+
+    public OrderContext(StudentOrder studentOrder) {
+        this(studentOrder, 0);
+    }
+
+    // createdAt is a MetricRegistry.startTimer value, used for the end-to-end latency
+    public OrderContext(StudentOrder studentOrder, long createdAt) {
+        this.studentOrder = studentOrder;
+        this.createdAt = createdAt;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public StudentOrder getStudentOrder() {
+        return studentOrder;
+    }
+
+    public AnswerCityRegister getCityRegisterAnswer() {
+        return cityRegisterAnswer;
+    }
+
+    public void setCityRegisterAnswer(AnswerCityRegister cityRegisterAnswer) {
+        this.cityRegisterAnswer = cityRegisterAnswer;
+    }
+
+    public AnswerWedding getWeddingAnswer() {
+        return weddingAnswer;
+    }
+
+    public void setWeddingAnswer(AnswerWedding weddingAnswer) {
+        this.weddingAnswer = weddingAnswer;
+    }
+
+    public AnswerChildren getChildrenAnswer() {
+        return childrenAnswer;
+    }
+
+    public void setChildrenAnswer(AnswerChildren childrenAnswer) {
+        this.childrenAnswer = childrenAnswer;
+    }
+
+    public AnswerStudent getStudentAnswer() {
+        return studentAnswer;
+    }
+
+    public void setStudentAnswer(AnswerStudent studentAnswer) {
+        this.studentAnswer = studentAnswer;
+    }
+
+    public String getFailedStage() {
+        return failedStage;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    void fail(String stage, Throwable error) {
+        if (this.error == null) {
+            this.failedStage = stage;
+            this.error = error;
+        }
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderContext{" +
+                "studentOrderId=" + (studentOrder != null ? studentOrder.getStudentOrderId() : null) +
+                ", failedStage=" + failedStage +
+                ", error=" + error +
+                '}';
+    }
+}
@@ -0,0 +1,168 @@
+package edu.javacourse.studentorder.pipeline;
+
+import edu.javacourse.studentorder.metrics.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public class Stage {
+
+    private static final Logger logger = LoggerFactory.getLogger(Stage.class);
+
+    public interface Handler {
+        void handle(OrderContext ctx) throws Exception;
+    }
+
+    // Put once per worker behind the last real order; a worker that takes it exits
+    static final OrderContext POISON = new OrderContext(null);
+
+    private final String name;
+    private final int workers;
+    private final Handler handler;
+    private final boolean runOnError;
+    private final BlockingQueue<OrderContext> input;
+    private final List<Thread> threads = new ArrayList<>();
+    private CountDownLatch finished;
+    private Stage next;
+    private Consumer<OrderContext> done;
+    private final Histogram handleTime;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private volatile long startedAt;
+
+    Stage(String name, int workers, int queueSize, boolean runOnError, Handler handler, Histogram handleTime) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Stage " + name + " needs at least one worker: " + workers);
+        }
+        this.name = name;
+        this.workers = workers;
+        this.handler = handler;
+        this.runOnError = runOnError;
+        this.input = new ArrayBlockingQueue<>(queueSize);
+        this.handleTime = handleTime;
+    }
+
+    void setNext(Stage next) {
+        this.next = next;
+    }
+
+    // Called for every order leaving the last stage
+    void setDone(Consumer<OrderContext> done) {
+        this.done = done;
+    }
+
+    void start() {
+        finished = new CountDownLatch(workers);
+        startedAt = System.nanoTime();
+        for (int i = 1; i <= workers; i++) {
+            Thread t = new Thread(this::work, "stage-" + name + "-" + i);
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+    }
+
+    // Blocks while the queue is full, which is what slows the upstream stage down
+    void put(OrderContext ctx) throws InterruptedException {
+        input.put(ctx);
+    }
+
+    void drain() throws InterruptedException {
+        for (int i = 0; i < workers; i++) {
+            input.put(POISON);
+        }
+        finished.await();
+    }
+
+    void abort() {
+        threads.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                OrderContext ctx = input.take();
+                if (ctx == POISON) {
+                    break;
+                }
+                long start = System.nanoTime();
+                if (!ctx.isFailed() || runOnError) {
+                    try {
+                        handler.handle(ctx);
+                    } catch (Throwable ex) {
+                        // Errors too: a dead worker would stop draining its queue and stall the pipeline
+                        failed.increment();
+                        ctx.fail(name, ex);
+                        logger.error("Order {} failed at stage {}", ctx.getStudentOrder().getStudentOrderId(), name, ex);
+                    }
+                }
+                long spent = System.nanoTime() - start;
+                busyNanos.add(spent);
+                handleTime.record(spent);
+                processed.increment();
+                if (next != null) {
+                    next.put(ctx);
+                } else if (done != null) {
+                    done.accept(ctx);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            logger.warn("Stage {} worker interrupted", name);
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getQueueDepth() {
+        return input.size();
+    }
+
+    public int getQueueCapacity() {
+        return input.size() + input.remainingCapacity();
+    }
+
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    // Orders per second since the stage started
+    public double getThroughput() {
+        long elapsed = System.nanoTime() - startedAt;
+        return elapsed > 0 ? processed.sum() * 1e9 / elapsed : 0;
+    }
+
+    // Share of worker time spent in the handler; close to 1 means the stage is the bottleneck
+    public double getUtilization() {
+        long elapsed = System.nanoTime() - startedAt;
+        return elapsed > 0 ? (double) busyNanos.sum() / elapsed / workers : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: workers=%d, queue=%d/%d, processed=%d, failed=%d, %.1f/s, busy=%.0f%%",
+                name, workers, getQueueDepth(), getQueueCapacity(), getProcessedCount(), getFailedCount(),
+                getThroughput(), getUtilization() * 100);
+    }
+}
@@ -0,0 +1,163 @@
+package edu.javacourse.studentorder.pipeline;
+
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.metrics.Counter;
+import edu.javacourse.studentorder.metrics.Histogram;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public class ValidationPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationPipeline.class);
+
+    public interface OrderSource {
+        void read(Consumer<StudentOrder> sink) throws Exception;
+    }
+
+    private final int queueSize;
+    private final MetricRegistry metrics;
+    private final Histogram orderTime;
+    private final Counter ordersPassed;
+    private final Counter ordersFailed;
+    private final List<Stage> stages = new ArrayList<>();
+    private final LongAdder fetched = new LongAdder();
+    private long reportInterval;
+    private ScheduledExecutorService reporter;
+    private volatile long startedAt;
+    private boolean started;
+
+    public ValidationPipeline(int queueSize) {
+        this(queueSize, MetricRegistry.getDefault());
+    }
+
+    public ValidationPipeline(int queueSize, MetricRegistry metrics) {
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("Queue size must be positive: " + queueSize);
+        }
+        this.queueSize = queueSize;
+        this.metrics = metrics;
+        this.orderTime = metrics.timer("pipeline.order");
+        this.ordersPassed = metrics.counter("pipeline.order.passed");
+        this.ordersFailed = metrics.counter("pipeline.order.failed");
+    }
+
+    public ValidationPipeline addStage(String name, int workers, Stage.Handler handler) {
+        return addStage(name, workers, false, handler);
+    }
+
+    // runOnError stages also see orders that failed upstream, e.g. to release them
+    public ValidationPipeline addStage(String name, int workers, boolean runOnError, Stage.Handler handler) {
+        if (started) {
+            throw new IllegalStateException("Pipeline is already started");
+        }
+        Stage stage = new Stage(name, workers, queueSize, runOnError, handler,
+                metrics.timer("pipeline.stage." + name));
+        if (!stages.isEmpty()) {
+            Stage last = stages.get(stages.size() - 1);
+            last.setDone(null);
+            last.setNext(stage);
+        }
+        stage.setDone(this::complete);
+        stages.add(stage);
+        return this;
+    }
+
+    public void setReportInterval(long reportInterval) {
+        this.reportInterval = reportInterval;
+    }
+
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    public long getFetchedCount() {
+        return fetched.sum();
+    }
+
+    public double getFetchThroughput() {
+        long elapsed = System.nanoTime() - startedAt;
+        return elapsed > 0 ? fetched.sum() * 1e9 / elapsed : 0;
+    }
+
+    // Reads everything the source gives, then drains stage by stage; returns the number of orders fed in
+    public long run(OrderSource source) throws Exception {
+        start();
+        try {
+            source.read(this::submit);
+        } finally {
+            drain();
+        }
+        return fetched.sum();
+    }
+
+    void start() {
+        if (stages.isEmpty()) {
+            throw new IllegalStateException("Pipeline has no stages");
+        }
+        if (started) {
+            throw new IllegalStateException("Pipeline is already started");
+        }
+        started = true;
+        startedAt = System.nanoTime();
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            stages.get(i).start();
+        }
+        if (reportInterval > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "pipeline-report");
+                t.setDaemon(true);
+                return t;
+            });
+            reporter.scheduleAtFixedRate(this::report, reportInterval, reportInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void submit(StudentOrder so) {
+        try {
+            stages.get(0).put(new OrderContext(so, metrics.startTimer()));
+            fetched.increment();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting order " + so.getStudentOrderId(), ex);
+        }
+    }
+
+    private void complete(OrderContext ctx) {
+        orderTime.recordSince(ctx.getCreatedAt());
+        (ctx.isFailed() ? ordersFailed : ordersPassed).inc();
+    }
+
+    // A stage is closed only after the one before it has finished, so nothing is left in a queue
+    void drain() throws InterruptedException {
+        try {
+            for (Stage stage : stages) {
+                stage.drain();
+            }
+        } catch (InterruptedException ex) {
+            stages.forEach(Stage::abort);
+            throw ex;
+        } finally {
+            if (reporter != null) {
+                reporter.shutdownNow();
+            }
+            report();
+        }
+    }
+
+    public void report() {
+        logger.info("fetch: fetched={}, {}/s", fetched.sum(), String.format("%.1f", getFetchThroughput()));
+        for (Stage stage : stages) {
+            logger.info("{}", stage);
+        }
+    }
+}
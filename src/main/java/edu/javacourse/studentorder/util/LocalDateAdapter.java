@@ -7,14 +7,15 @@ import java.time.format.DateTimeFormatter;
 public class LocalDateAdapter extends XmlAdapter<String, LocalDate> {
 
     public static final String PATTERN = "dd.MM.yyyy";
+    public static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(PATTERN);
 
     @Override
     public LocalDate unmarshal(String s) throws Exception {
-        return LocalDate.parse(s, DateTimeFormatter.ofPattern(PATTERN));
+        return LocalDate.parse(s, FORMATTER);
     }
 
     @Override
     public String marshal(LocalDate localDate) throws Exception {
-        return localDate.format(DateTimeFormatter.ofPattern(PATTERN));
+        return localDate.format(FORMATTER);
     }
 }
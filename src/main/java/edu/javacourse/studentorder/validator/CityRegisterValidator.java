@@ -1,53 +1,227 @@
 package edu.javacourse.studentorder.validator;
 
+import edu.javacourse.studentorder.config.Config;
 import edu.javacourse.studentorder.domain.Person;
 import edu.javacourse.studentorder.domain.register.AnswerCityRegister;
-import edu.javacourse.studentorder.domain.Child;
 import edu.javacourse.studentorder.domain.register.AnswerCityRegisterItem;
 import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
 import edu.javacourse.studentorder.domain.StudentOrder;
 import edu.javacourse.studentorder.exception.CityRegisterException;
+import edu.javacourse.studentorder.metrics.Counter;
+import edu.javacourse.studentorder.metrics.Histogram;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
+import edu.javacourse.studentorder.validator.register.CachingCityRegisterChecker;
+import edu.javacourse.studentorder.validator.register.CircuitBreaker;
 import edu.javacourse.studentorder.validator.register.CityRegisterChecker;
 import edu.javacourse.studentorder.validator.register.RealCityRegisterChecker;
+import edu.javacourse.studentorder.validator.register.ResilientCityRegisterChecker;
+import edu.javacourse.studentorder.validator.register.RetryPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class CityRegisterValidator {
 
+    private static final Logger logger = LoggerFactory.getLogger(CityRegisterValidator.class);
+
     public static final String IN_CODE = "NO_GRN";
+    public static final String TIMEOUT_CODE = "TIMEOUT";
+
+    private static final MetricRegistry metrics = MetricRegistry.getDefault();
+    private static final Histogram checkTime = metrics.timer("cr.check");
+    private static final Counter answerYes = metrics.counter("cr.answer.yes");
+    private static final Counter answerNo = metrics.counter("cr.answer.no");
+    private static final Counter answerError = metrics.counter("cr.answer.error");
+
+    private static class FanOutHolder {
+        private static final ExecutorService EXECUTOR = buildExecutor(
+                Config.getInt(Config.CR_FANOUT_THREADS, 20));
+    }
 
     private CityRegisterChecker personChecker;
+    // null means one batch call per order, otherwise every person is checked as a separate task
+    private ExecutorService executor;
+    private long deadline;
 
     public CityRegisterValidator() {
-        personChecker = new RealCityRegisterChecker();
+        this.personChecker = buildChecker();
+        if ("fanout".equals(Config.getProperty(Config.CR_MODE, "batch"))) {
+            this.executor = FanOutHolder.EXECUTOR;
+            this.deadline = Config.getLong(Config.CR_FANOUT_DEADLINE, 5000);
+        }
+    }
+
+    public CityRegisterValidator(CityRegisterChecker personChecker) {
+        this.personChecker = personChecker;
+    }
+
+    public CityRegisterValidator(CityRegisterChecker personChecker, ExecutorService executor, long deadline) {
+        this.personChecker = personChecker;
+        this.executor = executor;
+        this.deadline = deadline;
+    }
+
+    public static ExecutorService buildExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "city-register-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Cache outermost, so a hit never waits on the breaker or the bulkhead
+    private static CityRegisterChecker buildChecker() {
+        CityRegisterChecker checker = new RealCityRegisterChecker();
+        if (Config.getBoolean(Config.CR_RESILIENCE_ENABLED, false)) {
+            CircuitBreaker breaker = new CircuitBreaker(
+                    Config.getInt(Config.CR_BREAKER_WINDOW_SIZE, 50),
+                    Config.getInt(Config.CR_BREAKER_MIN_CALLS, 20),
+                    (float) Config.getDouble(Config.CR_BREAKER_FAILURE_RATE, 50),
+                    Config.getLong(Config.CR_BREAKER_SLOW_CALL_TIME, 3000),
+                    (float) Config.getDouble(Config.CR_BREAKER_SLOW_CALL_RATE, 80),
+                    Config.getLong(Config.CR_BREAKER_OPEN_TIME, 30000),
+                    Config.getInt(Config.CR_BREAKER_HALF_OPEN_CALLS, 5));
+            RetryPolicy retryPolicy = new RetryPolicy(
+                    Config.getInt(Config.CR_RETRY_MAX_ATTEMPTS, 3),
+                    Config.getLong(Config.CR_RETRY_BASE_DELAY, 100),
+                    Config.getLong(Config.CR_RETRY_MAX_DELAY, 2000),
+                    new HashSet<>(Arrays.asList(
+                            Config.getProperty(Config.CR_RETRY_CODES, "IO,429,502,503,504").split("\\s*,\\s*"))));
+            ResilientCityRegisterChecker resilient = new ResilientCityRegisterChecker(checker, breaker,
+                    Config.getInt(Config.CR_BULKHEAD_MAX_CONCURRENT, 20),
+                    Config.getLong(Config.CR_BULKHEAD_MAX_WAIT, 100),
+                    retryPolicy);
+            resilient.registerMetrics(metrics);
+            checker = resilient;
+        }
+        if (Config.getBoolean(Config.CR_CACHE_ENABLED, false)) {
+            checker = new CachingCityRegisterChecker(checker,
+                    Config.getInt(Config.CR_CACHE_MAX_SIZE, 10000),
+                    Config.getLong(Config.CR_CACHE_TTL, 3600000),
+                    Config.getBoolean(Config.CR_CACHE_NEGATIVE, false));
+        }
+        return checker;
     }
 
     public AnswerCityRegister checkCityRegister(StudentOrder so) {
-        AnswerCityRegister ans = new AnswerCityRegister();
-        ans.addItem(checkPerson(so.getHusband()));
-        ans.addItem(checkPerson(so.getWife()));
-        for (Child child : so.getChildren()) {
-            ans.addItem(checkPerson(child));
+        long start = metrics.startTimer();
+        AnswerCityRegister ans = check(so);
+        checkTime.recordSince(start);
+        if (metrics.isEnabled()) {
+            for (AnswerCityRegisterItem item : ans.getItems()) {
+                switch (item.getStatus()) {
+                    case YES:
+                        answerYes.inc();
+                        break;
+                    case NO:
+                        answerNo.inc();
+                        break;
+                    default:
+                        answerError.inc();
+                }
+            }
         }
         return ans;
     }
 
-    private AnswerCityRegisterItem checkPerson(Person person) {
-        AnswerCityRegisterItem.CityStatus status = null;
-        AnswerCityRegisterItem.CityError error = null;
+    private AnswerCityRegister check(StudentOrder so) {
+        List<Person> persons = new ArrayList<>();
+        persons.add(so.getHusband());
+        persons.add(so.getWife());
+        if (so.getChildren() != null) {
+            persons.addAll(so.getChildren());
+        }
+        if (executor != null) {
+            return checkConcurrently(persons);
+        }
+
+        AnswerCityRegister ans = new AnswerCityRegister();
         try {
-            CityRegisterResponse tmp = personChecker.checkPerson(person);
-           status =  tmp.isRegistered() ?
-                   AnswerCityRegisterItem.CityStatus.YES :
-                   AnswerCityRegisterItem.CityStatus.NO;
+            List<CityRegisterResponse> responses = personChecker.checkPersons(persons);
+            for (int i = 0; i < persons.size(); i++) {
+                ans.addItem(buildItem(persons.get(i), responses.get(i)));
+            }
         } catch (CityRegisterException ex) {
-            ex.printStackTrace(System.out);
-            status = AnswerCityRegisterItem.CityStatus.ERROR;
-            error = new AnswerCityRegisterItem.CityError(ex.getCode(), ex.getMessage());
+            // Open circuit and full bulkhead are expected under load, no stack trace for them
+            if (CityRegisterException.CIRCUIT_OPEN.equals(ex.getCode())
+                    || CityRegisterException.BULKHEAD_FULL.equals(ex.getCode())) {
+                logger.warn("Order {} not checked: {}", so.getStudentOrderId(), ex.getMessage());
+            } else {
+                logger.error("Order {} city register check failed: {}", so.getStudentOrderId(), ex.getCode(), ex);
+            }
+            for (Person person : persons) {
+                ans.addItem(buildError(person, ex.getCode(), ex.getMessage()));
+            }
         } catch (Exception ex) {
-            ex.printStackTrace(System.out);
-            status = AnswerCityRegisterItem.CityStatus.ERROR;
-            error = new AnswerCityRegisterItem.CityError(IN_CODE, ex.getMessage());
+            logger.error("Order {} city register check failed", so.getStudentOrderId(), ex);
+            for (Person person : persons) {
+                ans.addItem(buildError(person, IN_CODE, ex.getMessage()));
+            }
+        }
+        return ans;
+    }
+
+    // Items keep the husband, wife, children order whatever order the answers arrive in
+    private AnswerCityRegister checkConcurrently(List<Person> persons) {
+        List<Future<CityRegisterResponse>> futures = new ArrayList<>(persons.size());
+        for (Person person : persons) {
+            futures.add(executor.submit(() -> personChecker.checkPerson(person)));
+        }
+        long deadlineAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline);
+
+        AnswerCityRegister ans = new AnswerCityRegister();
+        boolean interrupted = false;
+        for (int i = 0; i < persons.size(); i++) {
+            Person person = persons.get(i);
+            Future<CityRegisterResponse> future = futures.get(i);
+            if (interrupted) {
+                future.cancel(true);
+                ans.addItem(buildError(person, IN_CODE, "Interrupted"));
+                continue;
+            }
+            try {
+                long left = Math.max(deadlineAt - System.nanoTime(), 0);
+                ans.addItem(buildItem(person, future.get(left, TimeUnit.NANOSECONDS)));
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+                logger.warn("City register gave no answer for {} in {} ms", person.getSurName(), deadline);
+                ans.addItem(buildError(person, TIMEOUT_CODE, "No answer in " + deadline + " ms"));
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                String code = cause instanceof CityRegisterException ?
+                        ((CityRegisterException) cause).getCode() : IN_CODE;
+                ans.addItem(buildError(person, code, cause.getMessage()));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+                future.cancel(true);
+                ans.addItem(buildError(person, IN_CODE, "Interrupted"));
+            }
         }
-        AnswerCityRegisterItem ans = new AnswerCityRegisterItem(status, person, error);
         return ans;
     }
+
+    private AnswerCityRegisterItem buildItem(Person person, CityRegisterResponse response) {
+        AnswerCityRegisterItem.CityStatus status = response.isRegistered() ?
+                AnswerCityRegisterItem.CityStatus.YES :
+                AnswerCityRegisterItem.CityStatus.NO;
+        return new AnswerCityRegisterItem(status, person);
+    }
+
+    private AnswerCityRegisterItem buildError(Person person, String code, String message) {
+        AnswerCityRegisterItem.CityError error = new AnswerCityRegisterItem.CityError(code, message);
+        return new AnswerCityRegisterItem(AnswerCityRegisterItem.CityStatus.ERROR, person, error);
+    }
 }
@@ -0,0 +1,41 @@
+package edu.javacourse.studentorder.validator;
+
+import edu.javacourse.studentorder.domain.StudentOrder;
+
+public class OrderCheckResult<T> {
+
+    private final StudentOrder studentOrder;
+    private final T answer;
+    private final Throwable error;
+
+    public OrderCheckResult(StudentOrder studentOrder, T answer, Throwable error) {
+        this.studentOrder = studentOrder;
+        this.answer = answer;
+        this.error = error;
+    }
+
+    public StudentOrder getStudentOrder() {
+        return studentOrder;
+    }
+
+    public T getAnswer() {
+        return answer;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderCheckResult{" +
+                "studentOrderId=" + studentOrder.getStudentOrderId() +
+                ", answer=" + answer +
+                ", error=" + error +
+                '}';
+    }
+}
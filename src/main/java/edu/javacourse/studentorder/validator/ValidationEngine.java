@@ -0,0 +1,105 @@
+package edu.javacourse.studentorder.validator;
+
+import edu.javacourse.studentorder.domain.StudentOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ValidationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationEngine.class);
+
+    public interface OrderCheck<T> {
+        T check(StudentOrder so) throws Exception;
+    }
+
+    private final int parallelism;
+    private final boolean virtualThreads;
+
+    public ValidationEngine(int parallelism, boolean virtualThreads) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        this.virtualThreads = virtualThreads;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public <T> List<OrderCheckResult<T>> checkAll(List<StudentOrder> orders, OrderCheck<T> check) {
+        List<OrderCheckResult<T>> results = new ArrayList<>(orders.size());
+        if (orders.isEmpty()) {
+            return results;
+        }
+        Semaphore slots = new Semaphore(parallelism);
+        ExecutorService executor = createExecutor(Math.min(parallelism, orders.size()));
+        try {
+            List<Future<T>> futures = new ArrayList<>(orders.size());
+            for (StudentOrder so : orders) {
+                futures.add(executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return check.check(so);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < orders.size(); i++) {
+                results.add(collect(orders.get(i), futures.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    private <T> OrderCheckResult<T> collect(StudentOrder so, Future<T> future) {
+        try {
+            return new OrderCheckResult<>(so, future.get(), null);
+        } catch (ExecutionException ex) {
+            logger.error("Order {} check failed", so.getStudentOrderId(), ex.getCause());
+            return new OrderCheckResult<>(so, null, ex.getCause());
+        } catch (CancellationException ex) {
+            return new OrderCheckResult<>(so, null, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return new OrderCheckResult<>(so, null, ex);
+        }
+    }
+
+    private ExecutorService createExecutor(int threads) {
+        if (virtualThreads) {
+            try {
+                Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) m.invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                logger.warn("Virtual threads are not available, using platform threads");
+            }
+        }
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "order-check-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+}
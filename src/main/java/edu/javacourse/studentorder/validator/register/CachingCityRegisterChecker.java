@@ -0,0 +1,238 @@
+package edu.javacourse.studentorder.validator.register;
+
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.register.CityRegisterRequest;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import edu.javacourse.studentorder.exception.CityRegisterException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Cached and shared responses never leave the class: every caller gets its own copy
+public class CachingCityRegisterChecker implements CityRegisterChecker {
+
+    private static class CacheEntry {
+        private final CityRegisterResponse response;
+        private final long expiresAt;
+
+        CacheEntry(CityRegisterResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final CityRegisterChecker delegate;
+    private final long ttl;
+    private final boolean negativeCaching;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<CityRegisterRequest, CacheEntry> cache;
+    private final ConcurrentHashMap<CityRegisterRequest, CompletableFuture<CityRegisterResponse>> inFlight =
+            new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingCityRegisterChecker(CityRegisterChecker delegate, int maxSize, long ttl, boolean negativeCaching) {
+        this(delegate, maxSize, ttl, negativeCaching, System::currentTimeMillis);
+    }
+
+    CachingCityRegisterChecker(CityRegisterChecker delegate, int maxSize, long ttl, boolean negativeCaching,
+                               LongSupplier clock) {
+        this.delegate = delegate;
+        this.ttl = ttl;
+        this.negativeCaching = negativeCaching;
+        this.clock = clock;
+        this.cache = new LinkedHashMap<CityRegisterRequest, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CityRegisterRequest, CacheEntry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public CityRegisterResponse checkPerson(Person person) throws CityRegisterException {
+        CityRegisterRequest key = new CityRegisterRequest(person);
+        CityRegisterResponse cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<CityRegisterResponse> future = new CompletableFuture<>();
+        CompletableFuture<CityRegisterResponse> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            joined.increment();
+            return await(running);
+        }
+        try {
+            CityRegisterResponse response = delegate.checkPerson(person);
+            CityRegisterResponse shared = copy(response);
+            store(key, shared);
+            future.complete(shared);
+            return response;
+        } catch (Throwable ex) {
+            // Errors too, or the joined callers would wait forever
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @Override
+    public List<CityRegisterResponse> checkPersons(List<? extends Person> persons) throws CityRegisterException {
+        List<CityRegisterRequest> keys = new ArrayList<>(persons.size());
+        List<CompletableFuture<CityRegisterResponse>> answers = new ArrayList<>(persons.size());
+        Map<CityRegisterRequest, CompletableFuture<CityRegisterResponse>> own = new LinkedHashMap<>();
+        List<Person> toCheck = new ArrayList<>();
+
+        for (Person person : persons) {
+            CityRegisterRequest key = new CityRegisterRequest(person);
+            keys.add(key);
+            CityRegisterResponse cached = lookup(key);
+            if (cached != null) {
+                answers.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            CompletableFuture<CityRegisterResponse> mine = own.get(key);
+            if (mine != null) {
+                answers.add(mine);
+                continue;
+            }
+            CompletableFuture<CityRegisterResponse> future = new CompletableFuture<>();
+            CompletableFuture<CityRegisterResponse> running = inFlight.putIfAbsent(key, future);
+            if (running != null) {
+                joined.increment();
+                answers.add(running);
+            } else {
+                own.put(key, future);
+                toCheck.add(person);
+                answers.add(future);
+            }
+        }
+
+        if (!toCheck.isEmpty()) {
+            try {
+                List<CityRegisterResponse> responses = delegate.checkPersons(toCheck);
+                int i = 0;
+                for (Map.Entry<CityRegisterRequest, CompletableFuture<CityRegisterResponse>> e : own.entrySet()) {
+                    CityRegisterResponse response = copy(responses.get(i++));
+                    store(e.getKey(), response);
+                    e.getValue().complete(response);
+                }
+            } catch (Throwable ex) {
+                own.values().forEach(f -> f.completeExceptionally(ex));
+                throw ex;
+            } finally {
+                own.forEach(inFlight::remove);
+            }
+        }
+
+        List<CityRegisterResponse> result = new ArrayList<>(persons.size());
+        for (CompletableFuture<CityRegisterResponse> answer : answers) {
+            result.add(await(answer));
+        }
+        return result;
+    }
+
+    private CityRegisterResponse lookup(CityRegisterRequest key) {
+        synchronized (cache) {
+            CacheEntry entry = cache.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > clock.getAsLong()) {
+                    hits.increment();
+                    return copy(entry.response);
+                }
+                cache.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void store(CityRegisterRequest key, CityRegisterResponse response) {
+        if (!response.isRegistered() && !negativeCaching) {
+            return;
+        }
+        synchronized (cache) {
+            cache.put(key, new CacheEntry(response, clock.getAsLong() + ttl));
+        }
+    }
+
+    private CityRegisterResponse await(CompletableFuture<CityRegisterResponse> future) throws CityRegisterException {
+        try {
+            return copy(future.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CityRegisterException(CityRegisterException.INTERRUPTED,
+                    "Interrupted while waiting for city register", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof CityRegisterException) {
+                throw (CityRegisterException) cause;
+            }
+            throw new CityRegisterException(CityRegisterException.GENERAL_ERROR, cause.getMessage(), cause);
+        }
+    }
+
+    private static CityRegisterResponse copy(CityRegisterResponse response) {
+        CityRegisterResponse copy = new CityRegisterResponse();
+        copy.setRegistered(response.isRegistered());
+        copy.setTemporal(response.isTemporal());
+        return copy;
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public int getSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getJoinedCount() {
+        return joined.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "CachingCityRegisterChecker{" +
+                "size=" + getSize() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", joined=" + getJoinedCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+}
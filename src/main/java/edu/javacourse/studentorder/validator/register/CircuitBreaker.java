@@ -0,0 +1,184 @@
+package edu.javacourse.studentorder.validator.register;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN;
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final int minCalls;
+    private final float failureRateThreshold;
+    private final long slowCallNanos;
+    private final float slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    // Outcomes of the last calls, FAILED and SLOW bits per call
+    private final byte[] window;
+    private int position;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsPassed;
+
+    private long notPermitted;
+    private long openCount;
+
+    public CircuitBreaker(int windowSize, int minCalls, float failureRateThreshold, long slowCallTime,
+                          float slowCallRateThreshold, long openTime, int halfOpenCalls) {
+        this(windowSize, minCalls, failureRateThreshold, slowCallTime, slowCallRateThreshold, openTime,
+                halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(int windowSize, int minCalls, float failureRateThreshold, long slowCallTime,
+                   float slowCallRateThreshold, long openTime, int halfOpenCalls, LongSupplier clock) {
+        if (windowSize < 1 || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("Window size and half-open calls must be positive");
+        }
+        this.window = new byte[windowSize];
+        this.minCalls = Math.min(Math.max(minCalls, 1), windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallTime);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openTime);
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                notPermitted++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsPassed = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenCalls) {
+                notPermitted++;
+                return false;
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    // Gives back a permit that did not turn into a call
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && trialsStarted > 0) {
+            trialsStarted--;
+        }
+    }
+
+    public synchronized void onSuccess(long durationNanos) {
+        record(false, durationNanos >= slowCallNanos);
+    }
+
+    public synchronized void onError(long durationNanos) {
+        record(true, durationNanos >= slowCallNanos);
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            // A trial that fails or is slow means the service is not back yet
+            if (failed || slow) {
+                open();
+            } else if (++trialsPassed >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+        byte old = window[position];
+        if (calls == window.length) {
+            failures -= old & FAILED;
+            slowCalls -= (old & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        window[position] = outcome;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+        position = (position + 1) % window.length;
+
+        if (calls >= minCalls && (getFailureRate() >= failureRateThreshold
+                || getSlowCallRate() >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    private void open() {
+        logger.warn("Circuit opened from {}: failureRate={}, slowCallRate={}",
+                state, getFailureRate(), getSlowCallRate());
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        openCount++;
+    }
+
+    private void close() {
+        logger.info("Circuit closed after {} successful trial calls", trialsPassed);
+        state = State.CLOSED;
+        position = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // Percent of failed calls in the window
+    public synchronized float getFailureRate() {
+        return calls == 0 ? 0 : failures * 100f / calls;
+    }
+
+    public synchronized float getSlowCallRate() {
+        return calls == 0 ? 0 : slowCalls * 100f / calls;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return calls;
+    }
+
+    public synchronized long getNotPermittedCount() {
+        return notPermitted;
+    }
+
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker{" +
+                "state=" + state +
+                ", failureRate=" + getFailureRate() +
+                ", slowCallRate=" + getSlowCallRate() +
+                ", calls=" + calls +
+                ", notPermitted=" + notPermitted +
+                ", opened=" + openCount +
+                '}';
+    }
+}
@@ -4,8 +4,20 @@ import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
 import edu.javacourse.studentorder.domain.Person;
 import edu.javacourse.studentorder.exception.CityRegisterException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface CityRegisterChecker {
 
     CityRegisterResponse checkPerson(Person person)
             throws CityRegisterException;
+
+    default List<CityRegisterResponse> checkPersons(List<? extends Person> persons)
+            throws CityRegisterException {
+        List<CityRegisterResponse> result = new ArrayList<>(persons.size());
+        for (Person person : persons) {
+            result.add(checkPerson(person));
+        }
+        return result;
+    }
 }
@@ -1,32 +1,122 @@
 package edu.javacourse.studentorder.validator.register;
 
 import edu.javacourse.studentorder.config.Config;
-import edu.javacourse.studentorder.domain.register.CityRegisterRequest;
 import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
 import edu.javacourse.studentorder.domain.Person;
 import edu.javacourse.studentorder.exception.CityRegisterException;
+import edu.javacourse.studentorder.validator.register.codec.CityRegisterCodec;
+import edu.javacourse.studentorder.validator.register.codec.MalformedJsonException;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.List;
 
 public class RealCityRegisterChecker implements CityRegisterChecker {
 
+    private static class ClientHolder {
+        private static final Client CLIENT = buildClient(
+                Config.getInt(Config.CR_CONNECT_TIMEOUT, 5000),
+                Config.getInt(Config.CR_READ_TIMEOUT, 10000),
+                Config.getInt(Config.CR_POOL_MAX_TOTAL, 50),
+                Config.getInt(Config.CR_POOL_MAX_PER_ROUTE, 20));
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(CLIENT::close, "city-register-client-shutdown"));
+        }
+    }
+
+    private interface Encoder {
+        Entity<?> encode() throws Exception;
+    }
+
+    private interface Decoder<T> {
+        T decode(Response response) throws Exception;
+    }
+
+    private final WebTarget target;
+    private final WebTarget batchTarget;
+    private final CityRegisterCodec codec;
+
+    public RealCityRegisterChecker() {
+        this(ClientHolder.CLIENT, Config.getProperty(Config.CR_URL), Config.getProperty(Config.CR_BATCH_URL));
+    }
+
+    public RealCityRegisterChecker(Client client, String url, String batchUrl) {
+        this(client, url, batchUrl, CityRegisterCodec.fromValue(Config.getProperty(Config.CR_CODEC, "streaming")));
+    }
+
+    public RealCityRegisterChecker(Client client, String url, String batchUrl, CityRegisterCodec codec) {
+        this.target = client.target(url);
+        this.batchTarget = client.target(batchUrl);
+        this.codec = codec;
+    }
+
+    public static Client buildClient(int connectTimeout, int readTimeout, int maxTotal, int maxPerRoute) {
+        PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager();
+        cm.setMaxTotal(maxTotal);
+        cm.setDefaultMaxPerRoute(maxPerRoute);
+
+        ClientConfig cc = new ClientConfig();
+        cc.connectorProvider(new ApacheConnectorProvider());
+        cc.property(ApacheClientProperties.CONNECTION_MANAGER, cm);
+        cc.property(ClientProperties.CONNECT_TIMEOUT, connectTimeout);
+        cc.property(ClientProperties.READ_TIMEOUT, readTimeout);
+        return ClientBuilder.newClient(cc);
+    }
+
     public CityRegisterResponse checkPerson(Person person)
             throws CityRegisterException {
+        return post(target, () -> codec.encode(person), codec::decode);
+    }
+
+    @Override
+    public List<CityRegisterResponse> checkPersons(List<? extends Person> persons)
+            throws CityRegisterException {
+        List<CityRegisterResponse> result = post(batchTarget, () -> codec.encodeBatch(persons), codec::decodeBatch);
+        if (result == null || result.size() != persons.size()) {
+            throw new CityRegisterException(CityRegisterException.GENERAL_ERROR, "Batch answer size " +
+                    (result == null ? 0 : result.size()) + " does not match request size " + persons.size());
+        }
+        return result;
+    }
+
+    private <T> T post(WebTarget target, Encoder request, Decoder<T> answer)
+            throws CityRegisterException {
+        Response response = null;
         try {
-            CityRegisterRequest request = new CityRegisterRequest(person);
-
-            Client client = ClientBuilder.newClient();
-            CityRegisterResponse response = client.target(
-                    Config.getProperty(Config.CR_URL))
-                    .request(MediaType.APPLICATION_JSON)
-                    .post(Entity.entity(request, MediaType.APPLICATION_JSON))
-                    .readEntity(CityRegisterResponse.class);
-            return response;
+            response = target.request(MediaType.APPLICATION_JSON).post(request.encode());
+            if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+                throw new CityRegisterException(String.valueOf(response.getStatus()),
+                        "City register answered " + response.getStatusInfo().getReasonPhrase());
+            }
+            return answer.decode(response);
+        } catch (CityRegisterException ex) {
+            throw ex;
+        } catch (ProcessingException ex) {
+            // Connect/read timeouts and broken connections
+            throw new CityRegisterException(CityRegisterException.TRANSPORT_ERROR, ex.getMessage(), ex);
+        } catch (MalformedJsonException ex) {
+            throw new CityRegisterException(CityRegisterException.GENERAL_ERROR, ex.getMessage(), ex);
+        } catch (IOException ex) {
+            // A streaming codec reads the body itself, so timeouts while reading surface here
+            throw new CityRegisterException(CityRegisterException.TRANSPORT_ERROR, ex.getMessage(), ex);
         } catch (Exception ex) {
-            throw new CityRegisterException("1", ex.getMessage(), ex);
+            throw new CityRegisterException(CityRegisterException.GENERAL_ERROR, ex.getMessage(), ex);
+        } finally {
+            if (response != null) {
+                response.close();
+            }
         }
     }
 }
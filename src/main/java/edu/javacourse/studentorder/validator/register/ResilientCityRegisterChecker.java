@@ -0,0 +1,172 @@
+package edu.javacourse.studentorder.validator.register;
+
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import edu.javacourse.studentorder.exception.CityRegisterException;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ResilientCityRegisterChecker implements CityRegisterChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientCityRegisterChecker.class);
+
+    private interface Call<T> {
+        T run() throws CityRegisterException;
+    }
+
+    private final CityRegisterChecker delegate;
+    private final CircuitBreaker breaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long bulkheadWait;
+    private final RetryPolicy retryPolicy;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder bulkheadRejected = new LongAdder();
+
+    public ResilientCityRegisterChecker(CityRegisterChecker delegate, CircuitBreaker breaker,
+                                        int maxConcurrent, long bulkheadWait, RetryPolicy retryPolicy) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.bulkhead = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.bulkheadWait = bulkheadWait;
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Override
+    public CityRegisterResponse checkPerson(Person person) throws CityRegisterException {
+        return execute(() -> delegate.checkPerson(person));
+    }
+
+    @Override
+    public List<CityRegisterResponse> checkPersons(List<? extends Person> persons) throws CityRegisterException {
+        return execute(() -> delegate.checkPersons(persons));
+    }
+
+    private <T> T execute(Call<T> call) throws CityRegisterException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attempt(call);
+            } catch (CityRegisterException ex) {
+                if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(ex)) {
+                    throw ex;
+                }
+                long delay = retryPolicy.delay(attempt);
+                logger.debug("City register attempt {} failed with {}, retry in {} ms", attempt, ex.getCode(), delay);
+                retries.increment();
+                pause(delay);
+            }
+        }
+    }
+
+    private <T> T attempt(Call<T> call) throws CityRegisterException {
+        if (!breaker.tryAcquire()) {
+            throw new CityRegisterException(CityRegisterException.CIRCUIT_OPEN, "City register circuit is open");
+        }
+        try {
+            if (!bulkhead.tryAcquire(bulkheadWait, TimeUnit.MILLISECONDS)) {
+                breaker.release();
+                bulkheadRejected.increment();
+                throw new CityRegisterException(CityRegisterException.BULKHEAD_FULL,
+                        "More than " + maxConcurrent + " city register calls in progress");
+            }
+        } catch (InterruptedException ex) {
+            breaker.release();
+            Thread.currentThread().interrupt();
+            throw new CityRegisterException(CityRegisterException.INTERRUPTED, "Interrupted", ex);
+        }
+
+        calls.increment();
+        long start = System.nanoTime();
+        try {
+            T result = call.run();
+            breaker.onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (CityRegisterException ex) {
+            if (isServiceFailure(ex)) {
+                breaker.onError(System.nanoTime() - start);
+            } else {
+                breaker.onSuccess(System.nanoTime() - start);
+            }
+            throw ex;
+        } catch (RuntimeException | Error ex) {
+            // Recorded for errors too, or a half-open trial would never be given back
+            breaker.onError(System.nanoTime() - start);
+            throw ex;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    // A 4xx answer is about the request, the service itself is fine; 429 is the service pushing back
+    private boolean isServiceFailure(CityRegisterException ex) {
+        String code = ex.getCode();
+        return code == null || !code.startsWith("4") || code.equals("429");
+    }
+
+    private void pause(long delay) throws CityRegisterException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CityRegisterException(CityRegisterException.INTERRUPTED, "Interrupted", ex);
+        }
+    }
+
+    // Breaker state as its ordinal: 0 closed, 1 open, 2 half-open. Rates are percent of the breaker window,
+    // the rest are totals since start
+    public void registerMetrics(MetricRegistry metrics) {
+        metrics.gauge("cr.breaker.state", () -> breaker.getState().ordinal());
+        metrics.gauge("cr.breaker.failureRate", breaker::getFailureRate);
+        metrics.gauge("cr.breaker.slowCallRate", breaker::getSlowCallRate);
+        metrics.gauge("cr.breaker.notPermitted", breaker::getNotPermittedCount);
+        metrics.gauge("cr.breaker.opened", breaker::getOpenCount);
+        metrics.gauge("cr.bulkhead.rejected", this::getBulkheadRejectedCount);
+        metrics.gauge("cr.bulkhead.active", this::getActiveCalls);
+        metrics.gauge("cr.calls", this::getCallCount);
+        metrics.gauge("cr.retries", this::getRetryCount);
+    }
+
+    public CircuitBreaker.State getState() {
+        return breaker.getState();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getBulkheadRejectedCount() {
+        return bulkheadRejected.sum();
+    }
+
+    public int getActiveCalls() {
+        return maxConcurrent - bulkhead.availablePermits();
+    }
+
+    @Override
+    public String toString() {
+        return "ResilientCityRegisterChecker{" +
+                "breaker=" + breaker +
+                ", calls=" + getCallCount() +
+                ", retries=" + getRetryCount() +
+                ", bulkheadRejected=" + getBulkheadRejectedCount() +
+                ", active=" + getActiveCalls() +
+                '}';
+    }
+}
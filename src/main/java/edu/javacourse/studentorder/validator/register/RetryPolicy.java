@@ -0,0 +1,40 @@
+package edu.javacourse.studentorder.validator.register;
+
+import edu.javacourse.studentorder.exception.CityRegisterException;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final Set<String> retryableCodes;
+
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay, Set<String> retryableCodes) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.retryableCodes = Collections.unmodifiableSet(new HashSet<>(retryableCodes));
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isRetryable(CityRegisterException ex) {
+        return ex.getCode() != null && retryableCodes.contains(ex.getCode());
+    }
+
+    // Full jitter: anywhere between zero and the exponential cap, so retrying callers do not line up
+    public long delay(int attempt) {
+        long cap = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,30 @@
+package edu.javacourse.studentorder.validator.register.codec;
+
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.List;
+
+public interface CityRegisterCodec {
+
+    Entity<?> encode(Person person) throws IOException;
+
+    Entity<?> encodeBatch(List<? extends Person> persons) throws IOException;
+
+    CityRegisterResponse decode(Response response) throws IOException;
+
+    List<CityRegisterResponse> decodeBatch(Response response) throws IOException;
+
+    static CityRegisterCodec fromValue(String value) {
+        if ("moxy".equalsIgnoreCase(value)) {
+            return new MoxyCityRegisterCodec();
+        }
+        if ("streaming".equalsIgnoreCase(value)) {
+            return new StreamingCityRegisterCodec();
+        }
+        throw new IllegalArgumentException("Unknown city register codec: " + value);
+    }
+}
@@ -0,0 +1,294 @@
+package edu.javacourse.studentorder.validator.register.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Pull parser over a UTF-8 stream: callers walk the document with begin/next/skip calls, nothing is
+// materialized beyond the current name or string value
+public class JsonReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END
+    }
+
+    private final InputStream in;
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+    private byte[] text = new byte[64];
+
+    public JsonReader(InputStream in) {
+        this(in, new byte[1024]);
+    }
+
+    public JsonReader(InputStream in, byte[] buffer) {
+        this.in = in;
+        this.buf = buffer;
+    }
+
+    public Token peek() throws IOException {
+        int c = skipSpace();
+        switch (c) {
+            case -1:
+                return Token.END;
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                return Token.BOOLEAN;
+            case 'n':
+                return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw syntax("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    public void beginObject() throws IOException {
+        expect('{');
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+    }
+
+    public void beginArray() throws IOException {
+        expect('[');
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+    }
+
+    // True while the current object or array has more members; consumes the separating comma
+    public boolean hasNext() throws IOException {
+        int c = skipSpace();
+        if (c == ',') {
+            pos++;
+            c = skipSpace();
+        }
+        return c != '}' && c != ']' && c != -1;
+    }
+
+    public String nextName() throws IOException {
+        String name = nextString();
+        expect(':');
+        return name;
+    }
+
+    public String nextString() throws IOException {
+        expect('"');
+        int len = 0;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw syntax("Unterminated string");
+            }
+            if (c == '"') {
+                break;
+            }
+            if (len + 4 > text.length) {
+                text = Arrays.copyOf(text, text.length * 2);
+            }
+            if (c != '\\') {
+                text[len++] = (byte) c;
+                continue;
+            }
+            int e = read();
+            switch (e) {
+                case 'n':
+                    text[len++] = '\n';
+                    break;
+                case 't':
+                    text[len++] = '\t';
+                    break;
+                case 'r':
+                    text[len++] = '\r';
+                    break;
+                case 'b':
+                    text[len++] = '\b';
+                    break;
+                case 'f':
+                    text[len++] = '\f';
+                    break;
+                case 'u':
+                    len = appendUtf8(len, readHex());
+                    break;
+                case -1:
+                    throw syntax("Unterminated string");
+                default:
+                    text[len++] = (byte) e;
+            }
+        }
+        return new String(text, 0, len, StandardCharsets.UTF_8);
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int c = skipSpace();
+        if (c == 't') {
+            literal("true");
+            return true;
+        }
+        if (c == 'f') {
+            literal("false");
+            return false;
+        }
+        throw syntax("Boolean expected");
+    }
+
+    public long nextLong() throws IOException {
+        skipSpace();
+        long value = 0;
+        boolean negative = false;
+        if (peekByte() == '-') {
+            negative = true;
+            pos++;
+        }
+        int digits = 0;
+        int c;
+        while ((c = peekByte()) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            pos++;
+            digits++;
+        }
+        if (digits == 0) {
+            throw syntax("Number expected");
+        }
+        return negative ? -value : value;
+    }
+
+    public void nextNull() throws IOException {
+        skipSpace();
+        literal("null");
+    }
+
+    public void skipValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case STRING:
+                nextString();
+                break;
+            case BOOLEAN:
+                nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            case NUMBER:
+                int c;
+                while ((c = peekByte()) != -1 && c != ',' && c != '}' && c != ']' && c > ' ') {
+                    pos++;
+                }
+                break;
+            default:
+                throw syntax("Value expected");
+        }
+    }
+
+    private int appendUtf8(int len, int cp) throws IOException {
+        if (Character.isHighSurrogate((char) cp) && peekByte() == '\\') {
+            pos++;
+            if (read() != 'u') {
+                throw syntax("Broken surrogate pair");
+            }
+            cp = Character.toCodePoint((char) cp, (char) readHex());
+        }
+        byte[] bytes = new String(Character.toChars(cp)).getBytes(StandardCharsets.UTF_8);
+        if (len + bytes.length > text.length) {
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        System.arraycopy(bytes, 0, text, len, bytes.length);
+        return len + bytes.length;
+    }
+
+    private int readHex() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int c = read();
+            int digit = Character.digit(c, 16);
+            if (c == -1 || digit < 0) {
+                throw syntax("Bad unicode escape");
+            }
+            value = value * 16 + digit;
+        }
+        return value;
+    }
+
+    private void literal(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (read() != word.charAt(i)) {
+                throw syntax("'" + word + "' expected");
+            }
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        if (skipSpace() != c) {
+            throw syntax("'" + c + "' expected");
+        }
+        pos++;
+    }
+
+    private int skipSpace() throws IOException {
+        int c;
+        while ((c = peekByte()) == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            pos++;
+        }
+        return c;
+    }
+
+    private int peekByte() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buf[pos] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        int c = peekByte();
+        if (c != -1) {
+            pos++;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private MalformedJsonException syntax(String message) {
+        return new MalformedJsonException("Malformed JSON: " + message);
+    }
+}
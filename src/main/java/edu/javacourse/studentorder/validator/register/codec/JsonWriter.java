@@ -0,0 +1,226 @@
+package edu.javacourse.studentorder.validator.register.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Appends UTF-8 JSON to a growable byte array; reset() keeps the array for the next document
+public class JsonWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buf;
+    private int count;
+    private boolean comma;
+
+    public JsonWriter() {
+        this(1024);
+    }
+
+    public JsonWriter(int capacity) {
+        this.buf = new byte[capacity];
+    }
+
+    // Pre-encodes "name": so hot paths copy the bytes instead of escaping the name every time
+    public static byte[] encodeName(String name) {
+        JsonWriter w = new JsonWriter(name.length() + 8);
+        w.string(name);
+        w.put((byte) ':');
+        return w.toByteArray();
+    }
+
+    public JsonWriter reset() {
+        count = 0;
+        comma = false;
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    public JsonWriter beginObject() {
+        separate();
+        put((byte) '{');
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        put((byte) '}');
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        separate();
+        put((byte) '[');
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        put((byte) ']');
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter name(byte[] encodedName) {
+        separate();
+        ensure(encodedName.length);
+        System.arraycopy(encodedName, 0, buf, count, encodedName.length);
+        count += encodedName.length;
+        comma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) {
+            ascii("null");
+        } else {
+            string(value);
+        }
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        ascii(Long.toString(value));
+        comma = true;
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        ascii(value ? "true" : "false");
+        comma = true;
+        return this;
+    }
+
+    // Same text as LocalDateAdapter.PATTERN (dd.MM.yyyy), written digit by digit
+    public JsonWriter value(LocalDate date) {
+        separate();
+        if (date == null) {
+            ascii("null");
+        } else {
+            ensure(12);
+            buf[count++] = '"';
+            twoDigits(date.getDayOfMonth());
+            buf[count++] = '.';
+            twoDigits(date.getMonthValue());
+            buf[count++] = '.';
+            int year = date.getYear();
+            if (year >= 1000 && year <= 9999) {
+                buf[count++] = (byte) ('0' + year / 1000);
+                buf[count++] = (byte) ('0' + year / 100 % 10);
+                buf[count++] = (byte) ('0' + year / 10 % 10);
+                buf[count++] = (byte) ('0' + year % 10);
+            } else {
+                ascii(String.format("%04d", year));
+            }
+            put((byte) '"');
+        }
+        comma = true;
+        return this;
+    }
+
+    // Skips the field entirely for null, as MOXy does
+    public JsonWriter field(byte[] encodedName, String value) {
+        return value == null ? this : name(encodedName).value(value);
+    }
+
+    public JsonWriter field(byte[] encodedName, Long value) {
+        return value == null ? this : name(encodedName).value(value.longValue());
+    }
+
+    public JsonWriter field(byte[] encodedName, LocalDate value) {
+        return value == null ? this : name(encodedName).value(value);
+    }
+
+    private void separate() {
+        if (comma) {
+            put((byte) ',');
+            comma = false;
+        }
+    }
+
+    private void twoDigits(int value) {
+        buf[count++] = (byte) ('0' + value / 10);
+        buf[count++] = (byte) ('0' + value % 10);
+    }
+
+    private void ascii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buf[count++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void string(String s) {
+        // Worst case is 6 bytes per char (\\u00XX); most strings need far less
+        ensure(s.length() * 3 + 2);
+        buf[count++] = '"';
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    ensure(2);
+                    buf[count++] = '\\';
+                    buf[count++] = (byte) c;
+                } else if (c < 0x20) {
+                    ensure(6);
+                    buf[count++] = '\\';
+                    buf[count++] = 'u';
+                    buf[count++] = '0';
+                    buf[count++] = '0';
+                    buf[count++] = HEX[c >> 4];
+                    buf[count++] = HEX[c & 0xF];
+                } else {
+                    ensure(1);
+                    buf[count++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                ensure(2);
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                ensure(4);
+                buf[count++] = (byte) (0xF0 | (cp >> 18));
+                buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                ensure(3);
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        put((byte) '"');
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        buf[count++] = b;
+    }
+
+    private void ensure(int extra) {
+        if (count + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + extra));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package edu.javacourse.studentorder.validator.register.codec;
+
+import java.io.IOException;
+
+public class MalformedJsonException extends IOException {
+
+    public MalformedJsonException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,36 @@
+package edu.javacourse.studentorder.validator.register.codec;
+
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.register.CityRegisterBatchRequest;
+import edu.javacourse.studentorder.domain.register.CityRegisterBatchResponse;
+import edu.javacourse.studentorder.domain.register.CityRegisterRequest;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+
+// DTOs marshalled by the Jersey MOXy provider
+public class MoxyCityRegisterCodec implements CityRegisterCodec {
+
+    @Override
+    public Entity<?> encode(Person person) {
+        return Entity.entity(new CityRegisterRequest(person), MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    public Entity<?> encodeBatch(List<? extends Person> persons) {
+        return Entity.entity(new CityRegisterBatchRequest(persons), MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    public CityRegisterResponse decode(Response response) {
+        return response.readEntity(CityRegisterResponse.class);
+    }
+
+    @Override
+    public List<CityRegisterResponse> decodeBatch(Response response) {
+        return response.readEntity(CityRegisterBatchResponse.class).getResponses();
+    }
+}
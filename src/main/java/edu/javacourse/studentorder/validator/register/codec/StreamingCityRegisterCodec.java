@@ -0,0 +1,132 @@
+package edu.javacourse.studentorder.validator.register.codec;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes the CityRegisterRequest contract straight from Person/Address and reads answers with a pull
+// parser, so neither side goes through the DTOs or JAXB reflection
+public class StreamingCityRegisterCodec implements CityRegisterCodec {
+
+    private static final byte[] PERSONS = JsonWriter.encodeName("persons");
+    private static final byte[] SUR_NAME = JsonWriter.encodeName("surName");
+    private static final byte[] GIVEN_NAME = JsonWriter.encodeName("givenName");
+    private static final byte[] PATRONYMIC = JsonWriter.encodeName("patronymic");
+    private static final byte[] DATE_OF_BIRTH = JsonWriter.encodeName("dateOfBirth");
+    private static final byte[] STREET_CODE = JsonWriter.encodeName("streetCode");
+    private static final byte[] BUILDING = JsonWriter.encodeName("building");
+    private static final byte[] EXTENSION = JsonWriter.encodeName("extension");
+    private static final byte[] APARTMENT = JsonWriter.encodeName("apartment");
+
+    // A request body is written while the calling thread is inside post(), so one buffer per thread is enough
+    private static final ThreadLocal<JsonWriter> WRITERS = ThreadLocal.withInitial(JsonWriter::new);
+    private static final ThreadLocal<byte[]> READ_BUFFERS = ThreadLocal.withInitial(() -> new byte[4096]);
+
+    @Override
+    public Entity<?> encode(Person person) {
+        JsonWriter w = WRITERS.get().reset();
+        writeRequest(w, person);
+        return entity(w);
+    }
+
+    @Override
+    public Entity<?> encodeBatch(List<? extends Person> persons) {
+        JsonWriter w = WRITERS.get().reset();
+        writeBatch(w, persons);
+        return entity(w);
+    }
+
+    private Entity<?> entity(JsonWriter w) {
+        return Entity.entity((StreamingOutput) w::writeTo, MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    public CityRegisterResponse decode(Response response) throws IOException {
+        try (InputStream in = response.readEntity(InputStream.class)) {
+            return readResponse(new JsonReader(in, READ_BUFFERS.get()));
+        }
+    }
+
+    @Override
+    public List<CityRegisterResponse> decodeBatch(Response response) throws IOException {
+        try (InputStream in = response.readEntity(InputStream.class)) {
+            return readBatch(new JsonReader(in, READ_BUFFERS.get()));
+        }
+    }
+
+    public static void writeRequest(JsonWriter w, Person person) {
+        Address adr = person.getAddress();
+        w.beginObject()
+                .field(SUR_NAME, person.getSurName())
+                .field(GIVEN_NAME, person.getGivenName())
+                .field(PATRONYMIC, person.getPatronymic())
+                .field(DATE_OF_BIRTH, person.getDayOfBirth())
+                .field(STREET_CODE, adr.getStreet().getStreetCode())
+                .field(BUILDING, adr.getBuilding())
+                .field(EXTENSION, adr.getExtension())
+                .field(APARTMENT, adr.getApartment())
+                .endObject();
+    }
+
+    public static void writeBatch(JsonWriter w, List<? extends Person> persons) {
+        w.beginObject().name(PERSONS).beginArray();
+        for (Person person : persons) {
+            writeRequest(w, person);
+        }
+        w.endArray().endObject();
+    }
+
+    public static CityRegisterResponse readResponse(JsonReader r) throws IOException {
+        CityRegisterResponse response = new CityRegisterResponse();
+        r.beginObject();
+        while (r.hasNext()) {
+            String name = r.nextName();
+            if (r.peek() == JsonReader.Token.NULL) {
+                r.nextNull();
+            } else if ("registered".equals(name)) {
+                response.setRegistered(r.nextBoolean());
+            } else if ("temporal".equals(name)) {
+                response.setTemporal(r.nextBoolean());
+            } else {
+                r.skipValue();
+            }
+        }
+        r.endObject();
+        return response;
+    }
+
+    // MOXy writes a list as an array, but a lone object is accepted as well
+    public static List<CityRegisterResponse> readBatch(JsonReader r) throws IOException {
+        List<CityRegisterResponse> responses = null;
+        r.beginObject();
+        while (r.hasNext()) {
+            String name = r.nextName();
+            if (!"responses".equals(name)) {
+                r.skipValue();
+            } else if (r.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                responses = new ArrayList<>();
+                r.beginArray();
+                while (r.hasNext()) {
+                    responses.add(readResponse(r));
+                }
+                r.endArray();
+            } else if (r.peek() == JsonReader.Token.BEGIN_OBJECT) {
+                responses = new ArrayList<>(1);
+                responses.add(readResponse(r));
+            } else {
+                r.skipValue();
+            }
+        }
+        r.endObject();
+        return responses;
+    }
+}
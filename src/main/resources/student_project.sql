@@ -77,6 +77,8 @@ create table jc_student_order (
   certificate_id varchar(20) not null,
   register_office_id integer not null,
   marriage_date date not null,
+  lease_owner varchar(100),
+  lease_expires timestamp,
   primary key (student_order_id),
   foreign key (h_street_code) references jc_street(street_code) on delete restrict,
   foreign key (h_passport_office_id) references jc_passport_office(p_office_id) on delete restrict,
@@ -109,4 +111,14 @@ create table jc_student_child (
 
 create index idx_student_order_status on jc_student_order(student_order_status);
 
-create index idx_student_order_id on jc_student_child(student_order_id);
\ No newline at end of file
+create index idx_student_order_id on jc_student_child(student_order_id);
+
+create or replace function jc_student_order_notify() returns trigger as $$
+begin
+  perform pg_notify('student_order', new.student_order_id::text);
+  return new;
+end;
+$$ language plpgsql;
+
+create trigger trg_student_order_notify after insert on jc_student_order
+  for each row execute procedure jc_student_order_notify();
\ No newline at end of file
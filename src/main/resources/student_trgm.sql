@@ -0,0 +1,3 @@
+create extension if not exists pg_trgm;
+
+create index if not exists idx_street_name_trgm on jc_street using gin (street_name gin_trgm_ops);
\ No newline at end of file
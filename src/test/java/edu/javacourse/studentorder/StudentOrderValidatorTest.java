@@ -0,0 +1,88 @@
+package edu.javacourse.studentorder;
+
+import edu.javacourse.studentorder.dao.FakeStudentOrderDao;
+import edu.javacourse.studentorder.dao.StudentOrderDaoImplTest;
+import edu.javacourse.studentorder.domain.StudentOrderStatus;
+import edu.javacourse.studentorder.mail.FakeMailTransport;
+import edu.javacourse.studentorder.mail.MailSender;
+import edu.javacourse.studentorder.validator.CityRegisterValidator;
+import edu.javacourse.studentorder.validator.ValidationEngine;
+import edu.javacourse.studentorder.validator.register.FakeCityRegisterChecker;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class StudentOrderValidatorTest {
+
+    // Passport series 1000 + id: id 0 is registered, 5 is not registered, 2 makes the register fail
+    private static final long GOOD = 0;
+    private static final long NOT_REGISTERED = 5;
+    private static final long REGISTER_ERROR = 2;
+
+    private FakeStudentOrderDao dao;
+    private MailSender mailSender;
+    private StudentOrderValidator validator;
+
+    @Before
+    public void setUp() {
+        dao = new FakeStudentOrderDao(300000);
+        StudentOrderDaoImplTest builder = new StudentOrderDaoImplTest();
+        for (long id : new long[]{GOOD, NOT_REGISTERED, REGISTER_ERROR}) {
+            dao.add(builder.buildStudentOrder(id));
+        }
+        mailSender = new MailSender(new FakeMailTransport(0), "office@localhost",
+                10, 10, 10, 1, 10, Paths.get("target", "mail-spool-test"), 60000);
+        validator = new StudentOrderValidator(dao, new CityRegisterValidator(new FakeCityRegisterChecker()),
+                mailSender, new ValidationEngine(2, false));
+    }
+
+    @Test
+    public void registerErrorsAreNotChecked() {
+        validator.checkAllClaimed();
+
+        Assert.assertEquals(StudentOrderStatus.CHECKED, dao.getStatus(GOOD));
+        Assert.assertEquals(StudentOrderStatus.CHECKED, dao.getStatus(NOT_REGISTERED));
+        Assert.assertEquals(StudentOrderStatus.START, dao.getStatus(REGISTER_ERROR));
+        // Still leased, so the next pass does not pick it up straight away
+        Assert.assertNotNull(dao.getLeaseOwner(REGISTER_ERROR));
+        Assert.assertEquals(2, dao.getClaimCount());
+    }
+
+    @Test
+    public void failingOrderDoesNotSpin() {
+        dao.setIgnoreDefer(true);
+        validator.checkAllClaimed();
+
+        Assert.assertEquals(StudentOrderStatus.START, dao.getStatus(REGISTER_ERROR));
+        Assert.assertEquals(2, dao.getClaimCount());
+    }
+
+    @Test
+    public void pipelineMarksOnlyAnsweredUnleasedOrders() throws Exception {
+        dao.lease(NOT_REGISTERED, "other-validator");
+
+        validator.buildPipeline().run(sink -> dao.readStudentOrders(StudentOrderStatus.START, sink));
+
+        Assert.assertEquals(StudentOrderStatus.CHECKED, dao.getStatus(GOOD));
+        Assert.assertEquals(StudentOrderStatus.START, dao.getStatus(REGISTER_ERROR));
+        // The other validator's lease is neither overwritten nor cleared
+        Assert.assertEquals(StudentOrderStatus.START, dao.getStatus(NOT_REGISTERED));
+        Assert.assertEquals("other-validator", dao.getLeaseOwner(NOT_REGISTERED));
+        // Mail only for the order this pipeline marked; the leased one is mailed by its owner
+        Assert.assertEquals(1, mailSender.getQueueSize());
+    }
+
+    @Test
+    public void claimedBatchReportsFailuresOnly() throws Exception {
+        dao.setIgnoreDefer(true);
+        dao.markStudentOrders(Arrays.asList(GOOD, NOT_REGISTERED), StudentOrderStatus.CHECKED, null);
+
+        // Only the failing order is left: one claim, and no request for an immediate next batch
+        Assert.assertFalse(validator.checkClaimedBatch());
+        Assert.assertEquals(1, dao.getClaimCount());
+        Assert.assertEquals(StudentOrderStatus.START, dao.getStatus(REGISTER_ERROR));
+    }
+}
@@ -0,0 +1,110 @@
+package edu.javacourse.studentorder.config;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConfigTest {
+
+    @Test
+    public void typedValues() {
+        Properties props = new Properties();
+        props.setProperty("a.int", " 42 ");
+        props.setProperty("a.long", "5000000000");
+        props.setProperty("a.double", "2.5");
+        props.setProperty("a.bool", "true");
+        props.setProperty("a.empty", "");
+        ConfigSnapshot config = new ConfigSnapshot(props, 1);
+
+        Assert.assertEquals(42, config.getInt("a.int", 0));
+        Assert.assertEquals(42, config.getInt("a.int", 0));
+        Assert.assertEquals(5000000000L, config.getLong("a.long", 0));
+        Assert.assertEquals(2.5, config.getDouble("a.double", 0), 0.0);
+        Assert.assertTrue(config.getBoolean("a.bool", false));
+        Assert.assertEquals(7, config.getInt("a.empty", 7));
+        Assert.assertEquals(7, config.getInt("a.missing", 7));
+        Assert.assertEquals("42", config.getString("a.int"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void invalidNumber() {
+        Properties props = new Properties();
+        props.setProperty("a.int", "many");
+        new ConfigSnapshot(props, 1).getInt("a.int", 0);
+    }
+
+    @Test
+    public void updateNotifiesListeners() {
+        AtomicReference<ConfigSnapshot> seen = new AtomicReference<>();
+        Config.Listener listener = (previous, current) -> {
+            if (current.isChanged(previous, Config.DB_LIMIT)) {
+                seen.set(current);
+            }
+        };
+        Config.addListener(listener);
+        try {
+            ConfigSnapshot before = Config.get();
+            Properties props = new Properties();
+            props.putAll(before.getValues());
+            props.setProperty(Config.DB_LIMIT, "7");
+
+            Assert.assertTrue(Config.update(props));
+            Assert.assertEquals(7, Config.getInt(Config.DB_LIMIT, 0));
+            Assert.assertSame(Config.get(), seen.get());
+            Assert.assertEquals(before.getVersion() + 1, Config.get().getVersion());
+            Assert.assertFalse(Config.update(props));
+        } finally {
+            Config.removeListener(listener);
+            Config.reload();
+        }
+        Assert.assertEquals(1000, Config.getInt(Config.DB_LIMIT, 0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void invalidBoolean() {
+        Properties props = new Properties();
+        props.setProperty("a.bool", "yes");
+        new ConfigSnapshot(props, 1).getBoolean("a.bool", false);
+    }
+
+    @Test
+    public void updateRejectsMalformedValue() {
+        ConfigSnapshot before = Config.get();
+        Properties props = new Properties();
+        props.putAll(before.getValues());
+        props.setProperty(Config.DB_LIMIT, "abc");
+
+        Assert.assertFalse(Config.update(props));
+        Assert.assertSame(before, Config.get());
+        Assert.assertEquals(1000, Config.getInt(Config.DB_LIMIT, 0));
+
+        props.setProperty(Config.DB_LIMIT, "1000");
+        props.setProperty(Config.VALIDATOR_PIPELINE_WORKERS + "mail", "one");
+        Assert.assertFalse(Config.update(props));
+        Assert.assertSame(before, Config.get());
+    }
+
+    @Test
+    public void watchFile() throws Exception {
+        Path dir = Files.createTempDirectory("config");
+        Path file = dir.resolve("test.properties");
+        Files.write(file, "a=1".getBytes());
+        CountDownLatch changed = new CountDownLatch(1);
+        ConfigWatcher watcher = new ConfigWatcher(file, 50, changed::countDown);
+        watcher.start();
+        try {
+            Files.write(dir.resolve("other.properties"), "b=1".getBytes());
+            Assert.assertFalse(changed.await(300, TimeUnit.MILLISECONDS));
+            Files.write(file, "a=2".getBytes());
+            Assert.assertTrue(changed.await(10, TimeUnit.SECONDS));
+        } finally {
+            watcher.close();
+        }
+    }
+}
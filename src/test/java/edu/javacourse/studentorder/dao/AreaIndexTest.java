@@ -0,0 +1,83 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.CountryArea;
+import edu.javacourse.studentorder.exception.DaoException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AreaIndexTest {
+
+    private final AreaIndex index = new AreaIndex(Arrays.asList(
+            new CountryArea("020020010000", "Край Область 2 Район 1"),
+            new CountryArea("010000000000", "Город"),
+            new CountryArea("010010000000", "Город Район 1"),
+            new CountryArea("010020000000", "Город Район 2"),
+            new CountryArea("020000000000", "Край"),
+            new CountryArea("020010000000", "Край Область 1"),
+            new CountryArea("020010010000", "Край Область 1 Район 1"),
+            new CountryArea("020010010001", "Край Область 1 Район 1 Поселение 1"),
+            new CountryArea("020010010002", "Край Область 1 Район 1 Поселение 2"),
+            new CountryArea("020020000000", "Край Область 2")
+    ));
+
+    private List<String> ids(List<CountryArea> areas) {
+        return areas.stream().map(CountryArea::getAreaId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void level() {
+        Assert.assertEquals(0, AreaIndex.level(""));
+        Assert.assertEquals(1, AreaIndex.level("020000000000"));
+        Assert.assertEquals(2, AreaIndex.level("020010000000"));
+        Assert.assertEquals(3, AreaIndex.level("020010010000"));
+        Assert.assertEquals(4, AreaIndex.level("020010010001"));
+        Assert.assertEquals("020010010000", AreaIndex.parentCode("020010010001"));
+        Assert.assertNull(AreaIndex.parentCode("020000000000"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCode() {
+        AreaIndex.level("0200");
+    }
+
+    @Test
+    public void children() {
+        Assert.assertEquals(Arrays.asList("010000000000", "020000000000"), ids(index.children(null)));
+        Assert.assertEquals(Arrays.asList("020010000000", "020020000000"), ids(index.children("020000000000")));
+        Assert.assertEquals(Arrays.asList("020010010001", "020010010002"), ids(index.children("020010010000")));
+        Assert.assertTrue(index.children("020010010001").isEmpty());
+        Assert.assertTrue(index.children("990000000000").isEmpty());
+    }
+
+    @Test
+    public void ancestors() {
+        Assert.assertEquals(Arrays.asList("020000000000", "020010000000", "020010010000"),
+                ids(index.ancestors("020010010002")));
+        Assert.assertTrue(index.ancestors("010000000000").isEmpty());
+    }
+
+    @Test
+    public void subtree() {
+        Assert.assertEquals(Arrays.asList("020010000000", "020010010000", "020010010001", "020010010002",
+                "020020000000", "020020010000"), ids(index.subtree("020000000000")));
+        Assert.assertEquals(10, index.subtree("").size());
+    }
+
+    @Test
+    public void indexedDaoFindAreas() throws DaoException {
+        DictionaryDaoImpl dao = new DictionaryDaoImpl(index);
+        Assert.assertEquals(Arrays.asList("020010010001", "020010010002"), ids(dao.findAreas("020010010000")));
+        for (String code : Arrays.asList("020010010001", "0200")) {
+            try {
+                dao.findAreas(code);
+                Assert.fail(code);
+            } catch (DaoException ex) {
+                // leaf and malformed codes are rejected without the database
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.CountryArea;
+import edu.javacourse.studentorder.domain.PassportOffice;
+import edu.javacourse.studentorder.domain.RegisterOffice;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.exception.DaoException;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+public class CachedDictionaryDaoImplTest {
+
+    private static CachedDictionaryDaoImpl dao;
+
+    @BeforeClass
+    public static void startUp() throws Exception {
+        DBInit.startUp();
+        dao = new CachedDictionaryDaoImpl();
+    }
+
+    @Test
+    public void testStreet() throws DaoException {
+        List<Street> d = dao.findStreets("про");
+        Assert.assertTrue(d.size() == 2);
+        Assert.assertEquals("улица Садовая", dao.getStreet(1L).getStreetName());
+    }
+
+    @Test
+    public void testPassportOffice() throws DaoException {
+        List<PassportOffice> po = dao.findPassportOffices("010020000000");
+        Assert.assertTrue(po.size() == 2);
+        Assert.assertTrue(dao.findPassportOffices("999999999999").isEmpty());
+    }
+
+    @Test
+    public void testRegisterOffice() throws DaoException {
+        List<RegisterOffice> ro = dao.findRegisterOffices("010010000000");
+        Assert.assertTrue(ro.size() == 2);
+        Assert.assertSame(ro.get(0), dao.getRegisterOffice(ro.get(0).getOfficeId()));
+    }
+
+    @Test
+    public void testArea() throws DaoException {
+        List<CountryArea> co1 = dao.findAreas("");
+        Assert.assertTrue(co1.size() == 2);
+        List<CountryArea> co2 = dao.findAreas("020000000000");
+        Assert.assertTrue(co2.size() == 2);
+        List<CountryArea> co3 = dao.findAreas("020010000000");
+        Assert.assertTrue(co3.size() == 2);
+        List<CountryArea> co4 = dao.findAreas("020010010000");
+        Assert.assertTrue(co4.size() == 2);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSharedStreet() throws DaoException {
+        dao.findStreets("про").get(0).setStreetName("улица Другая");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSharedPassportOffice() throws DaoException {
+        dao.findPassportOffices("010020000000").get(0).setOfficeName("");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSharedArea() throws DaoException {
+        dao.findAreas("").get(0).setAreaId("030000000000");
+    }
+
+    @Test
+    public void testRefresh() throws DaoException {
+        List<Street> before = dao.findStreets("");
+        dao.refresh();
+        Assert.assertEquals(before.size(), dao.findStreets("").size());
+    }
+}
@@ -0,0 +1,188 @@
+package edu.javacourse.studentorder.dao;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionPoolTest {
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicBoolean valid = new AtomicBoolean(true);
+
+    private Connection fakeConnection() {
+        created.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean autoCommit = new AtomicBoolean(true);
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            closed.set(true);
+                            return null;
+                        case "isClosed":
+                            return closed.get();
+                        case "isValid":
+                            return valid.get();
+                        case "getAutoCommit":
+                            return autoCommit.get();
+                        case "setAutoCommit":
+                            autoCommit.set((Boolean) args[0]);
+                            return null;
+                        case "createStatement":
+                            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                                    (st, m, a) -> "getConnection".equals(m.getName()) ? proxy : null);
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private ConnectionPool buildPool(int min, int max, long idleTimeout) {
+        return new ConnectionPool(this::fakeConnection, min, max, idleTimeout, 100, 1, 0);
+    }
+
+    @Test
+    public void reuseConnection() throws SQLException {
+        ConnectionPool pool = buildPool(0, 2, 60000);
+        try (Connection con = pool.getConnection()) {
+            Assert.assertEquals(1, pool.getActiveCount());
+        }
+        try (Connection con = pool.getConnection()) {
+            Assert.assertFalse(con.isClosed());
+        }
+        Assert.assertEquals(1, created.get());
+        Assert.assertEquals(2, pool.getBorrowCount());
+        Assert.assertEquals(0, pool.getActiveCount());
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void resetAutoCommit() throws SQLException {
+        ConnectionPool pool = buildPool(0, 1, 60000);
+        try (Connection con = pool.getConnection()) {
+            con.setAutoCommit(false);
+        }
+        try (Connection con = pool.getConnection()) {
+            Assert.assertTrue(con.getAutoCommit());
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void borrowTimeout() throws SQLException {
+        ConnectionPool pool = buildPool(0, 1, 60000);
+        pool.getConnection();
+        try {
+            pool.getConnection();
+        } finally {
+            Assert.assertEquals(1, pool.getTimeoutCount());
+        }
+    }
+
+    @Test
+    public void replaceInvalid() throws SQLException {
+        ConnectionPool pool = buildPool(0, 1, 60000);
+        pool.getConnection().close();
+        valid.set(false);
+        pool.getConnection().close();
+        Assert.assertEquals(2, created.get());
+        Assert.assertEquals(1, pool.getValidationFailCount());
+        Assert.assertEquals(1, pool.getTotalCount());
+    }
+
+    @Test
+    public void evictIdle() throws Exception {
+        ConnectionPool pool = buildPool(1, 3, 0);
+        Connection c1 = pool.getConnection();
+        Connection c2 = pool.getConnection();
+        Connection c3 = pool.getConnection();
+        c1.close();
+        c2.close();
+        c3.close();
+        Thread.sleep(5);
+        pool.evictIdle();
+        Assert.assertEquals(1, pool.getTotalCount());
+        Assert.assertEquals(2, pool.getDestroyedCount());
+    }
+
+    @Test(expected = SQLException.class)
+    public void closedProxy() throws SQLException {
+        ConnectionPool pool = buildPool(0, 1, 60000);
+        Connection con = pool.getConnection();
+        con.close();
+        con.createStatement();
+    }
+
+    @Test
+    public void statementReturnsPooledConnection() throws SQLException {
+        ConnectionPool pool = buildPool(0, 1, 60000);
+        Connection con = pool.getConnection();
+        Statement st = con.createStatement();
+        Assert.assertSame(con, st.getConnection());
+        st.getConnection().close();
+        Assert.assertEquals(0, pool.getActiveCount());
+        Assert.assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void fillDoesNotExceedMaxSize() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConnectionPool pool = new ConnectionPool(() -> {
+            if (calls.incrementAndGet() == 1) {
+                creating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new SQLException(ex);
+                }
+            }
+            return fakeConnection();
+        }, 1, 1, 60000, 100, 1, 0);
+
+        // The borrower holds the only permit while its connection is being opened
+        Thread borrower = new Thread(() -> {
+            try {
+                pool.getConnection();
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        borrower.start();
+        creating.await();
+        pool.fillToMinimum();
+        release.countDown();
+        borrower.join();
+
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(1, pool.getTotalCount());
+    }
+
+    @Test
+    public void resize() throws SQLException {
+        ConnectionPool pool = buildPool(0, 1, 60000);
+        Connection c1 = pool.getConnection();
+        pool.resize(0, 3);
+        Connection c2 = pool.getConnection();
+        Connection c3 = pool.getConnection();
+        Assert.assertEquals(3, pool.getActiveCount());
+
+        pool.resize(0, 1);
+        c1.close();
+        c2.close();
+        Assert.assertEquals(1, pool.getTotalCount());
+        Assert.assertEquals(1, pool.getActiveCount());
+        c3.close();
+        Assert.assertEquals(1, pool.getIdleCount());
+        try (Connection con = pool.getConnection()) {
+            Assert.assertEquals(3, created.get());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.RegisterOffice;
+import edu.javacourse.studentorder.domain.StudentOrder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DictionaryInternerTest {
+
+    @Test
+    public void sameInstanceById() {
+        DictionaryInterner interner = DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH);
+        RegisterOffice ro = interner.registerOffice(1L, "010020000000", "ЗАГС 1");
+        Assert.assertSame(ro, interner.registerOffice(1L, "010020000000", "ЗАГС 1"));
+        Assert.assertNotSame(ro, interner.registerOffice(2L, "010020000000", "ЗАГС 2"));
+        Assert.assertSame(interner.street(5L, ""), interner.street(5L, ""));
+        Assert.assertSame(interner.university(2L, ""), interner.university(2L, ""));
+        Assert.assertEquals(4, interner.size());
+
+        DictionaryInterner other = DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH);
+        Assert.assertNotSame(ro, other.registerOffice(1L, "010020000000", "ЗАГС 1"));
+    }
+
+    @Test
+    public void changedRowReplacesInstance() {
+        DictionaryInterner interner = DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH);
+        RegisterOffice ro = interner.registerOffice(1L, "010020000000", "ЗАГС 1");
+        RegisterOffice renamed = interner.registerOffice(1L, "010020000000", "ЗАГС Центральный");
+        Assert.assertNotSame(ro, renamed);
+        Assert.assertEquals("ЗАГС Центральный", renamed.getOfficeName());
+        Assert.assertSame(renamed, interner.registerOffice(1L, "010020000000", "ЗАГС Центральный"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void sharedInstanceIsReadOnly() {
+        DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH).passportOffice(1L, "010020000000", "ПС")
+                .setOfficeName("changed");
+    }
+
+    @Test
+    public void noneScopeAllocates() {
+        DictionaryInterner interner = DictionaryInterner.forScope(DictionaryInterner.Scope.NONE);
+        Assert.assertNotSame(interner.street(5L, ""), interner.street(5L, ""));
+        interner.street(5L, "").setStreetName("changed");
+        Assert.assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void mappedOrdersShareDictionary() throws SQLException {
+        ResultSet rs = SyntheticResultSet.create(SyntheticResultSet.FULL_ORDER_COLUMNS,
+                SyntheticResultSet.fullOrderRows(20, 1));
+        StudentOrderRowMapper mapper = new StudentOrderRowMapper(new ResultSetColumns(rs),
+                DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH));
+        List<StudentOrder> orders = new ArrayList<>();
+        while (rs.next()) {
+            orders.add(mapper.map(rs));
+        }
+        StudentOrder first = orders.get(0);
+        StudentOrder last = orders.get(orders.size() - 1);
+        Assert.assertSame(first.getMarriageOffice(), last.getMarriageOffice());
+        Assert.assertSame(first.getHusband().getIssueDepartment(), last.getHusband().getIssueDepartment());
+        Assert.assertSame(first.getHusband().getAddress().getStreet(), last.getWife().getAddress().getStreet());
+        Assert.assertNotSame(first.getHusband().getAddress(), last.getHusband().getAddress());
+    }
+}
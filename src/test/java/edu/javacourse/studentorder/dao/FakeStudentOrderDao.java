@@ -0,0 +1,163 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.StudentOrderStatus;
+import edu.javacourse.studentorder.exception.DaoException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// In-memory jc_student_order with the same status and lease rules as the claim/mark/defer statements
+public class FakeStudentOrderDao implements StudentOrderDao {
+
+    private static class Row {
+        StudentOrder order;
+        StudentOrderStatus status = StudentOrderStatus.START;
+        String leaseOwner;
+        long leaseExpires;
+    }
+
+    private final Map<Long, Row> rows = new TreeMap<>();
+    private final AtomicInteger claims = new AtomicInteger();
+    private final long leaseMillis;
+    private boolean ignoreDefer;
+
+    public FakeStudentOrderDao(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+
+    // Simulates a retry delay shorter than one claim pass
+    public void setIgnoreDefer(boolean ignoreDefer) {
+        this.ignoreDefer = ignoreDefer;
+    }
+
+    public synchronized void add(StudentOrder so) {
+        Row row = new Row();
+        row.order = so;
+        rows.put(so.getStudentOrderId(), row);
+    }
+
+    public synchronized StudentOrderStatus getStatus(long id) {
+        return rows.get(id).status;
+    }
+
+    public synchronized String getLeaseOwner(long id) {
+        Row row = rows.get(id);
+        return isLeased(row) ? row.leaseOwner : null;
+    }
+
+    public synchronized void lease(long id, String owner) {
+        Row row = rows.get(id);
+        row.leaseOwner = owner;
+        row.leaseExpires = System.currentTimeMillis() + leaseMillis;
+    }
+
+    public int getClaimCount() {
+        return claims.get();
+    }
+
+    private static boolean isLeased(Row row) {
+        return row.leaseOwner != null && row.leaseExpires > System.currentTimeMillis();
+    }
+
+    @Override
+    public Long saveStudentOrder(StudentOrder so) {
+        add(so);
+        return so.getStudentOrderId();
+    }
+
+    @Override
+    public SaveOrdersResult saveStudentOrders(List<StudentOrder> orders) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public synchronized List<StudentOrder> getStudentOrders() {
+        List<StudentOrder> result = new ArrayList<>();
+        for (Row row : rows.values()) {
+            if (row.status == StudentOrderStatus.START) {
+                result.add(row.order);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<StudentOrder> claimStudentOrders(String owner, int limit) {
+        claims.incrementAndGet();
+        List<StudentOrder> result = new ArrayList<>();
+        for (Row row : rows.values()) {
+            if (result.size() < limit && row.status == StudentOrderStatus.START && !isLeased(row)) {
+                lease(row.order.getStudentOrderId(), owner);
+                result.add(row.order);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized List<StudentOrder> claimStudentOrders(String owner, List<Long> ids) {
+        claims.incrementAndGet();
+        List<StudentOrder> result = new ArrayList<>();
+        for (Long id : ids) {
+            Row row = rows.get(id);
+            if (row != null && row.status == StudentOrderStatus.START && !isLeased(row)) {
+                lease(id, owner);
+                result.add(row.order);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int markStudentOrders(List<Long> ids, StudentOrderStatus status, String owner) {
+        int count = 0;
+        for (Long id : ids) {
+            Row row = rows.get(id);
+            boolean allowed = owner != null ? owner.equals(row.leaseOwner) : !isLeased(row);
+            if (allowed) {
+                row.status = status;
+                row.leaseOwner = null;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized int deferStudentOrders(List<Long> ids, String owner, int delaySeconds) {
+        int count = 0;
+        for (Long id : ids) {
+            Row row = rows.get(id);
+            if (owner.equals(row.leaseOwner)) {
+                row.leaseExpires = ignoreDefer ? 0 : System.currentTimeMillis() + delaySeconds * 1000L;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long readStudentOrders(StudentOrderStatus status, Consumer<StudentOrder> consumer) throws DaoException {
+        return readStudentOrders(status, 0, consumer);
+    }
+
+    @Override
+    public long readStudentOrders(StudentOrderStatus status, int limit, Consumer<StudentOrder> consumer)
+            throws DaoException {
+        List<StudentOrder> selected = new ArrayList<>();
+        synchronized (this) {
+            for (Row row : rows.values()) {
+                if (row.status == status && (limit <= 0 || selected.size() < limit)) {
+                    selected.add(row.order);
+                }
+            }
+        }
+        selected.forEach(consumer);
+        return selected.size();
+    }
+}
@@ -0,0 +1,34 @@
+package edu.javacourse.studentorder.dao;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FetchStatisticsTest {
+
+    @Test
+    public void joinUntilObserved() {
+        FetchStatistics stats = new FetchStatistics(2.0);
+        Assert.assertEquals(FetchStrategy.ONE_SELECT, stats.choose());
+        stats.record(0, 0);
+        Assert.assertEquals(0, stats.getFetchCount());
+        Assert.assertEquals(FetchStrategy.ONE_SELECT, stats.choose());
+    }
+
+    @Test
+    public void switchOnRatio() {
+        FetchStatistics stats = new FetchStatistics(2.0);
+        stats.record(100, 500);
+        Assert.assertEquals(5.0, stats.getChildrenPerOrder(), 0.001);
+        Assert.assertEquals(FetchStrategy.TWO_SELECT, stats.choose());
+        for (int i = 0; i < 20; i++) {
+            stats.record(100, 100);
+        }
+        Assert.assertEquals(FetchStrategy.ONE_SELECT, stats.choose());
+    }
+
+    @Test
+    public void parseStrategy() {
+        Assert.assertEquals(FetchStrategy.ADAPTIVE, FetchStrategy.fromValue("adaptive"));
+        Assert.assertEquals(FetchStrategy.TWO_SELECT, FetchStrategy.fromValue("TWO_SELECT"));
+    }
+}
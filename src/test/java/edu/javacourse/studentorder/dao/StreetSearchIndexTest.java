@@ -0,0 +1,84 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Street;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class StreetSearchIndexTest {
+
+    private final StreetSearchIndex index = new StreetSearchIndex(Arrays.asList(
+            new Street(1L, "улица Садовая"),
+            new Street(2L, "Невский проспект"),
+            new Street(3L, "улица Стахановцев"),
+            new Street(4L, "улица Гороховая"),
+            new Street(5L, "проспект Ветеранов"),
+            new Street(6L, "Садовая-Кудринская улица"),
+            new Street(7L, "улица Шкапина"),
+            new Street(8L, "Ёлочная улица")
+    ));
+
+    private List<Long> codes(List<Street> streets) {
+        return streets.stream().map(Street::getStreetCode).collect(Collectors.toList());
+    }
+
+    @Test
+    public void normalize() {
+        Assert.assertEquals("садовая кудринская улица", StreetSearchIndex.normalize(" Садовая-Кудринская  УЛИЦА "));
+        Assert.assertEquals("елочная", StreetSearchIndex.normalize("Ёлочная"));
+    }
+
+    @Test
+    public void substringCaseInsensitive() {
+        Assert.assertEquals(Arrays.asList(5L, 2L), codes(index.search("ПРО", 10)));
+        Assert.assertEquals(Arrays.asList(4L), codes(index.search("рохов", 10)));
+        Assert.assertTrue(index.search("неттакой", 10).isEmpty());
+    }
+
+    @Test
+    public void rankPrefixFirst() {
+        Assert.assertEquals(Arrays.asList(6L, 1L), codes(index.search("садов", 10)));
+        Assert.assertEquals(Arrays.asList(1L, 3L), codes(index.search("улица с", 10)));
+    }
+
+    @Test
+    public void shortQueryIsSubstring() {
+        Assert.assertEquals(Arrays.asList(5L, 2L, 7L), codes(index.search("п", 10)));
+        Assert.assertEquals(Arrays.asList(8L), codes(index.search("ел", 10)));
+        Assert.assertEquals(Arrays.asList(7L, 6L), codes(index.search("ин", 10)));
+    }
+
+    @Test
+    public void yoIsE() {
+        Assert.assertEquals(Arrays.asList(8L), codes(index.search("елоч", 10)));
+        Assert.assertEquals(Arrays.asList(8L), codes(index.search("ёлоч", 10)));
+    }
+
+    @Test
+    public void limit() {
+        Assert.assertEquals(3, index.search("улица", 3).size());
+        Assert.assertEquals(8, index.search("", 100).size());
+    }
+
+    @Test
+    public void largeIndex() {
+        List<Street> streets = new ArrayList<>();
+        for (long i = 0; i < 200_000; i++) {
+            streets.add(new Street(i, "улица Номер " + i));
+        }
+        StreetSearchIndex big = new StreetSearchIndex(streets);
+        Assert.assertEquals(Arrays.asList(123456L), codes(big.search("номер 123456", 10)));
+        Assert.assertEquals(10, big.search("номер 1", 10).size());
+        // Prefix matches fill the limit, the shortest names first
+        Assert.assertEquals(Arrays.asList(1L, 10L, 11L), codes(big.search("улица номер 1", 3)));
+        Assert.assertEquals(200_000, big.search("улица", Integer.MAX_VALUE).size());
+        // One letter is looked up in its own posting list: word prefixes first, then shorter names
+        Assert.assertEquals(Arrays.asList(9L, 90L), codes(big.search("9", 2)));
+        // Every name starts with the letter: the shortest names come straight from the ranked postings
+        Assert.assertEquals(Arrays.asList(0L, 1L, 2L), codes(big.search("у", 3)));
+    }
+}
@@ -0,0 +1,151 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Child;
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.StudentOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Walks the fields the city register request needs, over an object graph and over the columnar batch.
+// main() prints the retained heap per order of both forms.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentOrderBatchBenchmark {
+
+    private static final String[] SUR_NAMES = {"Васильев", "Петров", "Смирнов", "Иванов", "Кузнецов"};
+    private static final String[] GIVEN_NAMES = {"Павел", "Иван", "Сергей", "Андрей", "Николай", "Олег"};
+
+    @Param({"10000"})
+    private int orders;
+
+    @Param({"2"})
+    private int children;
+
+    private List<StudentOrder> objects;
+    private List<StudentOrder> columnar;
+
+    // Strings are copied per order as a JDBC driver would; dictionary rows are shared as with db.intern=fetch
+    public static List<StudentOrder> fetchedOrders(int orders, int children) {
+        DictionaryInterner interner = DictionaryInterner.forScope(DictionaryInterner.Scope.FETCH);
+        List<StudentOrder> result = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            StudentOrder so = new StudentOrder();
+            so.setStudentOrderId(i + 1);
+            so.setStudentOrderDate(LocalDateTime.of(2019, 5, 1, 10, 0).plusMinutes(i));
+            so.setMarriageCertificateId(copy("" + (123456000 + i)));
+            so.setMarriageOffice(interner.registerOffice(1 + i % 20, "010010000000", "ЗАГС " + (i % 20)));
+            so.setMarriageDate(LocalDate.of(2016, 7, 4).plusDays(i % 1000));
+            so.setHusband(adult(interner, i, 0));
+            so.setWife(adult(interner, i, 1));
+            for (int c = 0; c < children; c++) {
+                Child child = new Child(copy(SUR_NAMES[i % SUR_NAMES.length]), copy(GIVEN_NAMES[(i + c) % GIVEN_NAMES.length]),
+                        copy("Павлович"), LocalDate.of(2016, 1, 11).plusDays(c));
+                child.setCertificateNumber(copy("" + (300000 + i * children + c)));
+                child.setIssueDate(LocalDate.of(2018, 6, 11));
+                child.setIssueDepartment(interner.registerOffice(1 + (i + c) % 20, "010010000000", "ЗАГС " + ((i + c) % 20)));
+                child.setAddress(address(interner, i));
+                so.addChild(child);
+            }
+            result.add(so);
+        }
+        return result;
+    }
+
+    private static Adult adult(DictionaryInterner interner, int i, int side) {
+        Adult adult = new Adult(copy(SUR_NAMES[(i + side) % SUR_NAMES.length]), copy(GIVEN_NAMES[(i + side) % GIVEN_NAMES.length]),
+                copy("Николаевич"), LocalDate.of(1995, 3, 18).plusDays(i % 3000));
+        adult.setPassportSeria(copy("" + (1000 + i % 9000)));
+        adult.setPassportNumber(copy("" + (100000 + i * 2 + side)));
+        adult.setIssueDate(LocalDate.of(2017, 9, 15));
+        adult.setIssueDepartment(interner.passportOffice(1 + side, "010010000000", "Паспортный стол " + side));
+        adult.setUniversity(interner.university(1 + i % 3, "Университет " + i % 3));
+        adult.setStudentId(copy("HH" + (10000 + i)));
+        adult.setAddress(address(interner, i));
+        return adult;
+    }
+
+    private static Address address(DictionaryInterner interner, int i) {
+        return new Address(copy("195000"), interner.street(1 + i % 500, "Улица " + i % 500),
+                copy("" + (1 + i % 90)), copy("2"), copy("" + (1 + i % 300)));
+    }
+
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    @Setup
+    public void setUp() {
+        objects = fetchedOrders(orders, children);
+        columnar = StudentOrderBatch.of(objects).asList();
+    }
+
+    @Benchmark
+    public long scanObjects() {
+        return scan(objects);
+    }
+
+    @Benchmark
+    public long scanBatch() {
+        return scan(columnar);
+    }
+
+    private static long scan(List<StudentOrder> orders) {
+        long sum = 0;
+        for (StudentOrder so : orders) {
+            sum += person(so.getHusband()) + person(so.getWife());
+            for (Child child : so.getChildren()) {
+                sum += person(child);
+            }
+        }
+        return sum;
+    }
+
+    private static long person(Person person) {
+        Address address = person.getAddress();
+        return person.getSurName().length() + person.getDayOfBirth().toEpochDay()
+                + address.getStreet().getStreetCode() + address.getApartment().length();
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long base = usedHeap();
+        List<StudentOrder> objects = fetchedOrders(orders, 2);
+        long graph = usedHeap() - base;
+        StudentOrderBatch batch = StudentOrderBatch.of(objects);
+        objects = null;
+        long columnar = usedHeap() - base;
+        System.out.printf("%d orders: object graph %d bytes/order, columnar batch %d bytes/order (%d orders kept)%n",
+                orders, graph / orders, columnar / orders, batch.size());
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
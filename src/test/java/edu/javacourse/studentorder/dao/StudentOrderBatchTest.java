@@ -0,0 +1,95 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Child;
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.StudentOrderStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class StudentOrderBatchTest {
+
+    @Test
+    public void viewsMatchSourceOrders() {
+        List<StudentOrder> orders = StudentOrderSaveBenchmark.buildOrders(50, 3);
+        orders.get(7).setStudentOrderStatus(StudentOrderStatus.CHECKED);
+        orders.get(7).setStudentOrderDate(LocalDateTime.of(2020, 2, 29, 13, 45, 10, 123456000));
+        StudentOrderBatch batch = StudentOrderBatch.of(orders);
+
+        Assert.assertEquals(50, batch.size());
+        for (int i = 0; i < orders.size(); i++) {
+            StudentOrder so = orders.get(i);
+            StudentOrder view = batch.asList().get(i);
+            Assert.assertEquals(so.toString(), view.toString());
+            Assert.assertEquals(so.getStudentOrderId(), view.getStudentOrderId());
+            Assert.assertEquals(so.getStudentOrderStatus(), view.getStudentOrderStatus());
+            Assert.assertEquals(so.getStudentOrderDate(), view.getStudentOrderDate());
+            Assert.assertEquals(so.getWife().getPassportNumber(), view.getWife().getPassportNumber());
+            Assert.assertEquals(so.getHusband().getAddress().getStreet().getStreetCode(),
+                    view.getHusband().getAddress().getStreet().getStreetCode());
+            Assert.assertEquals(3, view.getChildren().size());
+            Child child = view.getChildren().get(2);
+            Assert.assertEquals(so.getChildren().get(2).getCertificateNumber(), child.getCertificateNumber());
+            Assert.assertEquals(so.getChildren().get(2).getDayOfBirth(), child.getDayOfBirth());
+            Assert.assertEquals(so.getChildren().get(2).getIssueDepartment().getOfficeId(),
+                    child.getIssueDepartment().getOfficeId());
+        }
+    }
+
+    @Test
+    public void dictionaryValuesAreShared() {
+        StudentOrderBatch batch = StudentOrderBatch.of(StudentOrderSaveBenchmark.buildOrders(10, 2));
+        StudentOrder first = batch.get(0);
+        StudentOrder last = batch.get(9);
+        Assert.assertSame(first.getHusband().getSurName(), last.getHusband().getSurName());
+        Assert.assertSame(first.getHusband().getAddress().getStreet(), last.getWife().getAddress().getStreet());
+        Assert.assertSame(first.getMarriageOffice(), last.getMarriageOffice());
+        Assert.assertSame(first.getWife().getIssueDepartment(), last.getWife().getIssueDepartment());
+    }
+
+    @Test
+    public void ordersWithoutChildrenOrAddress() {
+        StudentOrder so = new StudentOrderDaoImplTest().buildStudentOrder(1);
+        so.getChildren().clear();
+        so.getWife().setAddress(null);
+        StudentOrderBatch batch = new StudentOrderBatch(1);
+        batch.add(so);
+        batch.add(new StudentOrderDaoImplTest().buildStudentOrder(2));
+
+        StudentOrder view = batch.get(0);
+        Assert.assertNull(view.getChildren());
+        Assert.assertNull(view.getWife().getAddress());
+        Assert.assertNull(view.getStudentOrderStatus());
+        Assert.assertEquals("10", view.getHusband().getAddress().getBuilding());
+        Assert.assertEquals(2, batch.get(1).getChildren().size());
+        Assert.assertEquals(2L, batch.getStudentOrderId(1));
+    }
+
+    @Test
+    public void addAfterCompact() {
+        StudentOrderBatch batch = StudentOrderBatch.of(StudentOrderSaveBenchmark.buildOrders(3, 1));
+        StudentOrder extra = new StudentOrderDaoImplTest().buildStudentOrder(3);
+        batch.add(extra);
+        Assert.assertEquals(4, batch.size());
+        Assert.assertEquals(extra.toString(), batch.toStudentOrder(3).toString());
+        Assert.assertEquals("Евгения", batch.get(2).getChildren().get(0).getGivenName());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewIsReadOnly() {
+        StudentOrderBatch batch = StudentOrderBatch.of(StudentOrderSaveBenchmark.buildOrders(1, 1));
+        Adult husband = batch.get(0).getHusband();
+        husband.setSurName("Петров");
+    }
+
+    @Test
+    public void copyIsModifiable() {
+        StudentOrderBatch batch = StudentOrderBatch.of(StudentOrderSaveBenchmark.buildOrders(1, 1));
+        StudentOrder copy = batch.toStudentOrder(0);
+        copy.getHusband().setSurName("Петров");
+        Assert.assertEquals("Васильев", batch.get(0).getHusband().getSurName());
+    }
+}
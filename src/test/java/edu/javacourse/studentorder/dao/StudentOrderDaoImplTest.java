@@ -1,5 +1,6 @@
 package edu.javacourse.studentorder.dao;
 
+import edu.javacourse.studentorder.config.Config;
 import edu.javacourse.studentorder.domain.Address;
 import edu.javacourse.studentorder.domain.Adult;
 import edu.javacourse.studentorder.domain.Child;
@@ -7,21 +8,29 @@ import edu.javacourse.studentorder.domain.PassportOffice;
 import edu.javacourse.studentorder.domain.RegisterOffice;
 import edu.javacourse.studentorder.domain.Street;
 import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.StudentOrderStatus;
 import edu.javacourse.studentorder.domain.University;
 import edu.javacourse.studentorder.exception.DaoException;
 import org.junit.Assert;
-import org.junit.BeforeClass;
+import org.junit.Before;
 import org.junit.Test;
 
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Properties;
 
 import static org.junit.Assert.*;
 
 public class StudentOrderDaoImplTest
 {
-    @BeforeClass
-    public static void startUp() throws Exception {
+    // Tests read every START order, so each one starts from a fresh schema
+    @Before
+    public void startUp() throws Exception {
         DBInit.startUp();
     }
 
@@ -38,11 +47,114 @@ public class StudentOrderDaoImplTest
         Long id = new StudentOrderDaoImpl().saveStudentOrder(so);
     }
 
+    @Test
+    public void saveStudentOrders() throws DaoException {
+        List<StudentOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(buildStudentOrder(30 + i));
+        }
+        orders.get(2).getWife().setSurName(null);
+        SaveOrdersResult result = new StudentOrderDaoImpl().saveStudentOrders(orders);
+        Assert.assertEquals(4, result.getSavedCount());
+        Assert.assertTrue(result.getErrors().containsKey(2));
+        Assert.assertNull(result.getIds().get(2));
+        Assert.assertTrue(result.getIds().get(1) < result.getIds().get(3));
+    }
+
+    @Test
+    public void saveStudentOrdersInvalidChunkSize() throws Exception {
+        Path file = Files.createTempFile("config", ".properties");
+        Properties props = new Properties();
+        props.putAll(Config.get().getValues());
+        props.setProperty(Config.DB_SAVE_CHUNK_SIZE, "0");
+        try (Writer w = Files.newBufferedWriter(file)) {
+            props.store(w, null);
+        }
+        System.setProperty(Config.CONFIG_FILE_PROPERTY, file.toString());
+        try {
+            Config.reload();
+            new StudentOrderDaoImpl().saveStudentOrders(Arrays.asList(buildStudentOrder(60)));
+            Assert.fail("A chunk size of 0 must be rejected");
+        } catch (DaoException ex) {
+            Assert.assertTrue(ex.getMessage().contains(Config.DB_SAVE_CHUNK_SIZE));
+        } finally {
+            System.clearProperty(Config.CONFIG_FILE_PROPERTY);
+            Config.reload();
+            Files.delete(file);
+        }
+    }
+
     @Test
     public void getStudentOrders() throws DaoException {
         List<StudentOrder> list = new StudentOrderDaoImpl().getStudentOrders();
     }
 
+    @Test
+    public void fetchStrategiesReturnSameOrders() throws DaoException {
+        StudentOrderDaoImpl dao = new StudentOrderDaoImpl();
+        StudentOrder childless = buildStudentOrder(50);
+        childless.getChildren().clear();
+        Long id = dao.saveStudentOrder(childless);
+
+        dao.saveStudentOrder(buildStudentOrder(51));
+
+        List<StudentOrder> oneSelect = dao.getStudentOrdersOneSelect();
+        List<StudentOrder> twoSelect = dao.getStudentOrdersTwoSelect();
+        Assert.assertEquals(2, oneSelect.size());
+        Assert.assertEquals((long) id, oneSelect.get(0).getStudentOrderId());
+        Assert.assertEquals(orderIds(oneSelect), orderIds(twoSelect));
+        Assert.assertEquals(childCounts(oneSelect), childCounts(twoSelect));
+    }
+
+    private static List<Long> orderIds(List<StudentOrder> orders) {
+        List<Long> ids = new ArrayList<>();
+        for (StudentOrder so : orders) {
+            ids.add(so.getStudentOrderId());
+        }
+        return ids;
+    }
+
+    private static List<Integer> childCounts(List<StudentOrder> orders) {
+        List<Integer> counts = new ArrayList<>();
+        for (StudentOrder so : orders) {
+            counts.add(so.getChildren() == null ? 0 : so.getChildren().size());
+        }
+        return counts;
+    }
+
+    @Test
+    public void readStudentOrders() throws DaoException {
+        StudentOrderDaoImpl dao = new StudentOrderDaoImpl();
+        dao.saveStudentOrder(buildStudentOrder(20));
+        List<StudentOrder> list = new ArrayList<>();
+        long count = dao.readStudentOrders(StudentOrderStatus.START, list::add);
+        Assert.assertEquals(count, list.size());
+        Assert.assertEquals(1, dao.readStudentOrders(StudentOrderStatus.START, 1, so -> { }));
+        for (StudentOrder so : list) {
+            Assert.assertEquals(2, so.getChildren().size());
+        }
+    }
+
+    @Test
+    public void claimAndMark() throws DaoException {
+        StudentOrderDaoImpl dao = new StudentOrderDaoImpl();
+        dao.saveStudentOrder(buildStudentOrder(40));
+        dao.saveStudentOrder(buildStudentOrder(41));
+
+        List<StudentOrder> first = dao.claimStudentOrders("node-1", 1000);
+        Assert.assertFalse(first.isEmpty());
+        Assert.assertTrue(dao.claimStudentOrders("node-2", 1000).isEmpty());
+
+        List<Long> ids = new ArrayList<>();
+        for (StudentOrder so : first) {
+            Assert.assertEquals(2, so.getChildren().size());
+            ids.add(so.getStudentOrderId());
+        }
+        Assert.assertEquals(0, dao.markStudentOrders(ids, StudentOrderStatus.CHECKED, "node-2"));
+        Assert.assertEquals(0, dao.markStudentOrders(ids, StudentOrderStatus.CHECKED, null));
+        Assert.assertEquals(ids.size(), dao.markStudentOrders(ids, StudentOrderStatus.CHECKED, "node-1"));
+    }
+
     public StudentOrder buildStudentOrder(long id) {
         StudentOrder so = new StudentOrder();
         so.setStudentOrderId(id);
@@ -0,0 +1,52 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.exception.DaoException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Needs the PostgreSQL from config.properties; the schema is recreated on setup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentOrderFetchBenchmark {
+
+    @Param({"100", "1000"})
+    private int orders;
+
+    @Param({"1", "3"})
+    private int children;
+
+    private StudentOrderDaoImpl dao;
+
+    @Setup
+    public void setUp() throws Exception {
+        DBInit.startUp();
+        dao = new StudentOrderDaoImpl();
+        dao.saveStudentOrders(StudentOrderSaveBenchmark.buildOrders(orders, children));
+    }
+
+    @Benchmark
+    public List<?> oneSelect() throws DaoException {
+        return dao.getStudentOrdersOneSelect();
+    }
+
+    @Benchmark
+    public List<?> twoSelect() throws DaoException {
+        return dao.getStudentOrdersTwoSelect();
+    }
+}
@@ -0,0 +1,196 @@
+package edu.javacourse.studentorder.dao;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+public class StudentOrderListenerTest {
+
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private final List<List<Long>> batches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger catchUps = new AtomicInteger();
+    private final AtomicInteger pendingCatchUps = new AtomicInteger();
+    private StudentOrderListener listener;
+
+    @After
+    public void tearDown() {
+        if (listener != null) {
+            listener.close();
+        }
+    }
+
+    @Test
+    public void notificationsWithinWindowAreBatched() throws Exception {
+        start(200, 100, 60000);
+        waitFor(() -> catchUps.get() == 1);
+        notify(1L, 2L);
+        notify(3L);
+        notify(2L);
+        waitFor(() -> batches.size() == 1);
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L), batches.get(0));
+        Assert.assertEquals(Collections.singletonList("LISTEN " + StudentOrderListener.CHANNEL), statements);
+        Assert.assertEquals(1, catchUps.get());
+    }
+
+    @Test
+    public void largeBatchesAreSliced() throws Exception {
+        start(1000, 2, 60000);
+        notify(1L, 2L, 3L, 4L, 5L);
+        waitFor(() -> batches.size() == 3);
+        Assert.assertEquals(Arrays.asList(1L, 2L), batches.get(0));
+        Assert.assertEquals(Collections.singletonList(5L), batches.get(2));
+    }
+
+    @Test
+    public void reconnectCatchesUp() throws Exception {
+        start(50, 100, 60000);
+        waitFor(() -> catchUps.get() == 1);
+        events.add(new SQLException("Connection reset"));
+        waitFor(() -> catchUps.get() == 2);
+        Assert.assertEquals(2, connections.get());
+        notify(7L);
+        waitFor(() -> batches.size() == 1);
+        Assert.assertEquals(Collections.singletonList(7L), batches.get(0));
+    }
+
+    @Test
+    public void periodicCatchUp() throws Exception {
+        start(50, 100, 100);
+        waitFor(() -> catchUps.get() >= 3);
+        Assert.assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void catchUpInBatchesBetweenNotifications() throws Exception {
+        pendingCatchUps.set(1000);
+        notify(9L);
+        start(10, 100, 60000);
+        waitFor(() -> batches.size() == 1 && catchUps.get() > 10);
+        Assert.assertEquals(Collections.singletonList(9L), batches.get(0));
+        // Once the backlog is drained the next catch-up waits for the interval
+        pendingCatchUps.set(0);
+        TimeUnit.MILLISECONDS.sleep(50);
+        int calls = catchUps.get();
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assert.assertEquals(calls, catchUps.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyBatchIsRejected() {
+        start(200, 0, 60000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeWindowIsRejected() {
+        start(-1, 100, 60000);
+    }
+
+    private void start(long window, int maxBatch, long catchUpInterval) {
+        listener = new StudentOrderListener(new StudentOrderListener.Handler() {
+            @Override
+            public void ordersCreated(List<Long> ids) {
+                batches.add(new ArrayList<>(ids));
+            }
+
+            @Override
+            public boolean catchUp() {
+                catchUps.incrementAndGet();
+                return pendingCatchUps.getAndDecrement() > 0;
+            }
+        }, this::connect, window, maxBatch, catchUpInterval, 10);
+        listener.start();
+    }
+
+    private void notify(Long... ids) {
+        PGNotification[] notifications = new PGNotification[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            notifications[i] = notification(StudentOrderListener.CHANNEL, String.valueOf(ids[i]));
+        }
+        events.add(notifications);
+    }
+
+    private static PGNotification notification(String name, String parameter) {
+        return new PGNotification() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getPID() {
+                return 1;
+            }
+
+            @Override
+            public String getParameter() {
+                return parameter;
+            }
+        };
+    }
+
+    // Connection and PGConnection in one proxy: getNotifications(timeout) waits on the event queue
+    private Connection connect() {
+        connections.incrementAndGet();
+        Statement statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Statement.class}, (proxy, method, args) -> {
+                    if ("execute".equals(method.getName())) {
+                        statements.add((String) args[0]);
+                        return false;
+                    }
+                    return null;
+                });
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Connection.class, PGConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "createStatement":
+                            return statement;
+                        case "unwrap":
+                            return proxy;
+                        case "isValid":
+                            return true;
+                        case "getNotifications":
+                            Object event;
+                            try {
+                                event = events.poll((Integer) args[0], TimeUnit.MILLISECONDS);
+                            } catch (InterruptedException ex) {
+                                throw new SQLException("Interrupted", ex);
+                            }
+                            if (event instanceof SQLException) {
+                                throw (SQLException) event;
+                            }
+                            return event;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("Condition not reached in time");
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.StudentOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentOrderMappingBenchmark {
+
+    @Param({"1000"})
+    private int orders;
+
+    @Param({"1", "3"})
+    private int children;
+
+    @Param({"NONE", "FETCH"})
+    private DictionaryInterner.Scope intern;
+
+    private List<Object[]> rows;
+
+    @Setup
+    public void setUp() {
+        rows = SyntheticResultSet.fullOrderRows(orders, children);
+    }
+
+    @Benchmark
+    public void mapByIndex(Blackhole bh) throws SQLException {
+        ResultSet rs = SyntheticResultSet.create(SyntheticResultSet.FULL_ORDER_COLUMNS, rows);
+        ResultSetColumns columns = new ResultSetColumns(rs);
+        DictionaryInterner interner = DictionaryInterner.forScope(intern);
+        StudentOrderRowMapper orderMapper = new StudentOrderRowMapper(columns, interner);
+        ChildRowMapper childMapper = new ChildRowMapper(columns, "c_", interner);
+        while (rs.next()) {
+            StudentOrder so = orderMapper.map(rs);
+            so.addChild(childMapper.map(rs));
+            bh.consume(so);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Child;
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.StudentOrderStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+public class StudentOrderRowMapperTest {
+
+    @Test
+    public void mapFullRow() throws SQLException {
+        ResultSet rs = SyntheticResultSet.create(SyntheticResultSet.FULL_ORDER_COLUMNS,
+                SyntheticResultSet.fullOrderRows(1, 1));
+        ResultSetColumns columns = new ResultSetColumns(rs);
+        StudentOrderRowMapper orderMapper = new StudentOrderRowMapper(columns);
+        ChildRowMapper childMapper = new ChildRowMapper(columns, "c_");
+
+        Assert.assertTrue(rs.next());
+        StudentOrder so = orderMapper.map(rs);
+        Assert.assertEquals(1L, so.getStudentOrderId());
+        Assert.assertEquals(StudentOrderStatus.START, so.getStudentOrderStatus());
+        Assert.assertEquals("123456000", so.getMarriageCertificateId());
+        Assert.assertEquals("ЗАГС 1 района 1 города", so.getMarriageOffice().getOfficeName());
+
+        Adult husband = so.getHusband();
+        Assert.assertEquals("Васильев", husband.getSurName());
+        Assert.assertEquals(LocalDate.of(1995, 3, 18), husband.getDayOfBirth());
+        Assert.assertEquals("Паспортный стол района 1 города", husband.getIssueDepartment().getOfficeName());
+        Assert.assertEquals(Long.valueOf(2L), husband.getUniversity().getUniversityId());
+        Adult wife = so.getWife();
+        Assert.assertEquals("Ирина", wife.getGivenName());
+        Assert.assertEquals("Паспортный стол 1 района 2 города", wife.getIssueDepartment().getOfficeName());
+        Assert.assertEquals("WW12345", wife.getStudentId());
+
+        Assert.assertTrue(childMapper.hasChild(rs));
+        Child child = childMapper.map(rs);
+        Assert.assertEquals("Евгения", child.getGivenName());
+        Assert.assertEquals("300000", child.getCertificateNumber());
+        Assert.assertEquals("ЗАГС 2 района 1 города", child.getIssueDepartment().getOfficeName());
+        Assert.assertEquals("121", child.getAddress().getApartment());
+        Assert.assertFalse(rs.next());
+    }
+
+    @Test
+    public void emptyChildSide() throws SQLException {
+        String[] columns = SyntheticResultSet.FULL_ORDER_COLUMNS;
+        Object[] row = SyntheticResultSet.fullOrderRows(1, 1).get(0);
+        int childStart = Arrays.asList(columns).indexOf("student_child_id");
+        Arrays.fill(row, childStart, row.length, null);
+        List<Object[]> rows = Arrays.<Object[]>asList(row);
+
+        ResultSet rs = SyntheticResultSet.create(columns, rows);
+        ChildRowMapper childMapper = new ChildRowMapper(rs, "c_");
+        Assert.assertTrue(rs.next());
+        Assert.assertFalse(childMapper.hasChild(rs));
+        Assert.assertEquals(1L, childMapper.getOrderId(rs));
+    }
+
+    @Test
+    public void joinedRows() throws SQLException {
+        String[] columns = SyntheticResultSet.FULL_ORDER_COLUMNS;
+        int childStart = Arrays.asList(columns).indexOf("student_child_id");
+        StudentOrderDaoImpl dao = new StudentOrderDaoImpl();
+
+        // Order 2 has no children: its single row carries null child columns
+        List<Object[]> rows = SyntheticResultSet.fullOrderRows(2, 1);
+        Arrays.fill(rows.get(1), childStart, columns.length, null);
+        List<StudentOrder> orders = dao.mapJoinedOrders(SyntheticResultSet.create(columns, rows));
+        Assert.assertEquals(2, orders.size());
+        Assert.assertEquals(1, orders.get(0).getChildren().size());
+        Assert.assertNull(orders.get(1).getChildren());
+
+        // The limit is applied to orders by the query, so the last order keeps all of its children
+        orders = dao.mapJoinedOrders(SyntheticResultSet.create(columns, SyntheticResultSet.fullOrderRows(2, 2)));
+        Assert.assertEquals(2, orders.size());
+        Assert.assertEquals(2, orders.get(0).getChildren().size());
+        Assert.assertEquals(2, orders.get(1).getChildren().size());
+    }
+
+    @Test(expected = SQLException.class)
+    public void missingColumn() throws SQLException {
+        ResultSet rs = SyntheticResultSet.create(new String[]{"student_order_id"},
+                SyntheticResultSet.fullOrderRows(0, 0));
+        new StudentOrderRowMapper(rs);
+    }
+}
@@ -0,0 +1,75 @@
+package edu.javacourse.studentorder.dao;
+
+import edu.javacourse.studentorder.domain.Child;
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.exception.DaoException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Needs the PostgreSQL from config.properties; the schema is recreated on setup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentOrderSaveBenchmark {
+
+    @Param({"100"})
+    private int orders;
+
+    @Param({"2"})
+    private int children;
+
+    private StudentOrderDaoImpl dao;
+    private List<StudentOrder> batch;
+
+    public static List<StudentOrder> buildOrders(int orders, int children) {
+        StudentOrderDaoImplTest builder = new StudentOrderDaoImplTest();
+        List<StudentOrder> result = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            StudentOrder template = builder.buildStudentOrder(i);
+            StudentOrder so = builder.buildStudentOrder(i);
+            so.getChildren().clear();
+            for (int c = 0; c < children; c++) {
+                Child child = template.getChildren().get(c % template.getChildren().size());
+                so.addChild(child);
+            }
+            result.add(so);
+        }
+        return result;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        DBInit.startUp();
+        dao = new StudentOrderDaoImpl();
+        batch = buildOrders(orders, children);
+    }
+
+    @Benchmark
+    public void saveOneByOne() throws DaoException {
+        for (StudentOrder so : batch) {
+            dao.saveStudentOrder(so);
+        }
+    }
+
+    @Benchmark
+    public SaveOrdersResult saveBulk() throws DaoException {
+        return dao.saveStudentOrders(batch);
+    }
+}
@@ -0,0 +1,130 @@
+package edu.javacourse.studentorder.dao;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class SyntheticResultSet {
+
+    public static final String[] FULL_ORDER_COLUMNS = {
+            "student_order_id", "student_order_status", "student_order_date",
+            "h_sur_name", "h_given_name", "h_patronymic", "h_date_of_birth", "h_passport_seria",
+            "h_passport_number", "h_passport_date", "h_passport_office_id", "h_post_index", "h_street_code",
+            "h_building", "h_extension", "h_appartment", "h_university_id", "h_student_number",
+            "w_sur_name", "w_given_name", "w_patronymic", "w_date_of_birth", "w_passport_seria",
+            "w_passport_number", "w_passport_date", "w_passport_office_id", "w_post_index", "w_street_code",
+            "w_building", "w_extension", "w_appartment", "w_university_id", "w_student_number",
+            "certificate_id", "register_office_id", "marriage_date", "lease_owner", "lease_expires",
+            "r_office_area_id", "r_office_name",
+            "h_p_office_area_id", "h_p_office_name", "w_p_office_area_id", "w_p_office_name",
+            "student_child_id", "student_order_id", "c_sur_name", "c_given_name", "c_patronymic",
+            "c_date_of_birth", "c_certificate_number", "c_certificate_date", "c_register_office_id",
+            "c_post_index", "c_street_code", "c_building", "c_extension", "c_appartment",
+            "c_r_office_area_id", "c_r_office_name"
+    };
+
+    public static List<Object[]> fullOrderRows(int orders, int children) {
+        Date birth = Date.valueOf(LocalDate.of(1995, 3, 18));
+        Date issue = Date.valueOf(LocalDate.of(2017, 9, 15));
+        Timestamp created = Timestamp.valueOf(LocalDateTime.of(2019, 5, 1, 10, 0));
+        List<Object[]> rows = new ArrayList<>(orders * children);
+        long childId = 1;
+        for (long id = 1; id <= orders; id++) {
+            for (int c = 0; c < children; c++) {
+                rows.add(new Object[]{
+                        id, 0, created,
+                        "Васильев", "Павел", "Николаевич", birth, "1000", "100000", issue, 1L, "195000", 1L,
+                        "10", "2", "121", 2L, "HH12345",
+                        "Васильева", "Ирина", "Петровна", birth, "2000", "200000", issue, 2L, "195000", 1L,
+                        "10", "2", "121", 1L, "WW12345",
+                        "123456000", 1L, issue, null, null,
+                        "010010000000", "ЗАГС 1 района 1 города",
+                        "010010000000", "Паспортный стол района 1 города",
+                        "010020000000", "Паспортный стол 1 района 2 города",
+                        childId++, id, "Васильева", "Евгения", "Павловна",
+                        birth, "300000", issue, 2L,
+                        "195000", 1L, "10", "2", "121",
+                        "010010000000", "ЗАГС 2 района 1 города"
+                });
+            }
+        }
+        return rows;
+    }
+
+    public static ResultSet create(String[] labels, List<Object[]> rows) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = labels.length - 1; i >= 0; i--) {
+            index.put(labels[i], i + 1);
+        }
+        ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(
+                SyntheticResultSet.class.getClassLoader(), new Class[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return labels.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return labels[(Integer) args[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        int[] row = {-1};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(
+                SyntheticResultSet.class.getClassLoader(), new Class[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    switch (name) {
+                        case "next":
+                            return ++row[0] < rows.size();
+                        case "close":
+                            return null;
+                        case "wasNull":
+                            return wasNull[0];
+                        case "getMetaData":
+                            return meta;
+                        case "findColumn":
+                            return column(index, (String) args[0]);
+                        default:
+                    }
+                    if (!name.startsWith("get") || args == null || args.length != 1) {
+                        throw new UnsupportedOperationException(name);
+                    }
+                    int col = args[0] instanceof Integer ? (Integer) args[0] : column(index, (String) args[0]);
+                    Object value = rows.get(row[0])[col - 1];
+                    wasNull[0] = value == null;
+                    switch (name) {
+                        case "getLong":
+                            return value == null ? 0L : ((Number) value).longValue();
+                        case "getInt":
+                            return value == null ? 0 : ((Number) value).intValue();
+                        case "getString":
+                            return value == null ? null : value.toString();
+                        default:
+                            return value;
+                    }
+                });
+    }
+
+    private static int column(Map<String, Integer> index, String label) throws SQLException {
+        Integer col = index.get(label);
+        if (col == null) {
+            col = index.get(label.toLowerCase(Locale.ROOT));
+        }
+        if (col == null) {
+            throw new SQLException("Unknown column: " + label);
+        }
+        return col;
+    }
+}
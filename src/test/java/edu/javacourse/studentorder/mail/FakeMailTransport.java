@@ -0,0 +1,52 @@
+package edu.javacourse.studentorder.mail;
+
+import edu.javacourse.studentorder.exception.MailException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FakeMailTransport implements MailTransport {
+
+    private final List<MailMessage> delivered = new CopyOnWriteArrayList<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger failures;
+    private final boolean broken;
+    private final CountDownLatch gate;
+
+    // failures: how many sends fail before the transport starts working, -1 for never working
+    public FakeMailTransport(int failures) {
+        this(failures, new CountDownLatch(0));
+    }
+
+    // gate: sends wait until it is open
+    public FakeMailTransport(int failures, CountDownLatch gate) {
+        this.failures = new AtomicInteger(failures);
+        this.broken = failures < 0;
+        this.gate = gate;
+    }
+
+    @Override
+    public void send(MailMessage message) throws MailException {
+        attempts.incrementAndGet();
+        try {
+            gate.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MailException("Interrupted", ex);
+        }
+        if (broken || failures.getAndDecrement() > 0) {
+            throw new MailException("Connection refused");
+        }
+        delivered.add(message);
+    }
+
+    public List<MailMessage> getDelivered() {
+        return delivered;
+    }
+
+    public int getAttempts() {
+        return attempts.get();
+    }
+}
@@ -0,0 +1,159 @@
+package edu.javacourse.studentorder.mail;
+
+import edu.javacourse.studentorder.exception.MailException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class MailSenderTest {
+
+    private Path spool;
+
+    @Before
+    public void setUp() throws IOException {
+        spool = Files.createTempDirectory("mail-spool");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(spool)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private MailSender buildSender(MailTransport transport, int queueSize, int maxAttempts) {
+        return new MailSender(transport, "office@localhost", queueSize, 10, 200, maxAttempts, 10, spool, 60000);
+    }
+
+    private long spooled() throws IOException {
+        try (Stream<Path> files = Files.list(spool)) {
+            return files.filter(p -> p.toString().endsWith(".mail")).count();
+        }
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void coalescePerRecipient() throws InterruptedException {
+        FakeMailTransport transport = new FakeMailTransport(0);
+        MailSender sender = buildSender(transport, 100, 3);
+        sender.start();
+        for (int i = 0; i < 4; i++) {
+            sender.send(new MailMessage("a@localhost", "order " + i, "order " + i));
+        }
+        sender.send(new MailMessage("b@localhost", "order 9", "order 9"));
+        waitFor(() -> transport.getDelivered().size() == 2);
+        sender.close();
+
+        MailMessage first = transport.getDelivered().get(0);
+        Assert.assertEquals("a@localhost", first.getRecipient());
+        Assert.assertEquals("4 notifications", first.getSubject());
+        Assert.assertTrue(first.getBody().contains("order 3"));
+        Assert.assertEquals("order 9", transport.getDelivered().get(1).getSubject());
+    }
+
+    @Test
+    public void retryWithBackoff() throws InterruptedException {
+        FakeMailTransport transport = new FakeMailTransport(2);
+        MailSender sender = buildSender(transport, 100, 5);
+        sender.start();
+        sender.send(new MailMessage("a@localhost", "order 1", "order 1"));
+        waitFor(() -> transport.getDelivered().size() == 1);
+        sender.close();
+        Assert.assertEquals(3, transport.getAttempts());
+    }
+
+    @Test
+    public void spoolAndReplayAfterRestart() throws Exception {
+        FakeMailTransport broken = new FakeMailTransport(-1);
+        MailSender sender = buildSender(broken, 100, 2);
+        sender.start();
+        sender.send(new MailMessage("a@localhost", "order 1", "order 1"));
+        waitFor(() -> broken.getAttempts() == 2);
+        sender.close();
+        Assert.assertEquals(1, spooled());
+
+        FakeMailTransport working = new FakeMailTransport(0);
+        MailSender restarted = buildSender(working, 100, 2);
+        restarted.start();
+        waitFor(() -> working.getDelivered().size() == 1);
+        restarted.close();
+        Assert.assertEquals("order 1", working.getDelivered().get(0).getBody());
+        Assert.assertEquals(0, spooled());
+    }
+
+    @Test
+    public void queuedMessagesSurviveCrash() throws Exception {
+        // Never started and never closed, as if the process was killed before the worker got to them
+        MailSender crashed = buildSender(new FakeMailTransport(0), 100, 2);
+        for (int i = 0; i < 3; i++) {
+            crashed.send(new MailMessage("a@localhost", "order " + i, "order " + i));
+        }
+        Assert.assertEquals(3, crashed.getQueueSize());
+        Assert.assertEquals(3, spooled());
+
+        FakeMailTransport working = new FakeMailTransport(0);
+        MailSender restarted = buildSender(working, 100, 2);
+        restarted.start();
+        waitFor(() -> working.getDelivered().size() == 1);
+        restarted.close();
+        Assert.assertEquals("3 notifications", working.getDelivered().get(0).getSubject());
+        Assert.assertEquals(0, spooled());
+    }
+
+    @Test
+    public void closeDuringRetrySpoolsOnlyUnsent() throws Exception {
+        List<MailMessage> delivered = new CopyOnWriteArrayList<>();
+        AtomicInteger failed = new AtomicInteger();
+        MailTransport transport = message -> {
+            if (message.getRecipient().startsWith("b@")) {
+                failed.incrementAndGet();
+                throw new MailException("Connection refused");
+            }
+            delivered.add(message);
+        };
+        MailSender sender = new MailSender(transport, "office@localhost", 100, 10, 200, 5, 60000, spool, 60000);
+        sender.start();
+        sender.send(new MailMessage("a@localhost", "order 1", "order 1"));
+        sender.send(new MailMessage("a@localhost", "order 2", "order 2"));
+        sender.send(new MailMessage("b@localhost", "order 3", "order 3"));
+        waitFor(() -> failed.get() == 1);
+
+        // The worker sleeps before the next attempt for b until close() interrupts it
+        sender.close();
+        Assert.assertEquals(1, delivered.size());
+        Assert.assertEquals(1, spooled());
+    }
+
+    @Test
+    public void fullQueueDoesNotBlock() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        FakeMailTransport slow = new FakeMailTransport(0, gate);
+        MailSender sender = buildSender(slow, 2, 3);
+        sender.start();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 20; i++) {
+            sender.send(new MailMessage("a@localhost", "order " + i, "order " + i));
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        Assert.assertTrue(spooled() > 0);
+        gate.countDown();
+        sender.close();
+    }
+}
@@ -0,0 +1,61 @@
+package edu.javacourse.studentorder.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class HistogramTest {
+
+    @Test
+    public void bucketsCoverValues() {
+        for (long v : new long[]{0, 1, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE}) {
+            int bucket = Histogram.bucket(v);
+            Assert.assertTrue("value " + v, v <= Histogram.bucketLimit(bucket));
+            if (bucket > 0) {
+                Assert.assertTrue("value " + v, v > Histogram.bucketLimit(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        Histogram h = new Histogram(true, false);
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i);
+        }
+        Assert.assertEquals(1000, h.getCount());
+        Assert.assertEquals(500.5, h.getMean(), 0.001);
+        Assert.assertEquals(1000, h.getMax(), 0.001);
+        // Bucket width is 1/16 of the value
+        Assert.assertEquals(500, h.get50thPercentile(), 500 / 16.0);
+        Assert.assertEquals(990, h.get99thPercentile(), 990 / 16.0);
+    }
+
+    @Test
+    public void timeInMillis() {
+        Histogram h = new Histogram(true, true);
+        h.record(TimeUnit.MILLISECONDS.toNanos(20));
+        Assert.assertEquals(20, h.getMax(), 0.001);
+        Assert.assertEquals(20, h.get50thPercentile(), 20 / 16.0);
+    }
+
+    @Test
+    public void concurrentRecord() throws InterruptedException {
+        Histogram h = new Histogram(true, false);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    h.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Assert.assertEquals(40000, h.getCount());
+        Assert.assertEquals(9999, h.getMax(), 0.001);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.javacourse.studentorder.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class MetricRegistryTest {
+
+    @Test
+    public void disabledRecordsNothing() {
+        MetricRegistry registry = new MetricRegistry(false, false);
+        Assert.assertEquals(0, registry.startTimer());
+        registry.counter("c").inc();
+        registry.timer("t").recordSince(registry.startTimer());
+        Assert.assertEquals(0, registry.counter("c").getCount());
+        Assert.assertEquals(0, registry.timer("t").getCount());
+    }
+
+    @Test
+    public void sameMetricByName() {
+        MetricRegistry registry = new MetricRegistry(true, false);
+        registry.counter("orders").inc();
+        registry.counter("orders").add(2);
+        Assert.assertEquals(3, registry.counter("orders").getCount());
+        Assert.assertSame(registry.timer("fetch"), registry.timer("fetch"));
+    }
+
+    @Test
+    public void exportedToJmx() throws Exception {
+        MetricRegistry registry = new MetricRegistry(true, true);
+        registry.counter("test.jmx.counter").add(5);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MetricRegistry.JMX_DOMAIN + ":type=Counter,name="
+                + ObjectName.quote("test.jmx.counter"));
+        Assert.assertEquals(5L, server.getAttribute(name, "Count"));
+    }
+
+    @Test
+    public void gaugeReadsLatestSource() throws Exception {
+        MetricRegistry registry = new MetricRegistry(true, true);
+        registry.gauge("test.jmx.gauge", () -> 1);
+        registry.gauge("test.jmx.gauge", () -> 2.5);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(MetricRegistry.JMX_DOMAIN + ":type=Gauge,name="
+                + ObjectName.quote("test.jmx.gauge"));
+        Assert.assertEquals(2.5, (Double) server.getAttribute(name, "Value"), 0);
+    }
+
+    @Test
+    public void csvReport() throws Exception {
+        Path csv = Files.createTempFile("metrics", ".csv");
+        Files.delete(csv);
+        MetricRegistry registry = new MetricRegistry(true, false);
+        registry.counter("saved").add(7);
+        registry.histogram("rows").record(10);
+        MetricsReporter reporter = new MetricsReporter(registry, csv.toString());
+        reporter.report();
+        reporter.report();
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        Assert.assertEquals(5, lines.size());
+        Assert.assertEquals(MetricsReporter.CSV_HEADER, lines.get(0));
+        Assert.assertTrue(lines.get(1).contains(",saved,7,"));
+        Assert.assertTrue(lines.get(2).contains(",rows,1,10.000,"));
+        Files.delete(csv);
+    }
+}
@@ -0,0 +1,118 @@
+package edu.javacourse.studentorder.pipeline;
+
+import edu.javacourse.studentorder.domain.StudentOrder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ValidationPipelineTest {
+
+    private static ValidationPipeline.OrderSource orders(int count) {
+        return sink -> {
+            for (int i = 0; i < count; i++) {
+                StudentOrder so = new StudentOrder();
+                so.setStudentOrderId(i);
+                sink.accept(so);
+            }
+        };
+    }
+
+    @Test
+    public void allOrdersPassAllStages() throws Exception {
+        ConcurrentHashMap<Long, String> trace = new ConcurrentHashMap<>();
+        ValidationPipeline pipeline = new ValidationPipeline(4)
+                .addStage("a", 3, ctx -> trace.merge(ctx.getStudentOrder().getStudentOrderId(), "a", String::concat))
+                .addStage("b", 2, ctx -> trace.merge(ctx.getStudentOrder().getStudentOrderId(), "b", String::concat))
+                .addStage("c", 1, ctx -> trace.merge(ctx.getStudentOrder().getStudentOrderId(), "c", String::concat));
+
+        Assert.assertEquals(200, pipeline.run(orders(200)));
+        Assert.assertEquals(200, trace.size());
+        trace.values().forEach(v -> Assert.assertEquals("abc", v));
+        for (Stage stage : pipeline.getStages()) {
+            Assert.assertEquals(200, stage.getProcessedCount());
+            Assert.assertEquals(0, stage.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void failedOrderSkipsChecks() throws Exception {
+        List<Long> checked = new CopyOnWriteArrayList<>();
+        List<String> persisted = new CopyOnWriteArrayList<>();
+        ValidationPipeline pipeline = new ValidationPipeline(10)
+                .addStage("check", 2, ctx -> {
+                    if (ctx.getStudentOrder().getStudentOrderId() % 2 == 0) {
+                        throw new IllegalStateException("bad order");
+                    }
+                })
+                .addStage("next", 1, ctx -> checked.add(ctx.getStudentOrder().getStudentOrderId()))
+                .addStage("persist", 1, true, ctx -> persisted.add(
+                        ctx.getStudentOrder().getStudentOrderId() + ":" + ctx.getFailedStage()));
+
+        pipeline.run(orders(10));
+        Assert.assertEquals(5, checked.size());
+        checked.forEach(id -> Assert.assertEquals(1, id % 2));
+        Assert.assertEquals(10, persisted.size());
+        Assert.assertTrue(persisted.contains("0:check"));
+        Assert.assertTrue(persisted.contains("1:null"));
+        Assert.assertEquals(5, pipeline.getStages().get(0).getFailedCount());
+    }
+
+    @Test(timeout = 10000)
+    public void errorInHandlerDoesNotStopWorker() throws Exception {
+        List<String> persisted = new CopyOnWriteArrayList<>();
+        ValidationPipeline pipeline = new ValidationPipeline(2)
+                .addStage("check", 1, ctx -> {
+                    if (ctx.getStudentOrder().getStudentOrderId() == 3) {
+                        throw new LinkageError("broken handler");
+                    }
+                })
+                .addStage("persist", 1, true, ctx -> persisted.add(
+                        ctx.getStudentOrder().getStudentOrderId() + ":" + ctx.getFailedStage()));
+
+        // The single worker keeps taking orders after the error, so the reader never blocks for good
+        Assert.assertEquals(20, pipeline.run(orders(20)));
+        Assert.assertEquals(20, persisted.size());
+        Assert.assertTrue(persisted.contains("3:check"));
+        Assert.assertEquals(1, pipeline.getStages().get(0).getFailedCount());
+    }
+
+    @Test
+    public void slowStageHoldsBackReader() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong fetched = new AtomicLong();
+        ValidationPipeline pipeline = new ValidationPipeline(2)
+                .addStage("fast", 1, ctx -> {
+                })
+                .addStage("slow", 1, ctx -> release.await());
+
+        Thread reader = new Thread(() -> {
+            try {
+                pipeline.run(sink -> {
+                    for (int i = 0; i < 100; i++) {
+                        StudentOrder so = new StudentOrder();
+                        so.setStudentOrderId(i);
+                        sink.accept(so);
+                        fetched.incrementAndGet();
+                    }
+                });
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        reader.start();
+        Thread.sleep(300);
+        // One order in each worker's hands plus two full queues and the one the fast stage is blocked on
+        Assert.assertTrue("fetched " + fetched.get(), fetched.get() <= 6);
+        Assert.assertEquals(2, pipeline.getStages().get(1).getQueueDepth());
+        release.countDown();
+        reader.join(TimeUnit.SECONDS.toMillis(10));
+        Assert.assertFalse(reader.isAlive());
+        Assert.assertEquals(100, pipeline.getStages().get(1).getProcessedCount());
+    }
+}
@@ -0,0 +1,118 @@
+package edu.javacourse.studentorder.validator;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Child;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.domain.StudentOrder;
+import edu.javacourse.studentorder.domain.register.AnswerCityRegister;
+import edu.javacourse.studentorder.domain.register.AnswerCityRegisterItem;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import edu.javacourse.studentorder.exception.CityRegisterException;
+import edu.javacourse.studentorder.validator.register.FakeCityRegisterChecker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+
+public class CityRegisterValidatorTest {
+
+    private StudentOrder buildOrder(String husbandSeria, String wifeSeria) {
+        Address address = new Address("195000", new Street(1L, ""), "10", "2", "121");
+        StudentOrder so = new StudentOrder();
+        Adult husband = new Adult("Васильев", "Павел", "Николаевич", LocalDate.of(1995, 3, 18));
+        husband.setPassportSeria(husbandSeria);
+        husband.setAddress(address);
+        Adult wife = new Adult("Васильева", "Ирина", "Петровна", LocalDate.of(1997, 8, 21));
+        wife.setPassportSeria(wifeSeria);
+        wife.setAddress(address);
+        Child child = new Child("Васильева", "Евгения", "Павловна", LocalDate.of(2016, 1, 11));
+        child.setAddress(address);
+        so.setHusband(husband);
+        so.setWife(wife);
+        so.addChild(child);
+        return so;
+    }
+
+    @Test
+    public void checkOneBatchPerOrder() {
+        FakeCityRegisterChecker checker = new FakeCityRegisterChecker();
+        CityRegisterValidator validator = new CityRegisterValidator(checker);
+        AnswerCityRegister ans = validator.checkCityRegister(buildOrder("1000", "2001"));
+
+        Assert.assertEquals(1, checker.getBatchCount());
+        Assert.assertEquals(3, ans.getItems().size());
+        Assert.assertEquals(AnswerCityRegisterItem.CityStatus.YES, ans.getItems().get(0).getStatus());
+        Assert.assertEquals(AnswerCityRegisterItem.CityStatus.NO, ans.getItems().get(1).getStatus());
+        Assert.assertEquals(AnswerCityRegisterItem.CityStatus.YES, ans.getItems().get(2).getStatus());
+    }
+
+    @Test
+    public void checkBatchError() {
+        CityRegisterValidator validator = new CityRegisterValidator(new FakeCityRegisterChecker());
+        AnswerCityRegister ans = validator.checkCityRegister(buildOrder("1002", "2000"));
+
+        for (AnswerCityRegisterItem item : ans.getItems()) {
+            Assert.assertEquals(AnswerCityRegisterItem.CityStatus.ERROR, item.getStatus());
+            Assert.assertEquals("1", item.getError().getCode());
+        }
+    }
+
+    private static void pause(long millis) throws CityRegisterException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            throw new CityRegisterException("1", "Interrupted", ex);
+        }
+    }
+
+    @Test
+    public void checkConcurrentlyInOrder() {
+        ExecutorService executor = CityRegisterValidator.buildExecutor(3);
+        try {
+            // Husband answers last, the item order must not follow the answer order
+            CityRegisterValidator validator = new CityRegisterValidator(person -> {
+                if ("Павел".equals(person.getGivenName())) {
+                    pause(100);
+                }
+                return new FakeCityRegisterChecker().checkPerson(person);
+            }, executor, 2000);
+            AnswerCityRegister ans = validator.checkCityRegister(buildOrder("1000", "2001"));
+
+            Assert.assertEquals(3, ans.getItems().size());
+            Assert.assertEquals("Павел", ans.getItems().get(0).getPerson().getGivenName());
+            Assert.assertEquals(AnswerCityRegisterItem.CityStatus.YES, ans.getItems().get(0).getStatus());
+            Assert.assertEquals(AnswerCityRegisterItem.CityStatus.NO, ans.getItems().get(1).getStatus());
+            Assert.assertEquals(AnswerCityRegisterItem.CityStatus.YES, ans.getItems().get(2).getStatus());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void checkConcurrentlyDeadline() {
+        ExecutorService executor = CityRegisterValidator.buildExecutor(3);
+        try {
+            CityRegisterValidator validator = new CityRegisterValidator(person -> {
+                if (person instanceof Child) {
+                    pause(5000);
+                }
+                CityRegisterResponse res = new CityRegisterResponse();
+                res.setRegistered(true);
+                return res;
+            }, executor, 200);
+            long start = System.currentTimeMillis();
+            AnswerCityRegister ans = validator.checkCityRegister(buildOrder("1000", "2000"));
+
+            Assert.assertTrue(System.currentTimeMillis() - start < 2000);
+            Assert.assertEquals(AnswerCityRegisterItem.CityStatus.YES, ans.getItems().get(0).getStatus());
+            Assert.assertEquals(AnswerCityRegisterItem.CityStatus.YES, ans.getItems().get(1).getStatus());
+            AnswerCityRegisterItem child = ans.getItems().get(2);
+            Assert.assertEquals(AnswerCityRegisterItem.CityStatus.ERROR, child.getStatus());
+            Assert.assertEquals(CityRegisterValidator.TIMEOUT_CODE, child.getError().getCode());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
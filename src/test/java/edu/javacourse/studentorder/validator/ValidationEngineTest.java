@@ -0,0 +1,68 @@
+package edu.javacourse.studentorder.validator;
+
+import edu.javacourse.studentorder.domain.StudentOrder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ValidationEngineTest {
+
+    private List<StudentOrder> buildOrders(int count) {
+        List<StudentOrder> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StudentOrder so = new StudentOrder();
+            so.setStudentOrderId(i);
+            orders.add(so);
+        }
+        return orders;
+    }
+
+    @Test
+    public void orderedResults() {
+        ValidationEngine engine = new ValidationEngine(4, false);
+        List<OrderCheckResult<Long>> results = engine.checkAll(buildOrders(50), so -> {
+            Thread.sleep(50 - so.getStudentOrderId());
+            return so.getStudentOrderId();
+        });
+        Assert.assertEquals(50, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(Long.valueOf(i), results.get(i).getAnswer());
+        }
+    }
+
+    @Test
+    public void errorIsolation() {
+        ValidationEngine engine = new ValidationEngine(3, false);
+        List<OrderCheckResult<Long>> results = engine.checkAll(buildOrders(10), so -> {
+            if (so.getStudentOrderId() % 3 == 0) {
+                throw new IllegalStateException("Order " + so.getStudentOrderId());
+            }
+            return so.getStudentOrderId();
+        });
+        for (OrderCheckResult<Long> r : results) {
+            boolean bad = r.getStudentOrder().getStudentOrderId() % 3 == 0;
+            Assert.assertEquals(bad, !r.isSuccess());
+            if (bad) {
+                Assert.assertTrue(r.getError() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    @Test
+    public void boundedParallelism() {
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger max = new AtomicInteger();
+        ValidationEngine engine = new ValidationEngine(5, true);
+        engine.checkAll(buildOrders(40), so -> {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            current.decrementAndGet();
+            return null;
+        });
+        Assert.assertTrue(max.get() <= 5);
+        Assert.assertTrue(max.get() > 1);
+    }
+}
@@ -0,0 +1,187 @@
+package edu.javacourse.studentorder.validator.register;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import edu.javacourse.studentorder.exception.CityRegisterException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingCityRegisterCheckerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong(1000);
+
+    private final CityRegisterChecker delegate = person -> {
+        calls.incrementAndGet();
+        CityRegisterResponse res = new CityRegisterResponse();
+        res.setRegistered(!person.getSurName().startsWith("NO"));
+        return res;
+    };
+
+    private Person buildPerson(String surName) {
+        Adult adult = new Adult(surName, "Павел", "Николаевич", LocalDate.of(1995, 3, 18));
+        adult.setAddress(new Address("195000", new Street(1L, ""), "10", "2", "121"));
+        return adult;
+    }
+
+    private CachingCityRegisterChecker buildChecker(CityRegisterChecker checker, int size, boolean negative) {
+        return new CachingCityRegisterChecker(checker, size, 100, negative, now::get);
+    }
+
+    @Test
+    public void hitAndExpire() throws CityRegisterException {
+        CachingCityRegisterChecker checker = buildChecker(delegate, 10, false);
+        checker.checkPerson(buildPerson("Васильев"));
+        checker.checkPerson(buildPerson("Васильев"));
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(1, checker.getHitCount());
+
+        now.addAndGet(101);
+        checker.checkPerson(buildPerson("Васильев"));
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void callersGetOwnCopies() throws CityRegisterException {
+        CachingCityRegisterChecker checker = buildChecker(delegate, 10, false);
+        CityRegisterResponse first = checker.checkPerson(buildPerson("Васильев"));
+        first.setRegistered(false);
+
+        CityRegisterResponse second = checker.checkPerson(buildPerson("Васильев"));
+        Assert.assertTrue(second.isRegistered());
+        Assert.assertNotSame(second, checker.checkPerson(buildPerson("Васильев")));
+        Assert.assertTrue(checker.checkPersons(Arrays.asList(buildPerson("Васильев"))).get(0).isRegistered());
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void negativeCaching() throws CityRegisterException {
+        CachingCityRegisterChecker plain = buildChecker(delegate, 10, false);
+        plain.checkPerson(buildPerson("NO"));
+        plain.checkPerson(buildPerson("NO"));
+        Assert.assertEquals(2, calls.get());
+
+        CachingCityRegisterChecker negative = buildChecker(delegate, 10, true);
+        negative.checkPerson(buildPerson("NO"));
+        negative.checkPerson(buildPerson("NO"));
+        Assert.assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void lruEviction() throws CityRegisterException {
+        CachingCityRegisterChecker checker = buildChecker(delegate, 2, false);
+        checker.checkPerson(buildPerson("A"));
+        checker.checkPerson(buildPerson("B"));
+        checker.checkPerson(buildPerson("A"));
+        checker.checkPerson(buildPerson("C"));
+        Assert.assertEquals(2, checker.getSize());
+        Assert.assertEquals(1, checker.getEvictionCount());
+
+        checker.checkPerson(buildPerson("A"));
+        Assert.assertEquals(3, calls.get());
+        checker.checkPerson(buildPerson("B"));
+        Assert.assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void batchUsesCache() throws CityRegisterException {
+        CachingCityRegisterChecker checker = buildChecker(delegate, 10, false);
+        checker.checkPerson(buildPerson("A"));
+        List<CityRegisterResponse> res = checker.checkPersons(Arrays.asList(
+                buildPerson("A"), buildPerson("B"), buildPerson("NO"), buildPerson("B")));
+        Assert.assertEquals(4, res.size());
+        Assert.assertFalse(res.get(2).isRegistered());
+        // The duplicate is checked once but each position gets its own copy
+        Assert.assertNotSame(res.get(1), res.get(3));
+        Assert.assertTrue(res.get(3).isRegistered());
+        Assert.assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void singleFlight() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CityRegisterChecker slow = person -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                throw new CityRegisterException("1", "interrupted");
+            }
+            return new CityRegisterResponse();
+        };
+        CachingCityRegisterChecker checker = buildChecker(slow, 10, true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> first = executor.submit(() -> checker.checkPerson(buildPerson("A")));
+            while (calls.get() == 0) {
+                Thread.sleep(1);
+            }
+            Future<?> second = executor.submit(() -> checker.checkPerson(buildPerson("A")));
+            while (checker.getJoinedCount() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void errorReleasesJoinedCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CityRegisterChecker failing = person -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                throw new CityRegisterException("1", "interrupted");
+            }
+            throw new AssertionError("loader failed");
+        };
+        CachingCityRegisterChecker checker = buildChecker(failing, 10, true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> checker.checkPerson(buildPerson("A")));
+            while (calls.get() == 0) {
+                Thread.sleep(1);
+            }
+            Future<?> second = executor.submit(() -> checker.checkPerson(buildPerson("A")));
+            while (checker.getJoinedCount() == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            try {
+                second.get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException ex) {
+                Assert.assertTrue(ex.getCause() instanceof CityRegisterException);
+            }
+            try {
+                first.get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException ex) {
+                Assert.assertTrue(ex.getCause() instanceof AssertionError);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
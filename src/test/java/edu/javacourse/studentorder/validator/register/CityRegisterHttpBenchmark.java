@@ -0,0 +1,76 @@
+package edu.javacourse.studentorder.validator.register;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.exception.CityRegisterException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.ws.rs.client.Client;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Client side of the register call over loopback HTTP: serialization, connection reuse and batching
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CityRegisterHttpBenchmark {
+
+    @Param({"4", "50"})
+    private int persons;
+
+    private CityRegisterServer server;
+    private Client client;
+    private RealCityRegisterChecker checker;
+    private List<Person> batch;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new CityRegisterServer();
+        client = RealCityRegisterChecker.buildClient(1000, 5000, 50, 50);
+        checker = new RealCityRegisterChecker(client, server.getUrl(), server.getBatchUrl());
+        batch = new ArrayList<>(persons);
+        for (int i = 0; i < persons; i++) {
+            Adult adult = new Adult("Васильев", "Павел", "Николаевич", LocalDate.of(1995, 3, 18));
+            adult.setAddress(new Address("195000", new Street(1L, "First street"), "10", "2", String.valueOf(i)));
+            batch.add(adult);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void checkOneByOne(Blackhole bh) throws CityRegisterException {
+        for (Person person : batch) {
+            bh.consume(checker.checkPerson(person));
+        }
+    }
+
+    @Benchmark
+    public void checkBatch(Blackhole bh) throws CityRegisterException {
+        bh.consume(checker.checkPersons(batch));
+    }
+}
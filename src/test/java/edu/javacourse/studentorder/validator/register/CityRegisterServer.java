@@ -0,0 +1,311 @@
+package edu.javacourse.studentorder.validator.register;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.javacourse.studentorder.domain.register.CityRegisterBatchRequest;
+import edu.javacourse.studentorder.domain.register.CityRegisterBatchResponse;
+import edu.javacourse.studentorder.domain.register.CityRegisterRequest;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+import org.eclipse.persistence.jaxb.MarshallerProperties;
+import org.eclipse.persistence.jaxb.UnmarshallerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Local stand-in for the city register service: same JSON contract as cr.url and cr.batch.url,
+// with adjustable latency, errors, throttling and slow responses. Binds to the loopback interface only.
+public class CityRegisterServer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CityRegisterServer.class);
+
+    public static final String CHECK_PATH = "/city-register-1.0/rest/check";
+    public static final String BATCH_PATH = CHECK_PATH + "/batch";
+
+    public interface Latency {
+        long next(Random random);
+
+        static Latency none() {
+            return r -> 0;
+        }
+
+        static Latency fixed(long millis) {
+            return r -> millis;
+        }
+
+        static Latency uniform(long min, long max) {
+            return r -> min + (long) (r.nextDouble() * (max - min));
+        }
+
+        // Log-normal with the given median and 99th percentile: most calls are fast, a few are very slow
+        static Latency longTail(long median, long p99) {
+            double mu = Math.log(median);
+            double sigma = (Math.log(p99) - mu) / 2.326;
+            return r -> (long) Math.exp(mu + sigma * r.nextGaussian());
+        }
+    }
+
+    static {
+        // Headers and body go out in separate writes; with Nagle on, every answer waits for a delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static final JAXBContext JSON_CONTEXT = buildContext();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile Latency latency = Latency.none();
+    private volatile Latency perPersonLatency = Latency.none();
+    private volatile double errorRate;
+    private volatile int errorStatus = 500;
+    private volatile Semaphore inFlight;
+    private volatile long retryAfter = 1;
+    private volatile int drainBytesPerSecond;
+    private volatile Function<CityRegisterRequest, CityRegisterResponse> answers = CityRegisterServer::registered;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder persons = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    public CityRegisterServer() throws IOException {
+        this(0, 50);
+    }
+
+    public CityRegisterServer(int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger number = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "city-register-server-" + number.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext(CHECK_PATH, this::handle);
+        server.start();
+        logger.info("City register stand-in listening on {}", getUrl());
+    }
+
+    private static JAXBContext buildContext() {
+        try {
+            return JAXBContextFactory.createContext(new Class[]{
+                    CityRegisterRequest.class, CityRegisterResponse.class,
+                    CityRegisterBatchRequest.class, CityRegisterBatchResponse.class}, null);
+        } catch (JAXBException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public static CityRegisterResponse registered(CityRegisterRequest request) {
+        CityRegisterResponse response = new CityRegisterResponse();
+        response.setRegistered(true);
+        response.setTemporal(request.getApartment() == null);
+        return response;
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + CHECK_PATH;
+    }
+
+    public String getBatchUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + BATCH_PATH;
+    }
+
+    public void setLatency(Latency latency) {
+        this.latency = latency;
+    }
+
+    // Added once per person in a request, so batch calls get slower with their size
+    public void setPerPersonLatency(Latency perPersonLatency) {
+        this.perPersonLatency = perPersonLatency;
+    }
+
+    public void setErrorRate(double errorRate, int errorStatus) {
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    // Requests above maxConcurrent are answered 429 at once; 0 turns throttling off
+    public void setThrottle(int maxConcurrent, long retryAfterSeconds) {
+        this.inFlight = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        this.retryAfter = retryAfterSeconds;
+    }
+
+    // Response bodies are written at this rate after the headers; 0 writes them at once
+    public void setSlowDrain(int bytesPerSecond) {
+        this.drainBytesPerSecond = bytesPerSecond;
+    }
+
+    public void setAnswers(Function<CityRegisterRequest, CityRegisterResponse> answers) {
+        this.answers = answers;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        Semaphore limit = inFlight;
+        if (limit != null && !limit.tryAcquire()) {
+            throttled.increment();
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter));
+            sendStatus(exchange, 429);
+            return;
+        }
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendStatus(exchange, 405);
+                return;
+            }
+            boolean batch = exchange.getRequestURI().getPath().endsWith("/batch");
+            Object answer;
+            int count;
+            try (InputStream in = exchange.getRequestBody()) {
+                if (batch) {
+                    List<CityRegisterRequest> list = read(in, CityRegisterBatchRequest.class).getPersons();
+                    List<CityRegisterResponse> responses = new ArrayList<>(list.size());
+                    for (CityRegisterRequest request : list) {
+                        responses.add(answers.apply(request));
+                    }
+                    CityRegisterBatchResponse response = new CityRegisterBatchResponse();
+                    response.setResponses(responses);
+                    answer = response;
+                    count = list.size();
+                } else {
+                    answer = answers.apply(read(in, CityRegisterRequest.class));
+                    count = 1;
+                }
+            } catch (JAXBException | RuntimeException ex) {
+                logger.debug("Bad request: {}", ex.getMessage());
+                sendStatus(exchange, 400);
+                return;
+            }
+            persons.add(count);
+
+            Random random = ThreadLocalRandom.current();
+            long delay = latency.next(random);
+            Latency personLatency = perPersonLatency;
+            for (int i = 0; i < count; i++) {
+                delay += personLatency.next(random);
+            }
+            pause(delay);
+
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                errors.increment();
+                sendStatus(exchange, errorStatus);
+                return;
+            }
+            send(exchange, write(answer));
+        } finally {
+            if (limit != null) {
+                limit.release();
+            }
+        }
+    }
+
+    private void send(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        int rate = drainBytesPerSecond;
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (rate <= 0) {
+                out.write(body);
+                return;
+            }
+            // Ten chunks a second, each flushed so the client sees the body trickle in
+            int chunk = Math.max(1, rate / 10);
+            for (int pos = 0; pos < body.length; pos += chunk) {
+                out.write(body, pos, Math.min(chunk, body.length - pos));
+                out.flush();
+                pause(100);
+            }
+        }
+    }
+
+    private void sendStatus(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T read(InputStream in, Class<T> type) throws JAXBException {
+        Unmarshaller unmarshaller = JSON_CONTEXT.createUnmarshaller();
+        unmarshaller.setProperty(UnmarshallerProperties.MEDIA_TYPE, "application/json");
+        unmarshaller.setProperty(UnmarshallerProperties.JSON_INCLUDE_ROOT, false);
+        return unmarshaller.unmarshal(new StreamSource(in), type).getValue();
+    }
+
+    private static byte[] write(Object answer) throws IOException {
+        try {
+            Marshaller marshaller = JSON_CONTEXT.createMarshaller();
+            marshaller.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
+            marshaller.setProperty(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            marshaller.marshal(answer, out);
+            return out.toByteArray();
+        } catch (JAXBException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getPersonCount() {
+        return persons.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        CityRegisterServer server = new CityRegisterServer(args.length > 0 ? Integer.parseInt(args[0]) : 8080, 50);
+        server.setLatency(Latency.longTail(20, 200));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        Thread.currentThread().join();
+    }
+}
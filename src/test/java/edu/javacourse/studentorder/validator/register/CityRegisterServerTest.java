@@ -0,0 +1,126 @@
+package edu.javacourse.studentorder.validator.register;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import edu.javacourse.studentorder.exception.CityRegisterException;
+import edu.javacourse.studentorder.validator.register.codec.MoxyCityRegisterCodec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class CityRegisterServerTest {
+
+    private CityRegisterServer server;
+    private Client client;
+    private RealCityRegisterChecker checker;
+
+    @Before
+    public void startUp() throws Exception {
+        server = new CityRegisterServer();
+        client = RealCityRegisterChecker.buildClient(1000, 500, 10, 10);
+        checker = new RealCityRegisterChecker(client, server.getUrl(), server.getBatchUrl());
+    }
+
+    @After
+    public void shutDown() {
+        client.close();
+        server.close();
+    }
+
+    private static Person person(int i, String apartment) {
+        Adult adult = new Adult("Васильев", "Павел" + i, "Николаевич", LocalDate.of(1995, 3, 18));
+        adult.setAddress(new Address("195000", new Street(1L, "First street"), "10", "2", apartment));
+        return adult;
+    }
+
+    private void expectError(String code) {
+        try {
+            checker.checkPerson(person(1, "121"));
+            Assert.fail("CityRegisterException expected");
+        } catch (CityRegisterException ex) {
+            Assert.assertEquals(code, ex.getCode());
+        }
+    }
+
+    @Test
+    public void checkSingleAndBatch() throws CityRegisterException {
+        server.setAnswers(r -> {
+            CityRegisterResponse res = CityRegisterServer.registered(r);
+            res.setRegistered(!r.getGivenName().endsWith("3"));
+            return res;
+        });
+        Assert.assertTrue(checker.checkPerson(person(1, "121")).isRegistered());
+
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            persons.add(person(i, i % 2 == 0 ? "121" : null));
+        }
+        List<CityRegisterResponse> responses = checker.checkPersons(persons);
+        Assert.assertEquals(5, responses.size());
+        Assert.assertFalse(responses.get(3).isRegistered());
+        Assert.assertTrue(responses.get(1).isTemporal());
+        Assert.assertFalse(responses.get(2).isTemporal());
+        Assert.assertEquals(2, server.getRequestCount());
+        Assert.assertEquals(6, server.getPersonCount());
+    }
+
+    @Test
+    public void checkWithMoxyCodec() throws CityRegisterException {
+        RealCityRegisterChecker moxy = new RealCityRegisterChecker(client, server.getUrl(), server.getBatchUrl(),
+                new MoxyCityRegisterCodec());
+        Assert.assertTrue(moxy.checkPerson(person(1, "121")).isRegistered());
+        Assert.assertTrue(moxy.checkPersons(Collections.singletonList(person(2, null))).get(0).isTemporal());
+    }
+
+    @Test
+    public void errorRate() {
+        server.setErrorRate(1.0, 503);
+        expectError("503");
+        Assert.assertEquals(1, server.getErrorCount());
+    }
+
+    @Test
+    public void throttle() {
+        server.setThrottle(1, 1);
+        server.setLatency(CityRegisterServer.Latency.fixed(300));
+        Thread slow = new Thread(() -> {
+            try {
+                checker.checkPerson(person(2, "121"));
+            } catch (CityRegisterException ex) {
+                // Only the second call is of interest
+            }
+        });
+        slow.start();
+        long start = System.currentTimeMillis();
+        while (server.getRequestCount() == 0 && System.currentTimeMillis() - start < 2000) {
+            Thread.yield();
+        }
+        expectError("429");
+        Assert.assertEquals(1, server.getThrottledCount());
+    }
+
+    // The read timeout applies to each socket read, so a body that keeps trickling in is never cut off
+    @Test
+    public void slowDrainPassesReadTimeout() throws CityRegisterException {
+        server.setSlowDrain(40);
+        long start = System.currentTimeMillis();
+        Assert.assertTrue(checker.checkPerson(person(1, "121")).isRegistered());
+        Assert.assertTrue(System.currentTimeMillis() - start > 500);
+    }
+
+    @Test
+    public void latencyHitsReadTimeout() {
+        server.setLatency(CityRegisterServer.Latency.fixed(1000));
+        expectError(CityRegisterException.TRANSPORT_ERROR);
+    }
+}
@@ -6,6 +6,10 @@ import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
 import edu.javacourse.studentorder.domain.Person;
 import edu.javacourse.studentorder.exception.CityRegisterException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class FakeCityRegisterChecker implements CityRegisterChecker {
 
     private static final String GOOD_1 = "1000";
@@ -17,6 +21,9 @@ public class FakeCityRegisterChecker implements CityRegisterChecker {
     private static final String ERROR_T_1 = "1003";
     private static final String ERROR_T_2 = "2003";
 
+    // Called from the validator's worker threads
+    private final AtomicInteger batchCount = new AtomicInteger();
+
     @Override
     public CityRegisterResponse checkPerson(Person person)
             throws CityRegisterException {
@@ -45,4 +52,19 @@ public class FakeCityRegisterChecker implements CityRegisterChecker {
         System.out.println(res);
         return res;
     }
+
+    @Override
+    public List<CityRegisterResponse> checkPersons(List<? extends Person> persons)
+            throws CityRegisterException {
+        batchCount.incrementAndGet();
+        List<CityRegisterResponse> result = new ArrayList<>(persons.size());
+        for (Person person : persons) {
+            result.add(checkPerson(person));
+        }
+        return result;
+    }
+
+    public int getBatchCount() {
+        return batchCount.get();
+    }
 }
@@ -0,0 +1,212 @@
+package edu.javacourse.studentorder.validator.register;
+
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import edu.javacourse.studentorder.exception.CityRegisterException;
+import edu.javacourse.studentorder.metrics.Gauge;
+import edu.javacourse.studentorder.metrics.MetricRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ResilientCityRegisterCheckerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Adult person = new Adult("Васильев", "Павел", "Николаевич", LocalDate.of(1995, 3, 18));
+
+    private CircuitBreaker breaker(long slowCallTime) {
+        return new CircuitBreaker(10, 4, 50, slowCallTime, 50, 1000, 2, clock::get);
+    }
+
+    private RetryPolicy retry(int attempts) {
+        return new RetryPolicy(attempts, 1, 5, new HashSet<>(Arrays.asList("IO", "503")));
+    }
+
+    private static CityRegisterResponse registered() {
+        CityRegisterResponse res = new CityRegisterResponse();
+        res.setRegistered(true);
+        return res;
+    }
+
+    @Test
+    public void retryTransientError() throws CityRegisterException {
+        ResilientCityRegisterChecker checker = new ResilientCityRegisterChecker(p -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new CityRegisterException("503", "Service Unavailable");
+            }
+            return registered();
+        }, breaker(1000), 5, 100, retry(3));
+
+        Assert.assertTrue(checker.checkPerson(person).isRegistered());
+        Assert.assertEquals(3, calls.get());
+        Assert.assertEquals(2, checker.getRetryCount());
+    }
+
+    @Test
+    public void noRetryForRequestError() {
+        ResilientCityRegisterChecker checker = new ResilientCityRegisterChecker(p -> {
+            calls.incrementAndGet();
+            throw new CityRegisterException("400", "Bad Request");
+        }, breaker(1000), 5, 100, retry(3));
+
+        try {
+            checker.checkPerson(person);
+            Assert.fail();
+        } catch (CityRegisterException ex) {
+            Assert.assertEquals("400", ex.getCode());
+        }
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, checker.getState());
+    }
+
+    @Test
+    public void openOnFailuresAndRecover() throws CityRegisterException {
+        AtomicInteger failing = new AtomicInteger(1);
+        ResilientCityRegisterChecker checker = new ResilientCityRegisterChecker(p -> {
+            calls.incrementAndGet();
+            if (failing.get() == 1) {
+                throw new CityRegisterException("IO", "Read timed out");
+            }
+            return registered();
+        }, breaker(1000), 5, 100, retry(1));
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                checker.checkPerson(person);
+            } catch (CityRegisterException ex) {
+                Assert.assertEquals("IO", ex.getCode());
+            }
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, checker.getState());
+        try {
+            checker.checkPerson(person);
+            Assert.fail();
+        } catch (CityRegisterException ex) {
+            Assert.assertEquals(CityRegisterException.CIRCUIT_OPEN, ex.getCode());
+        }
+        Assert.assertEquals(4, calls.get());
+
+        failing.set(0);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        checker.checkPerson(person);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, checker.getState());
+        checker.checkPerson(person);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, checker.getState());
+    }
+
+    @Test
+    public void errorFailsHalfOpenTrial() throws CityRegisterException {
+        AtomicInteger failing = new AtomicInteger(1);
+        ResilientCityRegisterChecker checker = new ResilientCityRegisterChecker(p -> {
+            if (failing.get() == 1) {
+                throw new CityRegisterException("IO", "Read timed out");
+            }
+            throw new LinkageError("Broken client");
+        }, breaker(1000), 5, 100, retry(1));
+
+        for (int i = 0; i < 4; i++) {
+            try {
+                checker.checkPerson(person);
+            } catch (CityRegisterException ex) {
+                Assert.assertEquals("IO", ex.getCode());
+            }
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, checker.getState());
+
+        failing.set(0);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        try {
+            checker.checkPerson(person);
+            Assert.fail();
+        } catch (LinkageError ex) {
+            Assert.assertEquals("Broken client", ex.getMessage());
+        }
+        // The failed trial opens the breaker again instead of holding a half-open slot
+        Assert.assertEquals(CircuitBreaker.State.OPEN, checker.getState());
+        Assert.assertEquals(0, checker.getActiveCalls());
+    }
+
+    @Test
+    public void metricsFollowBreaker() {
+        MetricRegistry metrics = new MetricRegistry(true, false);
+        ResilientCityRegisterChecker checker = new ResilientCityRegisterChecker(p -> {
+            throw new CityRegisterException("IO", "Read timed out");
+        }, breaker(1000), 5, 100, retry(2));
+        checker.registerMetrics(metrics);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                checker.checkPerson(person);
+            } catch (CityRegisterException ex) {
+                // counted below
+            }
+        }
+        Map<String, Gauge> gauges = metrics.getGauges();
+        Assert.assertEquals(CircuitBreaker.State.OPEN.ordinal(), gauges.get("cr.breaker.state").getValue(), 0);
+        Assert.assertEquals(100, gauges.get("cr.breaker.failureRate").getValue(), 0.01);
+        Assert.assertEquals(4, gauges.get("cr.calls").getValue(), 0);
+        Assert.assertEquals(2, gauges.get("cr.retries").getValue(), 0);
+        // The third call is rejected by the open breaker without reaching the register
+        Assert.assertEquals(1, gauges.get("cr.breaker.notPermitted").getValue(), 0);
+        Assert.assertEquals(0, gauges.get("cr.bulkhead.rejected").getValue(), 0);
+    }
+
+    @Test
+    public void openOnSlowCalls() {
+        CircuitBreaker breaker = breaker(100);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(breaker.tryAcquire());
+            breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(i < 2 ? 500 : 10));
+        }
+        Assert.assertEquals(50f, breaker.getSlowCallRate(), 0.01);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Assert.assertFalse(breaker.tryAcquire());
+        Assert.assertEquals(1, breaker.getNotPermittedCount());
+    }
+
+    @Test
+    public void bulkheadRejects() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ResilientCityRegisterChecker checker = new ResilientCityRegisterChecker(p -> {
+            inside.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                throw new CityRegisterException("1", "Interrupted", ex);
+            }
+            return registered();
+        }, breaker(10000), 1, 10, retry(3));
+
+        Thread first = new Thread(() -> {
+            try {
+                checker.checkPersons(Collections.singletonList(person));
+            } catch (CityRegisterException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        first.start();
+        inside.await();
+        try {
+            checker.checkPerson(person);
+            Assert.fail();
+        } catch (CityRegisterException ex) {
+            Assert.assertEquals(CityRegisterException.BULKHEAD_FULL, ex.getCode());
+        } finally {
+            release.countDown();
+            first.join();
+        }
+        Assert.assertEquals(1, checker.getBulkheadRejectedCount());
+        Assert.assertEquals(0, checker.getActiveCalls());
+    }
+}
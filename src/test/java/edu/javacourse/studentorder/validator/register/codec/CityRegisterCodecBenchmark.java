@@ -0,0 +1,116 @@
+package edu.javacourse.studentorder.validator.register.codec;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.domain.register.CityRegisterBatchRequest;
+import edu.javacourse.studentorder.domain.register.CityRegisterBatchResponse;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+import org.eclipse.persistence.jaxb.MarshallerProperties;
+import org.eclipse.persistence.jaxb.UnmarshallerProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// MOXy is driven the way the Jersey provider drives it: a new marshaller per entity
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CityRegisterCodecBenchmark {
+
+    @Param({"1", "50"})
+    private int persons;
+
+    private JAXBContext context;
+    private List<Person> batch;
+    private byte[] answer;
+    private final JsonWriter writer = new JsonWriter();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final byte[] readBuffer = new byte[4096];
+
+    @Setup
+    public void setUp() throws JAXBException {
+        context = JAXBContextFactory.createContext(new Class[]{
+                CityRegisterBatchRequest.class, CityRegisterBatchResponse.class}, null);
+        batch = new ArrayList<>(persons);
+        List<CityRegisterResponse> responses = new ArrayList<>(persons);
+        for (int i = 0; i < persons; i++) {
+            Adult adult = new Adult("Васильев", "Павел", "Николаевич", LocalDate.of(1995, 3, 18));
+            adult.setAddress(new Address("195000", new Street(1L, "First street"), "10", "2", String.valueOf(i)));
+            batch.add(adult);
+            CityRegisterResponse res = new CityRegisterResponse();
+            res.setRegistered(true);
+            responses.add(res);
+        }
+        CityRegisterBatchResponse response = new CityRegisterBatchResponse();
+        response.setResponses(responses);
+        Marshaller m = marshaller();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        m.marshal(response, bytes);
+        answer = bytes.toByteArray();
+    }
+
+    private Marshaller marshaller() throws JAXBException {
+        Marshaller m = context.createMarshaller();
+        m.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
+        m.setProperty(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+        return m;
+    }
+
+    @Benchmark
+    public void encodeMoxy(Blackhole bh) throws JAXBException {
+        out.reset();
+        marshaller().marshal(new CityRegisterBatchRequest(batch), out);
+        bh.consume(out.size());
+    }
+
+    @Benchmark
+    public void encodeStreaming(Blackhole bh) throws IOException {
+        out.reset();
+        StreamingCityRegisterCodec.writeBatch(writer.reset(), batch);
+        writer.writeTo(out);
+        bh.consume(out.size());
+    }
+
+    @Benchmark
+    public void decodeMoxy(Blackhole bh) throws JAXBException {
+        Unmarshaller u = context.createUnmarshaller();
+        u.setProperty(UnmarshallerProperties.MEDIA_TYPE, "application/json");
+        u.setProperty(UnmarshallerProperties.JSON_INCLUDE_ROOT, false);
+        bh.consume(u.unmarshal(new StreamSource(new ByteArrayInputStream(answer)),
+                CityRegisterBatchResponse.class).getValue());
+    }
+
+    @Benchmark
+    public void decodeStreaming(Blackhole bh) throws IOException {
+        bh.consume(StreamingCityRegisterCodec.readBatch(
+                new JsonReader(new ByteArrayInputStream(answer), readBuffer)));
+    }
+}
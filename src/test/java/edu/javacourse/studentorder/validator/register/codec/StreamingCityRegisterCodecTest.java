@@ -0,0 +1,127 @@
+package edu.javacourse.studentorder.validator.register.codec;
+
+import edu.javacourse.studentorder.domain.Address;
+import edu.javacourse.studentorder.domain.Adult;
+import edu.javacourse.studentorder.domain.Person;
+import edu.javacourse.studentorder.domain.Street;
+import edu.javacourse.studentorder.domain.register.CityRegisterBatchRequest;
+import edu.javacourse.studentorder.domain.register.CityRegisterBatchResponse;
+import edu.javacourse.studentorder.domain.register.CityRegisterRequest;
+import edu.javacourse.studentorder.domain.register.CityRegisterResponse;
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+import org.eclipse.persistence.jaxb.MarshallerProperties;
+import org.eclipse.persistence.jaxb.UnmarshallerProperties;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class StreamingCityRegisterCodecTest {
+
+    private static JAXBContext context() throws Exception {
+        return JAXBContextFactory.createContext(new Class[]{
+                CityRegisterRequest.class, CityRegisterBatchRequest.class,
+                CityRegisterResponse.class, CityRegisterBatchResponse.class}, null);
+    }
+
+    private static <T> T unmarshal(byte[] json, Class<T> type) throws Exception {
+        Unmarshaller u = context().createUnmarshaller();
+        u.setProperty(UnmarshallerProperties.MEDIA_TYPE, "application/json");
+        u.setProperty(UnmarshallerProperties.JSON_INCLUDE_ROOT, false);
+        return u.unmarshal(new StreamSource(new ByteArrayInputStream(json)), type).getValue();
+    }
+
+    private static byte[] marshal(Object value) throws Exception {
+        Marshaller m = context().createMarshaller();
+        m.setProperty(MarshallerProperties.MEDIA_TYPE, "application/json");
+        m.setProperty(MarshallerProperties.JSON_INCLUDE_ROOT, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        m.marshal(value, out);
+        return out.toByteArray();
+    }
+
+    private static Person person(String surName, String patronymic, LocalDate dob) {
+        Adult adult = new Adult(surName, "Павел", patronymic, dob);
+        adult.setAddress(new Address("195000", new Street(17L, "Невский"), "10", null, "121"));
+        return adult;
+    }
+
+    @Test
+    public void writeMatchesMoxyContract() throws Exception {
+        Person person = person("О'Нил \"Младший\" \\ 😀\n", null, LocalDate.of(995, 3, 8));
+        JsonWriter w = new JsonWriter(8);
+        StreamingCityRegisterCodec.writeRequest(w, person);
+
+        Assert.assertEquals(new CityRegisterRequest(person), unmarshal(w.toByteArray(), CityRegisterRequest.class));
+    }
+
+    @Test
+    public void writeBatch() throws Exception {
+        List<Person> persons = Arrays.asList(
+                person("Васильев", "Николаевич", LocalDate.of(1995, 3, 18)),
+                person("Васильева", "Петровна", LocalDate.of(1997, 12, 1)));
+        JsonWriter w = new JsonWriter();
+        StreamingCityRegisterCodec.writeBatch(w, persons);
+
+        CityRegisterBatchRequest batch = unmarshal(w.toByteArray(), CityRegisterBatchRequest.class);
+        Assert.assertEquals(new CityRegisterBatchRequest(persons).getPersons(), batch.getPersons());
+
+        w.reset();
+        StreamingCityRegisterCodec.writeBatch(w, persons.subList(0, 1));
+        Assert.assertEquals(1, unmarshal(w.toByteArray(), CityRegisterBatchRequest.class).getPersons().size());
+    }
+
+    @Test
+    public void readMoxyAnswers() throws Exception {
+        List<CityRegisterResponse> responses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CityRegisterResponse res = new CityRegisterResponse();
+            res.setRegistered(i != 1);
+            res.setTemporal(i == 2);
+            responses.add(res);
+        }
+        CityRegisterBatchResponse batch = new CityRegisterBatchResponse();
+        batch.setResponses(responses);
+
+        List<CityRegisterResponse> read = StreamingCityRegisterCodec.readBatch(
+                new JsonReader(new ByteArrayInputStream(marshal(batch)), new byte[7]));
+        Assert.assertEquals(3, read.size());
+        Assert.assertTrue(read.get(0).isRegistered());
+        Assert.assertFalse(read.get(1).isRegistered());
+        Assert.assertTrue(read.get(2).isTemporal());
+
+        batch.setResponses(responses.subList(1, 2));
+        read = StreamingCityRegisterCodec.readBatch(new JsonReader(new ByteArrayInputStream(marshal(batch))));
+        Assert.assertEquals(1, read.size());
+        Assert.assertFalse(read.get(0).isRegistered());
+    }
+
+    @Test
+    public void skipUnknownFields() throws Exception {
+        String json = "{ \"note\" : \"a\\\"b\\u0436\", \"registered\" : true, \"extra\" : {\"x\": [1, -2.5e3, null]},"
+                + " \"temporal\": null }";
+        CityRegisterResponse res = StreamingCityRegisterCodec.readResponse(
+                new JsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))));
+        Assert.assertTrue(res.isRegistered());
+        Assert.assertFalse(res.isTemporal());
+
+        JsonReader r = new JsonReader(new ByteArrayInputStream("\"a\\\"b\\u0436\\ud83d\\ude00\"".getBytes()));
+        Assert.assertEquals("a\"bж😀", r.nextString());
+    }
+
+    @Test(expected = MalformedJsonException.class)
+    public void malformed() throws Exception {
+        StreamingCityRegisterCodec.readResponse(
+                new JsonReader(new ByteArrayInputStream("{\"registered\": yes}".getBytes())));
+    }
+}